@@ -0,0 +1,116 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs;
+
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecConfigurationException;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.whaleal.icefrog.core.lang.Precondition.notNull;
+import static java.lang.String.format;
+
+/**
+ * 位于 provider 链之前的 Class → Codec 查找缓存
+ * <p>
+ * 命中时只需一次 ConcurrentHashMap 查找 , 不再经过 provider 链 ;
+ * 找不到 codec 的类型同样记录下来 , 再次查找时直接抛出异常
+ * <p>
+ * 记录命中及未命中的次数 , 用于观察缓存效果
+ */
+public final class CachingCodecRegistry implements CodecRegistry {
+
+    private final CodecRegistry delegate;
+
+    private final Map< Class< ? >, Codec< ? > > codecs = new ConcurrentHashMap<>();
+
+    private final Map< Class< ? >, Boolean > missing = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public CachingCodecRegistry( CodecRegistry delegate ) {
+        this.delegate = notNull("delegate", delegate);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public < T > Codec< T > get( Class< T > clazz ) {
+        Codec< ? > codec = codecs.get(clazz);
+        if (codec != null) {
+            hits.increment();
+            return (Codec< T >) codec;
+        }
+        if (missing.containsKey(clazz)) {
+            hits.increment();
+            throw new CodecConfigurationException(format("Can't find a codec for %s.", clazz));
+        }
+
+        misses.increment();
+        try {
+            codec = delegate.get(clazz);
+        } catch (CodecConfigurationException e) {
+            missing.put(clazz, Boolean.TRUE);
+            throw e;
+        }
+        Codec< ? > previous = codecs.putIfAbsent(clazz, codec);
+        return (Codec< T >) (previous != null ? previous : codec);
+    }
+
+    @Override
+    public < T > Codec< T > get( Class< T > clazz, CodecRegistry registry ) {
+        return delegate.get(clazz, registry);
+    }
+
+    /**
+     * @return 在缓存中找到结果的查找次数 , 包括找不到 codec 的类型
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 需要经过 provider 链的查找次数
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 已缓存的类型个数 , 包括找不到 codec 的类型
+     */
+    public int size() {
+        return codecs.size() + missing.size();
+    }
+}
@@ -0,0 +1,343 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWrapper;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * 只读的紧凑文档 , 用于大量缓存 Document 类型的查询 / 聚合结果
+ * <p>
+ * {@link Document} 每层都持有一个 LinkedHashMap , 每个字段一个 Entry 对象 ;
+ * 这里只保存一个值数组 , 字段名保存在 {@link Shape} 中 , 字段名及顺序相同的文档共用同一个 Shape
+ * <p>
+ * 内嵌文档同样解码为 CompactDocument , 数组解码为不可修改的 List , 所有修改操作抛出 UnsupportedOperationException
+ *
+ * @see CompactDocumentCodec
+ */
+public final class CompactDocument extends AbstractMap< String, Object > implements Bson {
+
+    static final Object[] NO_VALUES = new Object[0];
+
+    private final Shape shape;
+
+    private final Object[] values;
+
+    CompactDocument( Shape shape, Object[] values ) {
+        this.shape = shape;
+        this.values = values;
+    }
+
+    Shape getShape() {
+        return shape;
+    }
+
+    Object valueAt( int index ) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean containsKey( Object key ) {
+        return shape.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get( Object key ) {
+        int index = shape.indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    public < T > T get( String key, Class< T > clazz ) {
+        return clazz.cast(get(key));
+    }
+
+    public String getString( String key ) {
+        return (String) get(key);
+    }
+
+    public Integer getInteger( String key ) {
+        return (Integer) get(key);
+    }
+
+    public Long getLong( String key ) {
+        return (Long) get(key);
+    }
+
+    public Double getDouble( String key ) {
+        return (Double) get(key);
+    }
+
+    public Boolean getBoolean( String key ) {
+        return (Boolean) get(key);
+    }
+
+    public Date getDate( String key ) {
+        return (Date) get(key);
+    }
+
+    public ObjectId getObjectId( String key ) {
+        return (ObjectId) get(key);
+    }
+
+    public CompactDocument getDocument( String key ) {
+        return (CompactDocument) get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    public < T > List< T > getList( String key, Class< T > clazz ) {
+        return (List< T >) get(key);
+    }
+
+    @Override
+    public void forEach( BiConsumer< ? super String, ? super Object > action ) {
+        String[] keys = shape.keys;
+        for (int i = 0; i < values.length; i++) {
+            action.accept(keys[i], values[i]);
+        }
+    }
+
+    @Override
+    public Set< Entry< String, Object > > entrySet() {
+        return new AbstractSet< Entry< String, Object > >() {
+            @Override
+            public Iterator< Entry< String, Object > > iterator() {
+                return new Iterator< Entry< String, Object > >() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Entry< String, Object > next() {
+                        if (next >= values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new SimpleImmutableEntry<>(shape.keys[index], values[index]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+
+    /**
+     * 转换为可修改的 {@link Document} , 内嵌文档及数组一并转换
+     *
+     * @return a new Document with the same content
+     */
+    public Document toDocument() {
+        Document document = new Document();
+        forEach(( key, value ) -> document.put(key, toMutable(value)));
+        return document;
+    }
+
+    private static Object toMutable( Object value ) {
+        if (value instanceof CompactDocument) {
+            return ((CompactDocument) value).toDocument();
+        } else if (value instanceof ImmutableList) {
+            List< Object > list = new ArrayList<>(((ImmutableList) value).size());
+            for (Object element : (ImmutableList) value) {
+                list.add(toMutable(element));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    @Override
+    public < TDocument > BsonDocument toBsonDocument( Class< TDocument > documentClass, CodecRegistry codecRegistry ) {
+        return new BsonDocumentWrapper<>(this, codecRegistry.get(CompactDocument.class));
+    }
+
+    /**
+     * 字段名及顺序
+     * <p>
+     * 同一个 codec 解码出的 Shape 组成一棵树 , 每追加一个字段沿树向下走一步 , 字段名只在首次出现时保存 ;
+     * 树的大小有上限 , 超出后 (例如以数据作为字段名的文档) 新的字段组合不再共享
+     */
+    static final class Shape {
+
+        // 字段数不超过该值时顺序比较字段名 , 否则使用索引
+        private static final int LINEAR_SCAN_LIMIT = 8;
+
+        // 超过该字段数的文档不再共享 Shape
+        static final int MAX_SHARED_KEYS = 64;
+
+        final String[] keys;
+
+        // 剩余可创建的共享 Shape 数量 , 为 null 时表示不共享
+        private final AtomicInteger budget;
+
+        private volatile ConcurrentHashMap< String, Shape > transitions;
+
+        private volatile Map< String, Integer > index;
+
+        private Shape( String[] keys, AtomicInteger budget ) {
+            this.keys = keys;
+            this.budget = budget;
+        }
+
+        static Shape root( int maxShapes ) {
+            return new Shape(new String[0], new AtomicInteger(maxShapes));
+        }
+
+        static Shape unshared( String[] keys ) {
+            return new Shape(keys, null);
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        int indexOf( Object key ) {
+            String[] keys = this.keys;
+            if (keys.length <= LINEAR_SCAN_LIMIT) {
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i].equals(key)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            Integer i = index().get(key);
+            return i == null ? -1 : i;
+        }
+
+        private Map< String, Integer > index() {
+            Map< String, Integer > current = index;
+            if (current == null) {
+                current = new HashMap<>(keys.length * 2);
+                for (int i = 0; i < keys.length; i++) {
+                    current.put(keys[i], i);
+                }
+                index = current;
+            }
+            return current;
+        }
+
+        /**
+         * 追加一个字段后的 Shape
+         *
+         * @return 字段已存在时返回自身 , 不再共享时返回 null
+         */
+        Shape next( String name ) {
+            ConcurrentHashMap< String, Shape > current = transitions;
+            if (current != null) {
+                Shape next = current.get(name);
+                if (next != null) {
+                    return next;
+                }
+            }
+            return addTransition(name);
+        }
+
+        private synchronized Shape addTransition( String name ) {
+            if (budget == null) {
+                return null;
+            }
+            if (transitions == null) {
+                transitions = new ConcurrentHashMap<>(4);
+            }
+            Shape next = transitions.get(name);
+            if (next != null) {
+                return next;
+            }
+            if (indexOf(name) >= 0) {
+                next = this;
+            } else {
+                if (keys.length >= MAX_SHARED_KEYS || budget.get() <= 0 || budget.decrementAndGet() < 0) {
+                    return null;
+                }
+                String[] nextKeys = Arrays.copyOf(keys, keys.length + 1);
+                nextKeys[keys.length] = name;
+                next = new Shape(nextKeys, budget);
+            }
+            transitions.put(name, next);
+            return next;
+        }
+    }
+
+    /**
+     * 数组解码后的不可修改 List
+     */
+    static final class ImmutableList extends AbstractList< Object > implements RandomAccess {
+
+        static final ImmutableList EMPTY = new ImmutableList(NO_VALUES);
+
+        private final Object[] elements;
+
+        ImmutableList( Object[] elements ) {
+            this.elements = elements;
+        }
+
+        @Override
+        public Object get( int index ) {
+            return elements[index];
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs;
+
+import com.whaleal.mars.codecs.internal.BsonTypeClassMap;
+import com.whaleal.mars.codecs.internal.BsonTypeCodecMap;
+import com.whaleal.mars.codecs.internal.InlineCodecCache;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link CompactDocument} 的 codec
+ * <p>
+ * 常见类型直接通过 BsonReader 读取 , 其他类型按 BSON 类型查找 codec , 对应的 Java 类型与 Document 相同
+ */
+public class CompactDocumentCodec implements Codec< CompactDocument > {
+
+    // 共享 Shape 的数量上限
+    static final int MAX_SHAPES = 4096;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final MongoMappingContext mapper;
+
+    private final CompactDocument.Shape root = CompactDocument.Shape.root(MAX_SHAPES);
+
+    //  创建时 mapper 的注册表尚未完成 , 首次使用时再创建
+    private volatile BsonTypeCodecMap bsonTypeCodecMap;
+
+    private volatile InlineCodecCache encodeCodecs;
+
+    public CompactDocumentCodec( MongoMappingContext mapper ) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public CompactDocument decode( BsonReader reader, DecoderContext decoderContext ) {
+        reader.readStartDocument();
+        CompactDocument.Shape shape = root;
+        Object[] values = new Object[INITIAL_CAPACITY];
+        int size = 0;
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            Object value = readValue(reader, decoderContext);
+            CompactDocument.Shape next = shape.next(name);
+            if (next == null) {
+                return decodeUnshared(reader, decoderContext, shape, values, size, name, value);
+            }
+            if (next == shape) {
+                //  重复的字段名 , 与 Document 相同保留最后一个值
+                values[shape.indexOf(name)] = value;
+                continue;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+            shape = next;
+        }
+        reader.readEndDocument();
+        return new CompactDocument(shape, size == 0 ? CompactDocument.NO_VALUES : size == values.length ? values : Arrays.copyOf(values, size));
+    }
+
+    /**
+     * 字段过多或共享的 Shape 数量达到上限时 , 剩余字段读入 LinkedHashMap , 使用单独的 Shape
+     */
+    private CompactDocument decodeUnshared( BsonReader reader, DecoderContext decoderContext, CompactDocument.Shape shape,
+                                            Object[] values, int size, String name, Object value ) {
+        Map< String, Object > fields = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            fields.put(shape.keys[i], values[i]);
+        }
+        fields.put(name, value);
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String fieldName = reader.readName();
+            fields.put(fieldName, readValue(reader, decoderContext));
+        }
+        reader.readEndDocument();
+        return new CompactDocument(CompactDocument.Shape.unshared(fields.keySet().toArray(new String[0])), fields.values().toArray());
+    }
+
+    private Object readValue( BsonReader reader, DecoderContext decoderContext ) {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT:
+                return decode(reader, decoderContext);
+            case ARRAY:
+                return readArray(reader, decoderContext);
+            case NULL:
+                reader.readNull();
+                return null;
+            case STRING:
+                return reader.readString();
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            case DOUBLE:
+                return reader.readDouble();
+            case BOOLEAN:
+                return reader.readBoolean();
+            case OBJECT_ID:
+                return reader.readObjectId();
+            case DATE_TIME:
+                return new Date(reader.readDateTime());
+            default:
+                return decoderContext.decodeWithChildContext(bsonTypeCodecMap().get(reader.getCurrentBsonType()), reader);
+        }
+    }
+
+    private Object readArray( BsonReader reader, DecoderContext decoderContext ) {
+        reader.readStartArray();
+        Object[] elements = null;
+        int size = 0;
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            Object element = readValue(reader, decoderContext);
+            if (elements == null) {
+                elements = new Object[INITIAL_CAPACITY];
+            } else if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = element;
+        }
+        reader.readEndArray();
+        if (size == 0) {
+            return CompactDocument.ImmutableList.EMPTY;
+        }
+        return new CompactDocument.ImmutableList(size == elements.length ? elements : Arrays.copyOf(elements, size));
+    }
+
+    @Override
+    public void encode( BsonWriter writer, CompactDocument document, EncoderContext encoderContext ) {
+        writer.writeStartDocument();
+        String[] keys = document.getShape().keys;
+        for (int i = 0; i < keys.length; i++) {
+            writer.writeName(keys[i]);
+            writeValue(writer, document.valueAt(i), encoderContext);
+        }
+        writer.writeEndDocument();
+    }
+
+    private void writeValue( BsonWriter writer, Object value, EncoderContext encoderContext ) {
+        if (value == null) {
+            writer.writeNull();
+        } else if (value instanceof CompactDocument) {
+            encode(writer, (CompactDocument) value, encoderContext);
+        } else if (value instanceof CompactDocument.ImmutableList) {
+            writer.writeStartArray();
+            for (Object element : (CompactDocument.ImmutableList) value) {
+                writeValue(writer, element, encoderContext);
+            }
+            writer.writeEndArray();
+        } else {
+            encoderContext.encodeWithChildContext(encodeCodecs().get(value.getClass()), writer, value);
+        }
+    }
+
+    private BsonTypeCodecMap bsonTypeCodecMap() {
+        BsonTypeCodecMap map = bsonTypeCodecMap;
+        if (map == null) {
+            map = new BsonTypeCodecMap(new BsonTypeClassMap(), mapper.getCodecRegistry());
+            bsonTypeCodecMap = map;
+        }
+        return map;
+    }
+
+    private InlineCodecCache encodeCodecs() {
+        InlineCodecCache cache = encodeCodecs;
+        if (cache == null) {
+            cache = new InlineCodecCache(mapper.getCodecRegistry());
+            encodeCodecs = cache;
+        }
+        return cache;
+    }
+
+    @Override
+    public Class< CompactDocument > getEncoderClass() {
+        return CompactDocument.class;
+    }
+}
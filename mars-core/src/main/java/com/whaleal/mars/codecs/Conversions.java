@@ -131,24 +131,33 @@ public final class Conversions {
             return (T) convertNull(target);
         }
 
-        final Class<?> fromType = value.getClass();
-        if (fromType.equals(target)) {
-            return (T) value;
+        return (T) ((Function) converter(value.getClass(), target)).apply(value);
+    }
+
+    /**
+     * 预先查找 source 类型的值转换为 target 类型的函数 , 规则与 {@link #convert(Object, Class)} 相同
+     * 找不到转换时 , 目标为 String 则调用 toString , 目标为枚举则按名称查找 , 否则原样返回
+     * <p>
+     * 返回的函数不处理 null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Function<Object, T> converter( Class<?> source, Class<T> target ) {
+        if (source.equals(target)) {
+            return value -> (T) value;
         }
 
-        final Function function = CONVERSIONS
-                .computeIfAbsent(fromType, (f) -> new HashMap<>())
-                .get(target);
-        if (function == null) {
-            if (target.equals(String.class)) {
-                return (T) value.toString();
-            }
-            if (target.isEnum() && fromType.equals(String.class)) {
-                return (T) Enum.valueOf((Class<? extends Enum>) target, (String) value);
-            }
-            return (T) value;
+        Map<Class<?>, Function<?, ?>> targets = CONVERSIONS.get(source);
+        final Function function = targets == null ? null : targets.get(target);
+        if (function != null) {
+            return function;
+        }
+        if (target.equals(String.class)) {
+            return value -> (T) value.toString();
+        }
+        if (target.isEnum() && source.equals(String.class)) {
+            return value -> (T) Enum.valueOf((Class<? extends Enum>) target, (String) value);
         }
-        return (T) function.apply(value);
+        return value -> (T) value;
     }
 
 
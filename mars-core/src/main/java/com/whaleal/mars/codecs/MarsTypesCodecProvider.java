@@ -29,7 +29,14 @@
  */
 package com.whaleal.mars.codecs;
 
+import com.whaleal.mars.codecs.internal.BooleanArrayCodec;
+import com.whaleal.mars.codecs.internal.BoxedArrayCodec;
+import com.whaleal.mars.codecs.internal.DoubleArrayCodec;
+import com.whaleal.mars.codecs.internal.FloatArrayCodec;
+import com.whaleal.mars.codecs.internal.IntArrayCodec;
+import com.whaleal.mars.codecs.internal.LongArrayCodec;
 import com.whaleal.mars.codecs.internal.MapCodec;
+import com.whaleal.mars.codecs.internal.RawBsonArrayCodec;
 import com.whaleal.mars.codecs.internal.URICodec;
 import org.bson.codecs.Codec;
 import org.bson.codecs.configuration.CodecProvider;
@@ -61,15 +68,23 @@ public class MarsTypesCodecProvider implements CodecProvider {
         //addCodec(new LegacyQueryCodec(mapper));
         //addCodec(new MarsQueryCodec(mapper));
         addCodec(new URICodec());
+        addCodec(new RawBsonArrayCodec());
 
-        Arrays.asList(boolean.class, Boolean.class,
-                byte.class, Byte.class,
+        Arrays.asList(byte.class, Byte.class,
                 char.class, Character.class,
-                double.class, Double.class,
-                float.class, Float.class,
-                int.class, Integer.class,
-                long.class, Long.class,
+                Float.class,
                 short.class, Short.class).forEach(c -> addCodec(new TypedArrayCodec(c, mapper)));
+
+        //  常用的数值数组 元素直接读写 , 不经过反射
+        addCodec(new IntArrayCodec());
+        addCodec(new LongArrayCodec());
+        addCodec(new FloatArrayCodec());
+        addCodec(new DoubleArrayCodec());
+        addCodec(new BooleanArrayCodec());
+        addCodec(BoxedArrayCodec.ofIntegers());
+        addCodec(BoxedArrayCodec.ofLongs());
+        addCodec(BoxedArrayCodec.ofDoubles());
+        addCodec(BoxedArrayCodec.ofBooleans());
     }
 
     protected <T> void addCodec(Codec<T> codec) {
@@ -48,13 +48,16 @@ import com.whaleal.mars.codecs.pojo.annotations.Discriminator;
 import com.whaleal.mars.codecs.pojo.annotations.Entity;
 import com.whaleal.mars.codecs.reader.DocumentReader;
 import com.whaleal.mars.codecs.writer.DocumentWriter;
+import com.whaleal.mars.codecs.writer.NameTrackingBinaryWriter;
 import com.whaleal.mars.core.aggregation.codecs.AggregationCodecProvider;
 
 import com.whaleal.mars.core.internal.NotMappableException;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.bson.codecs.*;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.codecs.jsr310.Jsr310CodecProvider;
+import org.bson.io.BasicOutputBuffer;
 
 import java.lang.annotation.Annotation;
 import java.util.*;
@@ -62,6 +65,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
 
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
 import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
 
 /**
@@ -84,7 +88,7 @@ public class MongoMappingContext {
     private final DiscriminatorLookup discriminatorLookup = new DiscriminatorLookup(Collections.emptyMap(), Collections.emptySet());
     private final MarsCodecProvider marsCodecProvider;
     //
-    private final CodecRegistry codecRegistry;
+    private final CachingCodecRegistry codecRegistry;
 
     public MongoDatabase getDatabase() {
         return database;
@@ -101,6 +105,16 @@ public class MongoMappingContext {
 
     private boolean autoIndexCreation = false;
 
+    // toRawDocument 使用的线程内缓冲区 , 过大的缓冲区用完即丢弃
+    private static final int INITIAL_ENCODE_BUFFER_SIZE = 1024;
+
+    private static final int MAX_RETAINED_ENCODE_BUFFER_SIZE = 1 << 20;
+
+    private static final ThreadLocal<BasicOutputBuffer> ENCODE_BUFFER = new ThreadLocal<>();
+
+    // 是否为实体生成专用的 encoder / decoder , 默认关闭
+    private volatile boolean codecGeneration = false;
+
     public MongoMappingContext( MongoDatabase database ) {
         this.database = database;
 
@@ -123,8 +137,11 @@ public class MongoMappingContext {
 
 
         marsCodecProvider = new MarsCodecProvider(this);
-        this.codecRegistry = fromProviders(
+        //  热点路径按值的实际类型查找 codec , 在 provider 链之前加一层缓存
+        this.codecRegistry = new CachingCodecRegistry(fromProviders(
 
+                //  CompactDocument 同时是 Map , 需要在 MapCodecProvider 之前
+                fromCodecs(new CompactDocumentCodec(this)),
                 new MarsTypesCodecProvider(this),
                 new PrimitiveCodecRegistry(codecRegistry),
                 new EnumCodecProvider(),
@@ -134,8 +151,29 @@ public class MongoMappingContext {
                 marsCodecProvider
 
 
-        );
+        ));
+
+    }
+
+    /**
+     * 是否为实体生成专用的 encoder / decoder
+     *
+     * @return {@literal true} when codec generation is enabled;
+     */
+    public boolean isCodecGeneration() {
+        return codecGeneration;
+    }
 
+    /**
+     * 开启后 , 每个实体的 codec 在创建时会预先生成属性的读写步骤 , 基本类型及 String 直接通过 BsonWriter / BsonReader 读写
+     * 不支持的属性仍然使用原有的方式 , 存储格式不变
+     * <p>
+     * codec 创建后会被缓存 , 因此需要在首次使用实体之前设置
+     *
+     * @param codecGeneration {@literal true} to enable codec generation.
+     */
+    public void setCodecGeneration(boolean codecGeneration) {
+        this.codecGeneration = codecGeneration;
     }
 
     /**
@@ -238,6 +276,35 @@ public class MongoMappingContext {
         return this.codecRegistry;
     }
 
+    /**
+     * 将查询结果读取为 {@link LazyEntity} 的 codec
+     *
+     * @param type 实体类型
+     * @throws IllegalArgumentException 该类型不是实体
+     */
+    @SuppressWarnings("unchecked")
+    public <T> LazyEntityCodec<T> getLazyEntityCodec(Class<T> type) {
+        Codec<T> codec = getCodecRegistry().get(type);
+        if (!(codec instanceof MarsCodec)) {
+            throw new IllegalArgumentException(String.format("%s is not mapped as an entity.", type.getName()));
+        }
+        return ((MarsCodec<T>) codec).getLazyCodec();
+    }
+
+    /**
+     * @return codec 查找缓存的命中次数
+     */
+    public long getCodecCacheHitCount() {
+        return codecRegistry.getHitCount();
+    }
+
+    /**
+     * @return codec 查找未命中缓存 , 需要经过 provider 链的次数
+     */
+    public long getCodecCacheMissCount() {
+        return codecRegistry.getMissCount();
+    }
+
     public DiscriminatorLookup getDiscriminatorLookup() {
         return discriminatorLookup;
     }
@@ -342,13 +409,14 @@ public class MongoMappingContext {
     }
 
 
+    //  优先使用编译期生成的 EntityModelDescriptor , 没有时通过反射构建
     private <T> EntityModel createEntityModel(Class<T> clazz) {
-        return new EntityModelBuilder(clazz)
+        return EntityModelDescriptors.builder(clazz)
                 .build();
     }
 
     private <T, A extends Annotation> EntityModel createEntityModel(Class<T> clazz, A annotation) {
-        return new EntityModelBuilder(clazz).annotations(Arrays.asList(annotation))
+        return EntityModelDescriptors.builder(clazz).annotations(Arrays.<Annotation>asList(annotation))
                 .build();
     }
 
@@ -364,6 +432,51 @@ public class MongoMappingContext {
     }
 
 
+    /**
+     * 将实体直接编码为 RawBsonDocument
+     * <p>
+     * 不再先构建 Document 再由驱动重新编码 , 驱动发送时直接复制字节
+     * 编码使用线程内复用的缓冲区 , 结果只复制一次
+     */
+    public RawBsonDocument toRawDocument(Object entity) {
+        return toRawDocument(entity, false);
+    }
+
+    /**
+     * 将对象 (实体 或 聚合阶段 Stage 等) 直接编码为 RawBsonDocument
+     *
+     * @param value                对象
+     * @param rejectDuplicateNames 为 true 时 , 同一层出现重复的字段名则返回 null ,
+     *                             由调用方改用 {@link DocumentWriter} 合并同名字段
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public RawBsonDocument toRawDocument(Object value, boolean rejectDuplicateNames) {
+        Codec codec = getCodecRegistry().get(value.getClass());
+
+        BasicOutputBuffer buffer = ENCODE_BUFFER.get();
+        if (buffer == null) {
+            buffer = new BasicOutputBuffer(INITIAL_ENCODE_BUFFER_SIZE);
+        } else {
+            // 编码过程中可能再次进入 , 此时使用新的缓冲区
+            ENCODE_BUFFER.remove();
+        }
+        try {
+            NameTrackingBinaryWriter writer = new NameTrackingBinaryWriter(buffer);
+            codec.encode(writer, value, EncoderContext.builder().build());
+            writer.flush();
+            if (rejectDuplicateNames && writer.hasDuplicateNames()) {
+                return null;
+            }
+            return new RawBsonDocument(buffer.toByteArray());
+        } finally {
+            buffer.truncateToPosition(0);
+            if (buffer.getInternalBuffer().length <= MAX_RETAINED_ENCODE_BUFFER_SIZE) {
+                ENCODE_BUFFER.set(buffer);
+            }
+        }
+    }
+
+
     public void updateQueryWithDiscriminators(EntityModel model, Document query) {
         Discriminator annotation = (Discriminator) model.getAnnotation(Discriminator.class);
         if (annotation != null && annotation.useDiscriminator()
@@ -29,6 +29,8 @@
  */
 package com.whaleal.mars.codecs;
 
+import com.whaleal.mars.codecs.internal.InlineCodecCache;
+import com.whaleal.mars.codecs.pojo.DiscriminatorLookup;
 import org.bson.*;
 import org.bson.codecs.BsonTypeClassMap;
 import org.bson.codecs.Codec;
@@ -36,11 +38,15 @@ import org.bson.codecs.DecoderContext;
 import org.bson.codecs.EncoderContext;
 import org.bson.codecs.configuration.CodecConfigurationException;
 
+import java.util.Set;
+
 
 public class ObjectCodec implements Codec<Object> {
 
     private final MongoMappingContext mapper;
     private final BsonTypeClassMap bsonTypeClassMap = new BsonTypeClassMap();
+    //  创建时 mapper 的注册表尚未完成 , 首次编码时再创建
+    private volatile InlineCodecCache encodeCodecs;
 
     public ObjectCodec(MongoMappingContext mapper) {
         this.mapper = mapper;
@@ -52,24 +58,25 @@ public class ObjectCodec implements Codec<Object> {
         Class<?> clazz;
         if (bsonType == BsonType.DOCUMENT) {
             clazz = Document.class;
-            String discriminatorField = "";
-            //String discriminatorField = mapper.getOptions().getDiscriminatorKey();
-
-            BsonReaderMark mark = reader.getMark();
-            reader.readStartDocument();
-            while (clazz.equals(Document.class) && reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-                if (reader.readName().equals(discriminatorField)) {
+            //  没有实体启用 discriminator 时不需要查看文档内容
+            Set<String> discriminatorKeys = mapper.getDiscriminatorLookup().getDiscriminatorKeys();
+            if (!discriminatorKeys.isEmpty()) {
+                String discriminator;
+                BsonReaderMark mark = reader.getMark();
+                try {
+                    discriminator = DiscriminatorLookup.readDiscriminator(reader, discriminatorKeys);
+                } finally {
+                    mark.reset();
+                }
+                if (discriminator != null) {
                     try {
-                        //clazz = mapper.getClass(reader.readString());
-                        clazz = null;
+                        clazz = mapper.getClass(discriminator);
                     } catch (CodecConfigurationException e) {
-                        throw new MarsOrmException(e.getMessage(), e);
+                        //  普通文档中恰好存在同名字段 , 仍按 Document 解码
+                        clazz = Document.class;
                     }
-                } else {
-                    reader.skipValue();
                 }
             }
-            mark.reset();
         } else {
             clazz = bsonTypeClassMap.get(bsonType);
         }
@@ -80,10 +87,19 @@ public class ObjectCodec implements Codec<Object> {
 
     @Override
     public void encode(BsonWriter writer, Object value, EncoderContext encoderContext) {
-        final Codec codec = mapper.getCodecRegistry().get(value.getClass());
+        final Codec codec = encodeCodecs().get(value.getClass());
         codec.encode(writer, value, encoderContext);
     }
 
+    private InlineCodecCache encodeCodecs() {
+        InlineCodecCache cache = encodeCodecs;
+        if (cache == null) {
+            cache = new InlineCodecCache(mapper.getCodecRegistry());
+            encodeCodecs = cache;
+        }
+        return cache;
+    }
+
     @Override
     public Class<Object> getEncoderClass() {
         return Object.class;
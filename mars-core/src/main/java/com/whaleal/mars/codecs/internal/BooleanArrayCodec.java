@@ -0,0 +1,80 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.internal;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.Arrays;
+
+/**
+ * boolean[] 的 Codec
+ * <p>
+ * 元素直接通过 BsonReader / BsonWriter 读写 , 不经过装箱 , 也不再通过 java.lang.reflect.Array 访问 ,
+ * 元素必须为 BOOLEAN , 与 BooleanCodec 一致
+ */
+public class BooleanArrayCodec implements Codec< boolean[] > {
+
+    @Override
+    public void encode( final BsonWriter writer, final boolean[] value, final EncoderContext encoderContext ) {
+        writer.writeStartArray();
+        for (boolean element : value) {
+            writer.writeBoolean(element);
+        }
+        writer.writeEndArray();
+    }
+
+    @Override
+    public boolean[] decode( final BsonReader reader, final DecoderContext decoderContext ) {
+        reader.readStartArray();
+        boolean[] buffer = PrimitiveArrayBuffers.booleans();
+        int size = 0;
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, PrimitiveArrayBuffers.grow(buffer.length));
+            }
+            buffer[size++] = reader.readBoolean();
+        }
+        reader.readEndArray();
+
+        boolean[] result = Arrays.copyOf(buffer, size);
+        PrimitiveArrayBuffers.release(buffer);
+        return result;
+    }
+
+    @Override
+    public Class< boolean[] > getEncoderClass() {
+        return boolean[].class;
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.internal;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Integer[] Long[] Double[] Boolean[] 的 Codec
+ * <p>
+ * 直接读入目标类型的数组 , 不再先收集到 ArrayList 再通过 java.lang.reflect.Array 逐个复制 ,
+ * 元素为 null 时写入 / 读取 BSON null
+ *
+ * @param <T> 元素类型
+ */
+public class BoxedArrayCodec< T > implements Codec< T[] > {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Class< T[] > encoderClass;
+
+    private final Function< BsonReader, T > elementReader;
+
+    private final BiConsumer< BsonWriter, T > elementWriter;
+
+    private BoxedArrayCodec( Class< T[] > encoderClass, Function< BsonReader, T > elementReader,
+                             BiConsumer< BsonWriter, T > elementWriter ) {
+        this.encoderClass = encoderClass;
+        this.elementReader = elementReader;
+        this.elementWriter = elementWriter;
+    }
+
+    public static BoxedArrayCodec< Integer > ofIntegers() {
+        return new BoxedArrayCodec<>(Integer[].class, NumberCodecHelper::decodeInt, BsonWriter::writeInt32);
+    }
+
+    public static BoxedArrayCodec< Long > ofLongs() {
+        return new BoxedArrayCodec<>(Long[].class, NumberCodecHelper::decodeLong, BsonWriter::writeInt64);
+    }
+
+    public static BoxedArrayCodec< Double > ofDoubles() {
+        return new BoxedArrayCodec<>(Double[].class, NumberCodecHelper::decodeDouble, BsonWriter::writeDouble);
+    }
+
+    public static BoxedArrayCodec< Boolean > ofBooleans() {
+        return new BoxedArrayCodec<>(Boolean[].class, BsonReader::readBoolean, BsonWriter::writeBoolean);
+    }
+
+    @Override
+    public void encode( final BsonWriter writer, final T[] value, final EncoderContext encoderContext ) {
+        writer.writeStartArray();
+        for (T element : value) {
+            if (element == null) {
+                writer.writeNull();
+            } else {
+                elementWriter.accept(writer, element);
+            }
+        }
+        writer.writeEndArray();
+    }
+
+    @Override
+    public T[] decode( final BsonReader reader, final DecoderContext decoderContext ) {
+        reader.readStartArray();
+        T[] buffer = Arrays.copyOf(EMPTY, INITIAL_CAPACITY, encoderClass);
+        int size = 0;
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, PrimitiveArrayBuffers.grow(buffer.length));
+            }
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                buffer[size++] = null;
+            } else {
+                buffer[size++] = elementReader.apply(reader);
+            }
+        }
+        reader.readEndArray();
+        return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+    }
+
+    @Override
+    public Class< T[] > getEncoderClass() {
+        return encoderClass;
+    }
+}
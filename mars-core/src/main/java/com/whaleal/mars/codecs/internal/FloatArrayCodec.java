@@ -0,0 +1,115 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.internal;
+
+import com.whaleal.mars.codecs.RepresentationConfigurable;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecConfigurationException;
+
+import java.util.Arrays;
+
+/**
+ * float[] 的 Codec
+ * <p>
+ * 元素直接通过 BsonReader / BsonWriter 读写 , 不经过装箱 , 也不再通过 java.lang.reflect.Array 访问 ,
+ * 元素为其他数值类型时按 FloatCodec 的规则转换
+ * <p>
+ * 通过 {@code @Representation(BsonType.BINARY)} 可以存为紧凑的二进制 , 见 {@link PackedArrays} ,
+ * 解码时两种存储形式都可以读取
+ */
+public class FloatArrayCodec implements Codec< float[] >, RepresentationConfigurable< float[] > {
+
+    private final BsonType representation;
+
+    public FloatArrayCodec() {
+        this(BsonType.ARRAY);
+    }
+
+    private FloatArrayCodec( BsonType representation ) {
+        this.representation = representation;
+    }
+
+    @Override
+    public void encode( final BsonWriter writer, final float[] value, final EncoderContext encoderContext ) {
+        if (representation == BsonType.BINARY) {
+            PackedArrays.write(writer, value);
+            return;
+        }
+        writer.writeStartArray();
+        for (float element : value) {
+            writer.writeDouble(element);
+        }
+        writer.writeEndArray();
+    }
+
+    @Override
+    public float[] decode( final BsonReader reader, final DecoderContext decoderContext ) {
+        if (reader.getCurrentBsonType() == BsonType.BINARY) {
+            return PackedArrays.readFloats(reader);
+        }
+        reader.readStartArray();
+        float[] buffer = PrimitiveArrayBuffers.floats();
+        int size = 0;
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, PrimitiveArrayBuffers.grow(buffer.length));
+            }
+            buffer[size++] = NumberCodecHelper.decodeFloat(reader);
+        }
+        reader.readEndArray();
+
+        float[] result = Arrays.copyOf(buffer, size);
+        PrimitiveArrayBuffers.release(buffer);
+        return result;
+    }
+
+    @Override
+    public Class< float[] > getEncoderClass() {
+        return float[].class;
+    }
+
+    @Override
+    public BsonType getRepresentation() {
+        return representation;
+    }
+
+    @Override
+    public Codec< float[] > withRepresentation( BsonType representation ) {
+        if (representation != BsonType.ARRAY && representation != BsonType.BINARY) {
+            throw new CodecConfigurationException(representation + " is not a supported representation for float[]");
+        }
+        return new FloatArrayCodec(representation);
+    }
+}
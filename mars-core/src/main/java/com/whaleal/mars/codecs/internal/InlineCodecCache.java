@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.internal;
+
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.util.Arrays;
+
+import static com.whaleal.icefrog.core.lang.Precondition.notNull;
+
+/**
+ * 调用点内的 codec 缓存
+ * <p>
+ * Object / Map / 集合中的值按实际类型查找 codec , 同一调用点出现的类型通常只有少数几种 ,
+ * 这里记录最近出现的前 {@link #MAX_ENTRIES} 种类型 , 命中时只需比较引用 ; 超出后直接查找注册表
+ * <p>
+ * 记录在新数组中追加后整体替换 , 并发时最多丢失一条记录
+ */
+public final class InlineCodecCache {
+
+    static final int MAX_ENTRIES = 4;
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private final CodecRegistry registry;
+
+    private volatile Entry[] entries = EMPTY;
+
+    public InlineCodecCache( CodecRegistry registry ) {
+        this.registry = notNull("registry", registry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Codec< Object > get( Class< ? > type ) {
+        Entry[] current = entries;
+        for (Entry entry : current) {
+            if (entry.type == type) {
+                return entry.codec;
+            }
+        }
+
+        Codec< Object > codec = (Codec< Object >) registry.get(type);
+        if (current.length < MAX_ENTRIES) {
+            Entry[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = new Entry(type, codec);
+            entries = next;
+        }
+        return codec;
+    }
+
+    private static final class Entry {
+        private final Class< ? > type;
+        private final Codec< Object > codec;
+
+        private Entry( Class< ? > type, Codec< Object > codec ) {
+            this.type = type;
+            this.codec = codec;
+        }
+    }
+}
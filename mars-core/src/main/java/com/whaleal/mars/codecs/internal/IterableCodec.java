@@ -46,6 +46,7 @@ import static com.whaleal.icefrog.core.lang.Precondition.notNull;
 public class IterableCodec implements Codec<Iterable>, OverridableUuidRepresentationCodec<Iterable> {
 
     private final CodecRegistry registry;
+    private final InlineCodecCache valueCodecs;
     private final BsonTypeCodecMap bsonTypeCodecMap;
     private final Transformer valueTransformer;
     private final UuidRepresentation uuidRepresentation;
@@ -62,6 +63,7 @@ public class IterableCodec implements Codec<Iterable>, OverridableUuidRepresenta
     private IterableCodec(final CodecRegistry registry, final BsonTypeCodecMap bsonTypeCodecMap, final Transformer valueTransformer,
                           final UuidRepresentation uuidRepresentation) {
         this.registry = notNull("registry", registry);
+        this.valueCodecs = new InlineCodecCache(registry);
         this.bsonTypeCodecMap = bsonTypeCodecMap;
         this.valueTransformer = valueTransformer != null ? valueTransformer : new Transformer() {
             @Override
@@ -111,7 +113,7 @@ public class IterableCodec implements Codec<Iterable>, OverridableUuidRepresenta
         if (value == null) {
             writer.writeNull();
         } else {
-            Codec codec = registry.get(value.getClass());
+            Codec codec = valueCodecs.get(value.getClass());
             encoderContext.encodeWithChildContext(codec, writer, value);
         }
     }
@@ -54,6 +54,7 @@ public class MapCodec implements Codec<Map<String, Object>>, OverridableUuidRepr
     private static final BsonTypeClassMap DEFAULT_BSON_TYPE_CLASS_MAP = new BsonTypeClassMap();
     private final BsonTypeCodecMap bsonTypeCodecMap;
     private final CodecRegistry registry;
+    private final InlineCodecCache valueCodecs;
     private final Transformer valueTransformer;
     private final UuidRepresentation uuidRepresentation;
 
@@ -87,6 +88,7 @@ public class MapCodec implements Codec<Map<String, Object>>, OverridableUuidRepr
     private MapCodec(final CodecRegistry registry, final BsonTypeCodecMap bsonTypeCodecMap, final Transformer valueTransformer,
                      final UuidRepresentation uuidRepresentation) {
         this.registry = notNull("registry", registry);
+        this.valueCodecs = new InlineCodecCache(registry);
         this.bsonTypeCodecMap = bsonTypeCodecMap;
         this.valueTransformer = valueTransformer != null ? valueTransformer : new Transformer() {
             @Override
@@ -168,7 +170,7 @@ public class MapCodec implements Codec<Map<String, Object>>, OverridableUuidRepr
         if (value == null) {
             writer.writeNull();
         } else {
-            Codec codec = registry.get(value.getClass());
+            Codec codec = valueCodecs.get(value.getClass());
             encoderContext.encodeWithChildContext(codec, writer, value);
         }
     }
@@ -154,6 +154,14 @@ final class NumberCodecHelper {
         return doubleValue;
     }
 
+    static float decodeFloat(final BsonReader reader) {
+        double doubleValue = decodeDouble(reader);
+        if (doubleValue < -Float.MAX_VALUE || doubleValue > Float.MAX_VALUE) {
+            throw new BsonInvalidOperationException(format("%s can not be converted into a Float.", doubleValue));
+        }
+        return (float) doubleValue;
+    }
+
     private static <T extends Number> BsonInvalidOperationException invalidConversion(final Class<T> clazz, final Number value) {
         return new BsonInvalidOperationException(format("Could not convert `%s` to a %s without losing precision", value, clazz));
     }
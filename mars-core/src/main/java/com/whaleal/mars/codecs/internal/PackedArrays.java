@@ -0,0 +1,250 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.internal;
+
+import org.bson.BsonBinary;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static java.lang.String.format;
+
+/**
+ * 数值数组的紧凑二进制存储
+ * <p>
+ * 配合 {@code @Representation(BsonType.BINARY)} 使用 , 整个数组存为一个 BSON Binary ,
+ * 不再为每个元素写入类型字节和下标字符串 , 元素按小端序依次排列 :
+ * <ul>
+ *     <li>子类型 {@link #PACKED} : 定长小端序 , int / float 4 字节 , long / double 8 字节</li>
+ *     <li>子类型 {@link #PACKED_DELTA} : 仅用于升序的 long[] , 依次为 元素个数 , 首元素 (zigzag) , 相邻差值 , 均为 varint</li>
+ * </ul>
+ * 解码时直接在字节数组上建立 ByteBuffer 视图批量读取 , 不会为每个元素分配对象
+ * <p>
+ * 注意 : 以此形式存储的属性在数据库中是一段二进制 , 无法按元素查询 (如 $elemMatch , "field.0" , $in 数组元素) ,
+ * 也无法与 BSON 数组做相等比较
+ */
+public final class PackedArrays {
+
+    /**
+     * 定长小端序
+     */
+    public static final byte PACKED = (byte) 0x80;
+
+    /**
+     * 升序 long 数组的 差值 + varint 编码
+     */
+    public static final byte PACKED_DELTA = (byte) 0x81;
+
+    private PackedArrays() {
+    }
+
+    /**
+     * 元素类型是否支持紧凑存储
+     */
+    public static boolean isPackable( Class< ? > elementType ) {
+        return elementType == Integer.class || elementType == Long.class
+                || elementType == Float.class || elementType == Double.class
+                || elementType == int.class || elementType == long.class
+                || elementType == float.class || elementType == double.class;
+    }
+
+    public static void write( BsonWriter writer, int[] value ) {
+        ByteBuffer buffer = allocate(value.length, Integer.BYTES);
+        buffer.asIntBuffer().put(value);
+        writer.writeBinaryData(new BsonBinary(PACKED, buffer.array()));
+    }
+
+    public static void write( BsonWriter writer, float[] value ) {
+        ByteBuffer buffer = allocate(value.length, Float.BYTES);
+        buffer.asFloatBuffer().put(value);
+        writer.writeBinaryData(new BsonBinary(PACKED, buffer.array()));
+    }
+
+    public static void write( BsonWriter writer, double[] value ) {
+        ByteBuffer buffer = allocate(value.length, Double.BYTES);
+        buffer.asDoubleBuffer().put(value);
+        writer.writeBinaryData(new BsonBinary(PACKED, buffer.array()));
+    }
+
+    /**
+     * 升序且差值编码更短时使用 {@link #PACKED_DELTA} , 否则使用定长小端序
+     */
+    public static void write( BsonWriter writer, long[] value ) {
+        int deltaSize = deltaSize(value);
+        if (deltaSize >= 0 && deltaSize < value.length * Long.BYTES) {
+            writer.writeBinaryData(new BsonBinary(PACKED_DELTA, writeDelta(value, deltaSize)));
+            return;
+        }
+        ByteBuffer buffer = allocate(value.length, Long.BYTES);
+        buffer.asLongBuffer().put(value);
+        writer.writeBinaryData(new BsonBinary(PACKED, buffer.array()));
+    }
+
+    public static int[] readInts( BsonReader reader ) {
+        ByteBuffer buffer = read(reader, Integer.BYTES);
+        int[] result = new int[buffer.remaining() / Integer.BYTES];
+        buffer.asIntBuffer().get(result);
+        return result;
+    }
+
+    public static float[] readFloats( BsonReader reader ) {
+        ByteBuffer buffer = read(reader, Float.BYTES);
+        float[] result = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(result);
+        return result;
+    }
+
+    public static double[] readDoubles( BsonReader reader ) {
+        ByteBuffer buffer = read(reader, Double.BYTES);
+        double[] result = new double[buffer.remaining() / Double.BYTES];
+        buffer.asDoubleBuffer().get(result);
+        return result;
+    }
+
+    public static long[] readLongs( BsonReader reader ) {
+        BsonBinary binary = reader.readBinaryData();
+        if (binary.getType() == PACKED_DELTA) {
+            return readDelta(binary.getData());
+        }
+        ByteBuffer buffer = wrap(binary, Long.BYTES);
+        long[] result = new long[buffer.remaining() / Long.BYTES];
+        buffer.asLongBuffer().get(result);
+        return result;
+    }
+
+    private static ByteBuffer allocate( int length, int width ) {
+        return ByteBuffer.allocate(length * width).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer read( BsonReader reader, int width ) {
+        return wrap(reader.readBinaryData(), width);
+    }
+
+    private static ByteBuffer wrap( BsonBinary binary, int width ) {
+        byte[] data = binary.getData();
+        if (binary.getType() != PACKED || data.length % width != 0) {
+            throw new BsonInvalidOperationException(format("Invalid packed array, subtype: %s, length: %s, element width: %s",
+                    binary.getType(), data.length, width));
+        }
+        return ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 升序时返回差值编码后的字节数 , 否则返回 -1
+     */
+    private static int deltaSize( long[] value ) {
+        if (value.length == 0) {
+            return -1;
+        }
+        int size = varintSize(value.length) + varintSize(zigzag(value[0]));
+        for (int i = 1; i < value.length; i++) {
+            if (value[i] < value[i - 1]) {
+                return -1;
+            }
+            size += varintSize(value[i] - value[i - 1]);
+        }
+        return size;
+    }
+
+    private static byte[] writeDelta( long[] value, int size ) {
+        byte[] data = new byte[size];
+        int position = writeVarint(data, 0, value.length);
+        position = writeVarint(data, position, zigzag(value[0]));
+        for (int i = 1; i < value.length; i++) {
+            // 升序时差值按无符号数处理 , 跨越符号位也不会溢出
+            position = writeVarint(data, position, value[i] - value[i - 1]);
+        }
+        return data;
+    }
+
+    private static long[] readDelta( byte[] data ) {
+        int[] position = {0};
+        long length = readVarint(data, position);
+        // 每个元素至少占一个字节
+        if (length < 0 || length > data.length) {
+            throw new BsonInvalidOperationException(format("Invalid packed array, length: %s", length));
+        }
+        long[] result = new long[(int) length];
+        if (result.length == 0) {
+            return result;
+        }
+        long previous = unzigzag(readVarint(data, position));
+        result[0] = previous;
+        for (int i = 1; i < result.length; i++) {
+            previous += readVarint(data, position);
+            result[i] = previous;
+        }
+        return result;
+    }
+
+    private static long zigzag( long value ) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag( long value ) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varintSize( long value ) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint( byte[] data, int position, long value ) {
+        while ((value & ~0x7FL) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+        return position;
+    }
+
+    private static long readVarint( byte[] data, int[] position ) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new BsonInvalidOperationException("Invalid packed array, truncated varint");
+            }
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new BsonInvalidOperationException("Invalid packed array, malformed varint");
+    }
+}
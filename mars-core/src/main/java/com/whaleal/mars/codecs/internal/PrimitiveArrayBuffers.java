@@ -0,0 +1,116 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.internal;
+
+/**
+ * 基本类型数组解码时使用的线程内缓冲区
+ * <p>
+ * 解码时元素个数未知 , 先读入缓冲区 , 结束后按实际长度复制一次 ,
+ * 缓冲区不足时翻倍扩容 , 超过 {@link #MAX_RETAINED} 的缓冲区用完即丢弃 , 避免长期占用内存
+ * <p>
+ * 基本类型数组的元素不会再嵌套数组 , 同一线程内不会重入
+ */
+final class PrimitiveArrayBuffers {
+
+    static final int INITIAL_CAPACITY = 64;
+
+    static final int MAX_RETAINED = 1 << 16;
+
+    private static final ThreadLocal< int[] > INTS = ThreadLocal.withInitial(() -> new int[INITIAL_CAPACITY]);
+
+    private static final ThreadLocal< long[] > LONGS = ThreadLocal.withInitial(() -> new long[INITIAL_CAPACITY]);
+
+    private static final ThreadLocal< float[] > FLOATS = ThreadLocal.withInitial(() -> new float[INITIAL_CAPACITY]);
+
+    private static final ThreadLocal< double[] > DOUBLES = ThreadLocal.withInitial(() -> new double[INITIAL_CAPACITY]);
+
+    private static final ThreadLocal< boolean[] > BOOLEANS = ThreadLocal.withInitial(() -> new boolean[INITIAL_CAPACITY]);
+
+    private PrimitiveArrayBuffers() {
+    }
+
+    static int[] ints() {
+        return INTS.get();
+    }
+
+    static long[] longs() {
+        return LONGS.get();
+    }
+
+    static float[] floats() {
+        return FLOATS.get();
+    }
+
+    static double[] doubles() {
+        return DOUBLES.get();
+    }
+
+    static boolean[] booleans() {
+        return BOOLEANS.get();
+    }
+
+    static void release( int[] buffer ) {
+        if (buffer.length <= MAX_RETAINED) {
+            INTS.set(buffer);
+        }
+    }
+
+    static void release( long[] buffer ) {
+        if (buffer.length <= MAX_RETAINED) {
+            LONGS.set(buffer);
+        }
+    }
+
+    static void release( float[] buffer ) {
+        if (buffer.length <= MAX_RETAINED) {
+            FLOATS.set(buffer);
+        }
+    }
+
+    static void release( double[] buffer ) {
+        if (buffer.length <= MAX_RETAINED) {
+            DOUBLES.set(buffer);
+        }
+    }
+
+    static void release( boolean[] buffer ) {
+        if (buffer.length <= MAX_RETAINED) {
+            BOOLEANS.set(buffer);
+        }
+    }
+
+    static int grow( int length ) {
+        int capacity = length << 1;
+        if (capacity < 0) {
+            throw new OutOfMemoryError("Array too large: " + length);
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.internal;
+
+import org.bson.*;
+import org.bson.codecs.BsonArrayCodec;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+/**
+ * RawBsonArray 的 codec
+ * <p>
+ * 解码时若 reader 为 BsonBinaryReader , 数组的字节 (与文档格式相同) 通过 pipe 整体复制 , 不解析元素 ;
+ * 编码时按元素写出 , 元素中的内嵌文档为 RawBsonDocument , 同样通过 pipe 复制
+ */
+public class RawBsonArrayCodec implements Codec<RawBsonArray> {
+
+    private static final BsonArrayCodec ARRAY_CODEC = new BsonArrayCodec();
+
+    @Override
+    public void encode(final BsonWriter writer, final RawBsonArray value, final EncoderContext encoderContext) {
+        ARRAY_CODEC.encode(writer, value, encoderContext);
+    }
+
+    @Override
+    public RawBsonArray decode(final BsonReader reader, final DecoderContext decoderContext) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer(0);
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            if (reader instanceof BsonBinaryReader) {
+                writer.pipe(reader);
+            } else {
+                //  其他 reader 无法直接复制 , 按下标作为字段名写出 , 字节格式与数组相同
+                BsonArray array = ARRAY_CODEC.decode(reader, decoderContext);
+                BsonDocument document = new BsonDocument();
+                for (int i = 0; i < array.size(); i++) {
+                    document.put(Integer.toString(i), array.get(i));
+                }
+                new BsonDocumentCodec().encode(writer, document, EncoderContext.builder().build());
+            }
+            return new RawBsonArray(buffer.getInternalBuffer(), 0, buffer.getPosition());
+        }
+    }
+
+    @Override
+    public Class<RawBsonArray> getEncoderClass() {
+        return RawBsonArray.class;
+    }
+}
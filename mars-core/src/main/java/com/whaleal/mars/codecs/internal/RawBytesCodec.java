@@ -0,0 +1,75 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.internal;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 标记为 {@link com.whaleal.mars.codecs.pojo.annotations.Raw} 的 byte[] 属性
+ * <p>
+ * byte[] 为一个完整 BSON 文档的字节 , 存储为内嵌文档 , 读写均通过 pipe 直接复制字节 ;
+ * 读取到 BINARY 类型时 (例如之前按二进制保存的数据) 直接返回其内容
+ */
+public class RawBytesCodec implements Codec<byte[]> {
+
+    @Override
+    public void encode(final BsonWriter writer, final byte[] value, final EncoderContext encoderContext) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(value))) {
+            writer.pipe(reader);
+        }
+    }
+
+    @Override
+    public byte[] decode(final BsonReader reader, final DecoderContext decoderContext) {
+        if (reader.getCurrentBsonType() == BsonType.BINARY) {
+            return reader.readBinaryData().getData();
+        }
+        BasicOutputBuffer buffer = new BasicOutputBuffer(0);
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            writer.pipe(reader);
+            return buffer.toByteArray();
+        }
+    }
+
+    @Override
+    public Class<byte[]> getEncoderClass() {
+        return byte[].class;
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import com.whaleal.mars.codecs.Conversions;
+import com.whaleal.mars.codecs.RepresentationConfigurable;
+import com.whaleal.mars.codecs.internal.BoxedArrayCodec;
+import com.whaleal.mars.codecs.internal.DateCodec;
+import com.whaleal.mars.codecs.internal.DoubleArrayCodec;
+import com.whaleal.mars.codecs.internal.FloatArrayCodec;
+import com.whaleal.mars.codecs.internal.IntArrayCodec;
+import com.whaleal.mars.codecs.internal.LongArrayCodec;
+import com.whaleal.mars.codecs.internal.ObjectIdCodec;
+import com.whaleal.mars.codecs.internal.RawBsonArrayCodec;
+import com.whaleal.mars.codecs.internal.RawBsonDocumentCodec;
+import com.whaleal.mars.codecs.internal.RawBytesCodec;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.bson.BsonType.*;
+
+/**
+ * 属性的 codec 可以直接读取的 BSON 类型
+ * <p>
+ * 解码前先检查当前值的类型 , 类型不符时不再尝试 codec (抛出异常后回退) ,
+ * 而是按 Object 读取后通过 {@link Conversions} 转换 , 转换函数按 BSON 类型缓存 ,
+ * 结果与原先异常回退的结果相同
+ * <p>
+ * 只对已知的 codec 生成 , 其余 codec 返回 null , 仍使用原有的回退方式
+ */
+final class BsonTypeGuard {
+
+    private final Set< BsonType > accepted;
+
+    private final Class< ? > target;
+
+    private final Codec< ? > valueCodec;
+
+    private final Conversion[] conversions = new Conversion[BsonType.values().length];
+
+    private BsonTypeGuard( Set< BsonType > accepted, Class< ? > target, Codec< ? > valueCodec ) {
+        this.accepted = accepted;
+        this.target = target;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * @param codec      属性的 codec
+     * @param target     属性的类型
+     * @param valueCodec 类型不符时读取值使用的 codec (Object 的 codec)
+     * @return codec 未知时返回 null
+     */
+    static BsonTypeGuard of( Codec< ? > codec, Class< ? > target, Codec< ? > valueCodec ) {
+        Set< BsonType > accepted = acceptedTypes(codec);
+        return accepted == null ? null : new BsonTypeGuard(accepted, target, valueCodec);
+    }
+
+    boolean accepts( BsonType bsonType ) {
+        return accepted.contains(bsonType);
+    }
+
+    /**
+     * 读取当前值并转换为属性的类型
+     */
+    Object convert( BsonReader reader, DecoderContext decoderContext ) {
+        BsonType bsonType = reader.getCurrentBsonType();
+        Object value = valueCodec.decode(reader, decoderContext);
+        if (value == null) {
+            return Conversions.convert(null, target);
+        }
+        Conversion conversion = conversions[bsonType.ordinal()];
+        if (conversion == null || conversion.source != value.getClass()) {
+            conversion = new Conversion(value.getClass(), Conversions.converter(value.getClass(), target));
+            conversions[bsonType.ordinal()] = conversion;
+        }
+        return conversion.function.apply(value);
+    }
+
+    /**
+     * 数值 codec 中可能损失精度的类型 (如 DOUBLE 读为 int) 不在其中 ,
+     * 这些类型原先由 codec 抛出异常后经 Conversions 转换 , 现在直接转换
+     */
+    private static Set< BsonType > acceptedTypes( Codec< ? > codec ) {
+        Class< ? > type = codec.getClass();
+        if (type == com.whaleal.mars.codecs.internal.IntegerCodec.class || type == org.bson.codecs.IntegerCodec.class) {
+            return EnumSet.of(INT32, INT64, DECIMAL128);
+        }
+        if (type == com.whaleal.mars.codecs.internal.LongCodec.class || type == org.bson.codecs.LongCodec.class) {
+            return EnumSet.of(INT64, INT32, DECIMAL128);
+        }
+        if (type == com.whaleal.mars.codecs.internal.DoubleCodec.class || type == org.bson.codecs.DoubleCodec.class
+                || type == com.whaleal.mars.codecs.internal.FloatCodec.class || type == org.bson.codecs.FloatCodec.class) {
+            return EnumSet.of(DOUBLE, INT32, DECIMAL128);
+        }
+        if (type == com.whaleal.mars.codecs.internal.BooleanCodec.class || type == org.bson.codecs.BooleanCodec.class) {
+            return EnumSet.of(BOOLEAN);
+        }
+        if (type == com.whaleal.mars.codecs.internal.StringCodec.class || type == org.bson.codecs.StringCodec.class) {
+            BsonType representation = codec instanceof RepresentationConfigurable
+                    ? ((RepresentationConfigurable< ? >) codec).getRepresentation()
+                    : ((org.bson.codecs.RepresentationConfigurable< ? >) codec).getRepresentation();
+            if (representation == STRING) {
+                return EnumSet.of(STRING, SYMBOL);
+            }
+            return representation == OBJECT_ID ? EnumSet.of(OBJECT_ID) : null;
+        }
+        if (type == ObjectIdCodec.class || type == org.bson.codecs.ObjectIdCodec.class) {
+            return EnumSet.of(OBJECT_ID);
+        }
+        if (type == DateCodec.class || type == org.bson.codecs.DateCodec.class) {
+            return EnumSet.of(DATE_TIME);
+        }
+        if (type == IntArrayCodec.class || type == LongArrayCodec.class
+                || type == FloatArrayCodec.class || type == DoubleArrayCodec.class
+                || type == PackedCollectionCodec.class) {
+            return EnumSet.of(ARRAY, BINARY);
+        }
+        if (type == BoxedArrayCodec.class || type == CollectionCodec.class) {
+            return EnumSet.of(ARRAY);
+        }
+        if (type == MarsCodec.class || type == RawBsonDocumentCodec.class || type == org.bson.codecs.RawBsonDocumentCodec.class) {
+            return EnumSet.of(DOCUMENT);
+        }
+        if (type == RawBsonArrayCodec.class) {
+            return EnumSet.of(ARRAY);
+        }
+        if (type == RawBytesCodec.class) {
+            return EnumSet.of(DOCUMENT, BINARY);
+        }
+        return null;
+    }
+
+    private static final class Conversion {
+
+        private final Class< ? > source;
+
+        private final Function< Object, ? > function;
+
+        private Conversion( Class< ? > source, Function< Object, ? > function ) {
+            this.source = source;
+            this.function = function;
+        }
+    }
+}
@@ -29,6 +29,8 @@
  */
 package com.whaleal.mars.codecs.pojo;
 
+import com.whaleal.mars.codecs.RepresentationConfigurable;
+import com.whaleal.mars.codecs.internal.PackedArrays;
 import org.bson.BsonReader;
 import org.bson.BsonType;
 import org.bson.BsonWriter;
@@ -44,7 +46,7 @@ import java.util.HashSet;
 import static java.lang.String.format;
 
 
-public class CollectionCodec<T> implements Codec<Collection<T>> {
+public class CollectionCodec<T> implements Codec<Collection<T>>, RepresentationConfigurable<Collection<T>> {
     private final Class<Collection<T>> encoderClass;
     private final Codec<T> codec;
 
@@ -91,6 +93,26 @@ public class CollectionCodec<T> implements Codec<Collection<T>> {
         return encoderClass;
     }
 
+    @Override
+    public BsonType getRepresentation() {
+        return BsonType.ARRAY;
+    }
+
+    /**
+     * BINARY : 元素为 Integer Long Float Double 时 , 整个集合存为紧凑的二进制 , 见 {@link PackedArrays}
+     */
+    @Override
+    public Codec<Collection<T>> withRepresentation(BsonType representation) {
+        if (representation == BsonType.ARRAY) {
+            return this;
+        }
+        if (representation == BsonType.BINARY && PackedArrays.isPackable(codec.getEncoderClass())) {
+            return new PackedCollectionCodec<T>(encoderClass, codec);
+        }
+        throw new CodecConfigurationException(format("%s is not a supported representation for %s<%s>",
+                representation, encoderClass.getName(), codec.getEncoderClass().getName()));
+    }
+
     protected Collection<T> getInstance() {
         if (encoderClass.isInterface()) {
             if (encoderClass.isAssignableFrom(ArrayList.class)) {
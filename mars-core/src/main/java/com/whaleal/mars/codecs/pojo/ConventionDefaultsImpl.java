@@ -32,6 +32,7 @@ package com.whaleal.mars.codecs.pojo;
 
 import com.whaleal.mars.codecs.BsonTypeMap;
 import com.whaleal.mars.codecs.Convention;
+import com.whaleal.mars.codecs.internal.RawBytesCodec;
 import com.whaleal.mars.codecs.pojo.annotations.*;
 import org.bson.BsonType;
 import org.bson.codecs.configuration.CodecConfigurationException;
@@ -214,6 +215,7 @@ final class ConventionDefaultsImpl implements Convention {
      * @param entityModelBuilder
      * @param propertyModelBuilder
      */
+    @SuppressWarnings("unchecked")
     private void processPropertyAnnotations(final EntityModelBuilder<?> entityModelBuilder,
                                             final PropertyModelBuilder<?> propertyModelBuilder) {
         String propertyName = propertyModelBuilder.getName();
@@ -278,6 +280,12 @@ final class ConventionDefaultsImpl implements Convention {
             } else if(annotation instanceof Representation){
                 BsonType bsonRep = ((Representation) annotation).value();
                 propertyModelBuilder.bsonRepresentation(bsonRep);
+            } else if (annotation instanceof Raw) {
+                // 原样存取  不做解码
+                if (propertyModelBuilder.getTypeData().getType() != byte[].class) {
+                    throw new CodecConfigurationException(format("@Raw is only supported on byte[] properties: %s", propertyName));
+                }
+                ((PropertyModelBuilder<byte[]>) propertyModelBuilder).codec(new RawBytesCodec());
             } else {
                 //todo
             }
@@ -33,6 +33,9 @@ import com.whaleal.mars.codecs.Convention;
 import org.bson.codecs.configuration.CodecConfigurationException;
 import org.bson.codecs.pojo.PropertyAccessor;
 
+import java.lang.reflect.Field;
+import java.util.function.BiConsumer;
+
 import static java.lang.String.format;
 import static java.lang.reflect.Modifier.isPrivate;
 
@@ -64,11 +67,15 @@ final class ConventionSetPrivateFieldImpl implements Convention {
 
     private static final class PrivatePropertyAccessor<T> implements PropertyAccessor<T> {
         private final PropertyAccessorImpl<T> wrapped;
+        // setAccessible 之后通过 MethodHandle 写入 , 避免每次 Field#set 的访问检查
+        private final BiConsumer<Object, Object> setter;
 
         private PrivatePropertyAccessor(final PropertyAccessorImpl<T> wrapped) {
             this.wrapped = wrapped;
             try {
-                wrapped.getPropertyMetadata().getField().setAccessible(true);
+                Field field = wrapped.getPropertyMetadata().getField();
+                field.setAccessible(true);
+                this.setter = PropertyAccessors.fieldSetter(field);
             } catch (Exception e) {
                 throw new CodecConfigurationException(format("Unable to make private field accessible '%s' in %s",
                         wrapped.getPropertyMetadata().getName(), wrapped.getPropertyMetadata().getDeclaringClassName()), e);
@@ -83,7 +90,7 @@ final class ConventionSetPrivateFieldImpl implements Convention {
         @Override
         public <S> void set(final S instance, final T value) {
             try {
-                wrapped.getPropertyMetadata().getField().set(instance, value);
+                setter.accept(instance, value);
             } catch (Exception e) {
                 throw new CodecConfigurationException(format("Unable to set value for property '%s' in %s",
                         wrapped.getPropertyMetadata().getName(), wrapped.getPropertyMetadata().getDeclaringClassName()), e);
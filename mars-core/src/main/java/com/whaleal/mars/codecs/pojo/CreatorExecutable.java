@@ -38,7 +38,9 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
@@ -51,6 +53,8 @@ final class CreatorExecutable<T> {
     private final Integer idPropertyIndex;
     private final List<Class<?>> parameterTypes = new ArrayList<Class<?>>();
     private final List<Type> parameterGenericTypes = new ArrayList<Type>();
+    //  属性名称 到 参数位置
+    private final Map<String, Integer> parameterIndexes = new HashMap<String, Integer>();
 
     CreatorExecutable(final Class<T> clazz, final Constructor<T> constructor) {
         this(clazz, constructor, null);
@@ -93,6 +97,14 @@ final class CreatorExecutable<T> {
         }
 
         this.idPropertyIndex = idPropertyIndex;
+
+        for (int i = 0; i < properties.size(); i++) {
+            if (idPropertyIndex != null && idPropertyIndex == i) {
+                parameterIndexes.put(EntityModelBuilder.ID_PROPERTY_NAME, idPropertyIndex);
+            } else {
+                parameterIndexes.put(properties.get(i).value(), i);
+            }
+        }
     }
 
     Class<T> getType() {
@@ -107,6 +119,29 @@ final class CreatorExecutable<T> {
         return idPropertyIndex;
     }
 
+    /**
+     * @return 属性对应的参数位置 , 不是参数时返回 -1
+     */
+    int parameterIndex(final PropertyModel<?> propertyModel) {
+        Integer index = parameterIndexes.get(propertyModel.getWriteName());
+        if (index == null) {
+            // Support legacy MongoProperty settings where the property name was used instead of the write name.
+            index = parameterIndexes.get(propertyModel.getName());
+        }
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return 参数位置对应的属性名称 , 用于错误信息
+     */
+    String parameterName(final int index) {
+        if (idPropertyIndex != null && idPropertyIndex == index) {
+            return EntityModelBuilder.ID_PROPERTY_NAME;
+        }
+        Property property = properties.get(index);
+        return property == null ? EntityModelBuilder.ID_PROPERTY_NAME : property.value();
+    }
+
     List<Class<?>> getParameterTypes() {
         return parameterTypes;
     }
@@ -29,23 +29,27 @@
  */
 package com.whaleal.mars.codecs.pojo;
 
+import org.bson.BsonReader;
+import org.bson.BsonType;
 import org.bson.codecs.configuration.CodecConfigurationException;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import static java.lang.String.format;
 
 public final class DiscriminatorLookup {
     private final Map<String, Class<?>> discriminatorClassMap = new ConcurrentHashMap<String, Class<?>>();
     private final Set<String> packages;
+    //  已注册实体中启用的 discriminator 字段名称
+    private final Set<String> discriminatorKeys = new CopyOnWriteArraySet<>();
 
     public DiscriminatorLookup(final Map<Class<?>, EntityModel<?>> classModels, final Set<String> packages) {
         for (EntityModel<?> entityModel : classModels.values()) {
-            if (entityModel.getDiscriminator() != null) {
-                discriminatorClassMap.put(entityModel.getDiscriminator(), entityModel.getType());
-            }
+            addClassModel(entityModel);
         }
         this.packages = packages;
     }
@@ -72,13 +76,53 @@ public final class DiscriminatorLookup {
         if (entityModel.getDiscriminator() != null) {
             discriminatorClassMap.put(entityModel.getDiscriminator(), entityModel.getType());
         }
+        if (entityModel.useDiscriminator() && entityModel.getDiscriminatorKey() != null) {
+            discriminatorKeys.add(entityModel.getDiscriminatorKey());
+        }
     }
 
 
     public void addModel(EntityModel entityModel) {
-        if (entityModel.getDiscriminator() != null) {
-            discriminatorClassMap.put(entityModel.getDiscriminator(), entityModel.getType());
+        addClassModel(entityModel);
+    }
+
+    /**
+     * 已注册实体中启用的 discriminator 字段名称 , 为空时说明没有实体使用 discriminator
+     */
+    public Set<String> getDiscriminatorKeys() {
+        return Collections.unmodifiableSet(discriminatorKeys);
+    }
+
+    /**
+     * 从当前文档中读取 discriminator 的值
+     * <p>
+     * 按顺序扫描字段 , 找到第一个 discriminator 后立即返回 ;
+     * 实体编码时 discriminator 紧跟在 _id 之后 , 通常只需读取文档开头的两个字段
+     * <p>
+     * 会移动 reader 的位置 , 调用方需要在读取前 mark 并在之后 reset
+     *
+     * @param reader 位于文档开始处的 reader
+     * @param keys   discriminator 字段名称
+     * @return 字符串类型的 discriminator , 不存在时返回 null
+     */
+    public static String readDiscriminator(final BsonReader reader, final Set<String> keys) {
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String discriminator = readIfDiscriminator(reader, keys);
+            if (discriminator != null) {
+                return discriminator;
+            }
+        }
+        return null;
+    }
+
+    private static String readIfDiscriminator(final BsonReader reader, final Set<String> keys) {
+        String name = reader.readName();
+        if (keys.contains(name) && reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
         }
+        reader.skipValue();
+        return null;
     }
 
     private Class<?> getClassForName(final String discriminator) {
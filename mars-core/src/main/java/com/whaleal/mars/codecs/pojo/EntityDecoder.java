@@ -40,10 +40,15 @@ import org.bson.codecs.DecoderContext;
 import org.bson.codecs.configuration.CodecConfigurationException;
 import org.bson.codecs.configuration.CodecRegistry;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EntityDecoder implements org.bson.codecs.Decoder<Object> {
     private final MarsCodec<?> marsCodec;
     private final EntityModel classModel;
+    //  discriminator 值对应的 codec , 避免每个文档都经过 lookup 及 registry
+    private final Map<String, Codec<?>> codecsByDiscriminator = new ConcurrentHashMap<>();
 
     protected EntityDecoder(MarsCodec<?> marsCodec) {
         this.marsCodec = marsCodec;
@@ -73,22 +78,37 @@ public class EntityDecoder implements org.bson.codecs.Decoder<Object> {
     protected void decodeModel( BsonReader reader, DecoderContext decoderContext,
                                 MarsInstanceCreator instanceCreator, PropertyModel model ) {
 
-        if (model != null) {
-            final BsonReaderMark mark = reader.getMark();
-            try {
-                if (reader.getCurrentBsonType() == BsonType.NULL) {
-                    reader.readNull();
-                } else {
-                    Object value = decoderContext.decodeWithChildContext(model.getCachedCodec(), reader);
-                    instanceCreator.set(value, model);
-                }
-            } catch (BsonInvalidOperationException e) {
-                mark.reset();
-                final Object value = marsCodec.getMapper().getCodecRegistry().get(Object.class).decode(reader, decoderContext);
-                instanceCreator.set(Conversions.convert(value, model.getTypeData().getType()), model);
-            }
-        } else {
+        if (model == null) {
             reader.skipValue();
+            return;
+        }
+        BsonTypeGuard guard = model.getTypeGuard();
+        if (guard != null) {
+            //  先检查类型 , 类型不符时直接转换 , 不需要标记位置 , 也不会抛出异常再回退
+            BsonType bsonType = reader.getCurrentBsonType();
+            if (bsonType == BsonType.NULL) {
+                reader.readNull();
+            } else if (guard.accepts(bsonType)) {
+                instanceCreator.set(decoderContext.decodeWithChildContext(model.getCachedCodec(), reader), model);
+            } else {
+                instanceCreator.set(guard.convert(reader, decoderContext), model);
+            }
+            return;
+        }
+
+        //  未知的 codec 仍然先尝试解码 , 失败后回退到标记位置再转换
+        final BsonReaderMark mark = reader.getMark();
+        try {
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+            } else {
+                Object value = decoderContext.decodeWithChildContext(model.getCachedCodec(), reader);
+                instanceCreator.set(value, model);
+            }
+        } catch (BsonInvalidOperationException e) {
+            mark.reset();
+            final Object value = marsCodec.getMapper().getCodecRegistry().get(Object.class).decode(reader, decoderContext);
+            instanceCreator.set(Conversions.convert(value, model.getTypeData().getType()), model);
         }
     }
 
@@ -96,12 +116,22 @@ public class EntityDecoder implements org.bson.codecs.Decoder<Object> {
                                     MarsInstanceCreator instanceCreator) {
         reader.readStartDocument();
         EntityModel classModel = marsCodec.getEntityModel();
+        PropertyDispatcher dispatcher = classModel.getPropertyDispatcher();
+        //  预计的下一个属性位置 , 文档按写入顺序读回时每个字段只需比较一次
+        int expected = 0;
         while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
             String name = reader.readName();
             if (classModel.useDiscriminator() && classModel.getDiscriminatorKey().equals(name)) {
                 reader.readString();
-            } else
-                decodeModel(reader, decoderContext, instanceCreator, classModel.getPropertyModelFromReadName(name));
+                continue;
+            }
+            int slot = dispatcher.slot(name, expected);
+            if (slot < 0) {
+                reader.skipValue();
+            } else {
+                expected = slot + 1;
+                decodeModel(reader, decoderContext, instanceCreator, dispatcher.model(slot));
+            }
         }
 
         reader.readEndDocument();
@@ -110,26 +140,33 @@ public class EntityDecoder implements org.bson.codecs.Decoder<Object> {
     protected Codec<?> getCodecFromDocument(BsonReader reader, boolean useDiscriminator, String discriminatorKey,
                                             CodecRegistry registry, DiscriminatorLookup discriminatorLookup,
                                             Codec<?> defaultCodec) {
-        Codec<?> codec = null;
-        if (useDiscriminator) {
-            BsonReaderMark mark = reader.getMark();
+        if (!useDiscriminator) {
+            return defaultCodec;
+        }
+        String discriminator;
+        BsonReaderMark mark = reader.getMark();
+        try {
+            discriminator = DiscriminatorLookup.readDiscriminator(reader, Collections.singleton(discriminatorKey));
+        } catch (Exception e) {
+            throw new CodecConfigurationException(String.format("Failed to decode '%s'. Decoding errored with: %s",
+                    marsCodec.getEntityModel().getName(), e.getMessage()), e);
+        } finally {
+            mark.reset();
+        }
+        if (discriminator == null || discriminator.equals(classModel.getDiscriminator())) {
+            return defaultCodec;
+        }
+        Codec<?> codec = codecsByDiscriminator.get(discriminator);
+        if (codec == null) {
             try {
-                reader.readStartDocument();
-                while (codec == null && reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
-                    if (discriminatorKey.equals(reader.readName())) {
-                        codec = registry.get(discriminatorLookup.lookup(reader.readString()));
-                    } else {
-                        reader.skipValue();
-                    }
-                }
+                codec = registry.get(discriminatorLookup.lookup(discriminator));
             } catch (Exception e) {
                 throw new CodecConfigurationException(String.format("Failed to decode '%s'. Decoding errored with: %s",
                         marsCodec.getEntityModel().getName(), e.getMessage()), e);
-            } finally {
-                mark.reset();
             }
+            codecsByDiscriminator.put(discriminator, codec);
         }
-        return codec != null ? codec : defaultCodec;
+        return codec;
     }
 
     protected MarsCodec<?> getMarsCodec() {
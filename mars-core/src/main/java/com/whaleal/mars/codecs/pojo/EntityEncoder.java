@@ -30,7 +30,13 @@
 package com.whaleal.mars.codecs.pojo;
 
 
+import com.whaleal.mars.codecs.RepresentationConfigurable;
+import com.whaleal.mars.codecs.internal.BooleanCodec;
+import com.whaleal.mars.codecs.internal.DoubleCodec;
+import com.whaleal.mars.codecs.internal.IntegerCodec;
+import com.whaleal.mars.codecs.internal.LongCodec;
 import com.whaleal.mars.core.aggregation.codecs.ExpressionHelper;
+import org.bson.BsonType;
 import org.bson.BsonWriter;
 import org.bson.codecs.Codec;
 import org.bson.codecs.EncoderContext;
@@ -100,7 +106,7 @@ class EntityEncoder implements org.bson.codecs.Encoder<Object> {
                 || Map.class.isAssignableFrom(t1) && Map.class.isAssignableFrom(t2);
     }
 
-    private void encodeIdProperty(BsonWriter writer, Object instance, EncoderContext encoderContext,
+    protected void encodeIdProperty(BsonWriter writer, Object instance, EncoderContext encoderContext,
                                   PropertyModel idModel) {
         if (idModel != null) {
             IdGenerator generator = getIdGenerator();
@@ -118,10 +124,63 @@ class EntityEncoder implements org.bson.codecs.Encoder<Object> {
     }
 
     private void encodeProperty(BsonWriter writer, Object instance, EncoderContext encoderContext, PropertyModel model) {
+        if (model.getPropertyAccessor() instanceof PropertyAccessorImpl
+                && encodePrimitive(writer, instance, model, (PropertyAccessorImpl<?>) model.getPropertyAccessor())) {
+            return;
+        }
         Object value = model.getPropertyAccessor().get(instance);
         encodeValue(writer, encoderContext, model, value);
     }
 
+    /**
+     * 基本类型的属性使用默认编码方式时 直接写入 , 不经过装箱及 codec
+     * 其他情况 (例如 @Representation 改变了存储类型) 返回 false
+     */
+    private boolean encodePrimitive(BsonWriter writer, Object instance, PropertyModel model, PropertyAccessorImpl<?> accessor) {
+        if (!(model.getPropertySerialization() instanceof PropertyModelSerializationImpl)) {
+            return false;
+        }
+        Codec<?> codec = model.getCachedCodec();
+        if (codec == null) {
+            return false;
+        }
+        if (accessor.hasIntGetter() && isDefaultCodec(codec, IntegerCodec.class, org.bson.codecs.IntegerCodec.class, BsonType.INT32)) {
+            writer.writeName(model.getWriteName());
+            writer.writeInt32(accessor.getInt(instance));
+            return true;
+        }
+        if (accessor.hasLongGetter() && isDefaultCodec(codec, LongCodec.class, org.bson.codecs.LongCodec.class, BsonType.INT64)) {
+            writer.writeName(model.getWriteName());
+            writer.writeInt64(accessor.getLong(instance));
+            return true;
+        }
+        if (accessor.hasDoubleGetter() && isDefaultCodec(codec, DoubleCodec.class, org.bson.codecs.DoubleCodec.class, BsonType.DOUBLE)) {
+            writer.writeName(model.getWriteName());
+            writer.writeDouble(accessor.getDouble(instance));
+            return true;
+        }
+        if (accessor.hasBooleanGetter() && (codec.getClass() == BooleanCodec.class || codec.getClass() == org.bson.codecs.BooleanCodec.class)) {
+            writer.writeName(model.getWriteName());
+            writer.writeBoolean(accessor.getBoolean(instance));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 是否为 mars 或驱动中 未修改存储类型的默认 codec
+     */
+    static boolean isDefaultCodec(Codec<?> codec, Class<?> marsCodec, Class<?> driverCodec, BsonType representation) {
+        if (codec.getClass() == marsCodec) {
+            return ((RepresentationConfigurable<?>) codec).getRepresentation() == representation;
+        }
+        if (codec.getClass() == driverCodec) {
+            return !(codec instanceof org.bson.codecs.RepresentationConfigurable)
+                    || ((org.bson.codecs.RepresentationConfigurable<?>) codec).getRepresentation() == representation;
+        }
+        return false;
+    }
+
     private void encodeValue( BsonWriter writer, EncoderContext encoderContext, PropertyModel model,
                               Object propertyValue ) {
         if (model.shouldSerialize(propertyValue)) {
@@ -53,6 +53,8 @@ public final class EntityModel<T> {
     private final IdPropertyModelHolder<?> idPropertyModelHolder;
     //  todo 后期是否修改为 LinkMap
     private final List<PropertyModel<?>> propertyModels;
+    //  解码时按字段名查找属性
+    private final PropertyDispatcher propertyDispatcher;
     private final Map<String, TypeParameterMap> propertyNameToTypeParameterMap;
 
     private PropertyModel<?> IdProperty;
@@ -153,6 +155,8 @@ public final class EntityModel<T> {
         this.annotations = entityModelBuilder.getAnnotations();
         //基于对象生成的要放在后面
         this.idPropertyModelHolder = IdPropertyModelHolder.create(entityModelBuilder.getType(), IdProperty, entityModelBuilder.getIdGenerator());
+        this.propertyDispatcher = new PropertyDispatcher(getIdProperty(), this.propertyModels);
+        resolveCreatorIndexes();
 
 
     }
@@ -210,6 +214,15 @@ public final class EntityModel<T> {
         this.discriminator = discriminator;
         this.idPropertyModelHolder = idPropertyModelHolder;
         this.propertyModels = unmodifiableList(new ArrayList<PropertyModel<?>>(propertyModels));
+        this.propertyDispatcher = new PropertyDispatcher(getIdProperty(), this.propertyModels);
+        resolveCreatorIndexes();
+    }
+
+
+    private void resolveCreatorIndexes() {
+        if (instanceCreatorFactory instanceof InstanceCreatorFactoryImpl) {
+            ((InstanceCreatorFactoryImpl<T>) instanceCreatorFactory).resolveParameterIndexes(propertyModels);
+        }
     }
 
 
@@ -263,12 +276,11 @@ public final class EntityModel<T> {
     }
 
     public PropertyModel<?> getPropertyModelFromReadName(final String propertyName) {
-        for (PropertyModel<?> propertyModel : propertyModels) {
-            if (propertyModel.getReadName().equals(propertyName)) {
-                return propertyModel;
-            }
-        }
-        return null;
+        return propertyDispatcher.find(propertyName);
+    }
+
+    PropertyDispatcher getPropertyDispatcher() {
+        return propertyDispatcher;
     }
 
 
@@ -74,6 +74,17 @@ public class EntityModelBuilder<T> {
         initColelctionName();
     }
 
+    /**
+     * 使用编译期生成的描述构建 , 不再扫描类的字段与方法
+     *
+     * @param type       实体类型
+     * @param descriptor 生成的描述
+     */
+    EntityModelBuilder(final Class<T> type, final EntityModelDescriptor<T> descriptor) {
+        MarsBuilderHelper.configureClassModelBuilder(this, notNull("type", type), notNull("descriptor", descriptor));
+        initColelctionName();
+    }
+
 
     public String getCollectionName() {
         return collectionName;
@@ -0,0 +1,74 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import java.util.List;
+
+/**
+ * 编译期生成的实体描述
+ * <p>
+ * 由 mars-processor 中的注解处理器为每个 {@link com.whaleal.mars.codecs.pojo.annotations.Entity} 生成 ,
+ * 类名为 实体类名(内部类以 '_' 连接) + {@link #SUFFIX} , 与实体位于同一个包中
+ * <p>
+ * 描述中已经给出了属性列表 , 每个属性的类型 及其 getter / setter / field 的位置 ,
+ * 构建 {@link EntityModel} 时不再需要遍历类的全部字段与方法
+ * <p>
+ * 读写名称 , Id , Discriminator , 索引等仍由 Convention 根据注解得出 , 与反射构建的结果保持一致
+ *
+ * @param <T> 实体类型
+ * @see EntityModelDescriptors
+ */
+public interface EntityModelDescriptor< T > {
+
+    /**
+     * 生成类的类名后缀
+     */
+    String SUFFIX = "_MarsModel";
+
+    /**
+     * @return 实体类型
+     */
+    Class< T > getType();
+
+    /**
+     * 参与映射的类 , 从实体类本身开始依次到父类 , 不包括 Object
+     * 类级别的注解(如 Entity Discriminator Indexes 等)从这些类上读取
+     *
+     * @return 继承链
+     */
+    List< Class< ? > > getHierarchy();
+
+    /**
+     * 属性按名称排序 , 与反射构建时的顺序一致
+     *
+     * @return 属性描述
+     */
+    List< PropertyDescriptor > getProperties();
+}
@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import com.whaleal.icefrog.log.Log;
+import com.whaleal.icefrog.log.LogFactory;
+import org.bson.codecs.configuration.CodecConfigurationException;
+
+/**
+ * 加载编译期生成的 {@link EntityModelDescriptor}
+ * <p>
+ * 找不到生成类 , 或者生成类与当前的实体类不一致时 , 退回到反射构建
+ */
+public final class EntityModelDescriptors {
+
+    private static final Log log = LogFactory.get(EntityModelDescriptors.class);
+
+    private EntityModelDescriptors() {
+    }
+
+    /**
+     * 实体对应的生成类名称
+     * 如 com.foo.Outer$Inner 对应 com.foo.Outer_Inner_MarsModel
+     *
+     * @param type 实体类型
+     * @return 生成类的全限定名
+     */
+    public static String descriptorName( Class< ? > type ) {
+        String name = type.getName();
+        int index = name.lastIndexOf('.');
+        return name.substring(0, index + 1) + name.substring(index + 1).replace('$', '_') + EntityModelDescriptor.SUFFIX;
+    }
+
+    /**
+     * 查找实体的生成描述
+     *
+     * @param type 实体类型
+     * @return 描述 , 没有时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public static < T > EntityModelDescriptor< T > find( Class< T > type ) {
+        ClassLoader classLoader = type.getClassLoader();
+        if (classLoader == null || type.isInterface() || type.isEnum() || type.isArray()) {
+            return null;
+        }
+        try {
+            Class< ? > descriptorClass = Class.forName(descriptorName(type), true, classLoader);
+            if (!EntityModelDescriptor.class.isAssignableFrom(descriptorClass)) {
+                return null;
+            }
+            EntityModelDescriptor< T > descriptor = (EntityModelDescriptor< T >) descriptorClass.getDeclaredConstructor().newInstance();
+            return descriptor.getType() == type ? descriptor : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            log.warn("Can not load generated model of {}, fall back to reflection: {}", type.getName(), e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 优先使用生成的描述创建 EntityModelBuilder
+     *
+     * @param type 实体类型
+     * @return EntityModelBuilder
+     */
+    public static < T > EntityModelBuilder< T > builder( Class< T > type ) {
+        EntityModelDescriptor< T > descriptor = find(type);
+        if (descriptor != null) {
+            try {
+                return new EntityModelBuilder< T >(type, descriptor);
+            } catch (CodecConfigurationException e) {
+                // 生成类与实体类不一致 , 通常是实体类修改后生成类没有重新编译
+                log.warn("Generated model of {} is out of date, fall back to reflection: {}", type.getName(), e.getMessage());
+            }
+        }
+        return new EntityModelBuilder< T >(type);
+    }
+}
@@ -29,6 +29,8 @@
  */
 package com.whaleal.mars.codecs.pojo;
 
+import java.util.List;
+
 
 final class InstanceCreatorFactoryImpl<T> implements InstanceCreatorFactory<T> {
     private final CreatorExecutable<T> creatorExecutable;
@@ -37,6 +39,18 @@ final class InstanceCreatorFactoryImpl<T> implements InstanceCreatorFactory<T> {
         this.creatorExecutable = creatorExecutable;
     }
 
+    /**
+     * 构建 EntityModel 时预先确定每个属性对应的参数位置 , 解码时不再按名称查找
+     */
+    void resolveParameterIndexes(final List<PropertyModel<?>> propertyModels) {
+        if (creatorExecutable.getProperties().isEmpty()) {
+            return;
+        }
+        for (PropertyModel<?> propertyModel : propertyModels) {
+            propertyModel.creatorIndex(creatorExecutable.parameterIndex(propertyModel));
+        }
+    }
+
     @Override
     public MarsInstanceCreator<T> create() {
         return new InstanceCreatorImpl<T>(creatorExecutable);
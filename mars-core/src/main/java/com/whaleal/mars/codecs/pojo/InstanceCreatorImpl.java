@@ -31,39 +31,46 @@ package com.whaleal.mars.codecs.pojo;
 
 import org.bson.codecs.configuration.CodecConfigurationException;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static java.lang.String.format;
 
+/**
+ * 通过构造函数 / 工厂方法创建实例
+ * <p>
+ * 每个属性对应的参数位置在构建 EntityModel 时已经确定 ({@link PropertyModel#getCreatorIndex()}) ,
+ * 解码时直接写入参数数组 , 并用位图记录已填入的参数 ; 所有参数填入后立即创建实例 , 之后的属性直接写入实例
+ * <p>
+ * 创建实例前读到的非参数属性暂存 , 创建后再写入 ; 全部属性都是参数的不可变对象只需分配一个参数数组
+ */
 final class InstanceCreatorImpl<T> implements MarsInstanceCreator<T> {
     private final CreatorExecutable<T> creatorExecutable;
-    private final Map<PropertyModel<?>, Object> cachedValues;
-    private final Map<String, Integer> properties;
     private final Object[] params;
+    //  已填入的参数 , 前 64 个使用 filled , 其余使用 moreFilled
+    private long filled;
+    private final long[] moreFilled;
+    private int remaining;
+
+    //  创建实例前读到的非参数属性 , 需要时才分配
+    private PropertyModel<?>[] pendingModels;
+    private Object[] pendingValues;
+    private int pendingCount;
 
     private T newInstance;
 
     InstanceCreatorImpl(final CreatorExecutable<T> creatorExecutable) {
         this.creatorExecutable = creatorExecutable;
-        if (creatorExecutable.getProperties().isEmpty()) {
-            this.cachedValues = null;
-            this.properties = null;
+        int size = creatorExecutable.getProperties().size();
+        if (size == 0) {
             this.params = null;
+            this.moreFilled = null;
             this.newInstance = creatorExecutable.getInstance();
         } else {
-            this.cachedValues = new HashMap<PropertyModel<?>, Object>();
-            this.properties = new HashMap<String, Integer>();
-
-            for (int i = 0; i < creatorExecutable.getProperties().size(); i++) {
-                if (creatorExecutable.getIdPropertyIndex() != null && creatorExecutable.getIdPropertyIndex() == i) {
-                    this.properties.put(EntityModelBuilder.ID_PROPERTY_NAME, creatorExecutable.getIdPropertyIndex());
-                } else {
-                    this.properties.put(creatorExecutable.getProperties().get(i).value(), i);
-                }
-            }
-
-            this.params = new Object[properties.size()];
+            this.params = new Object[size];
+            this.moreFilled = size > Long.SIZE ? new long[(size - 1) / Long.SIZE] : null;
+            this.remaining = size;
         }
     }
 
@@ -71,27 +78,18 @@ final class InstanceCreatorImpl<T> implements MarsInstanceCreator<T> {
     public <S> void set(final S value, final PropertyModel<S> propertyModel) {
         if (newInstance != null) {
             propertyModel.getPropertyAccessor().set(newInstance, value);
-        } else {
-            if (!properties.isEmpty()) {
-                String propertyName = propertyModel.getWriteName();
-
-                if (!properties.containsKey(propertyName)) {
-                    // Support legacy MongoProperty settings where the property name was used instead of the write name.
-                    propertyName = propertyModel.getName();
-                }
-
-                Integer index = properties.get(propertyName);
-                if (index != null) {
-                    params[index] = value;
-                }
-                properties.remove(propertyName);
-            }
+            return;
+        }
 
-            if (properties.isEmpty()) {
-                constructInstanceAndProcessCachedValues();
-            } else {
-                cachedValues.put(propertyModel, value);
-            }
+        int index = propertyModel.getCreatorIndex();
+        if (index < 0) {
+            addPending(propertyModel, value);
+            return;
+        }
+
+        params[index] = value;
+        if (markFilled(index) && --remaining == 0) {
+            constructInstanceAndProcessPendingValues();
         }
     }
 
@@ -99,33 +97,83 @@ final class InstanceCreatorImpl<T> implements MarsInstanceCreator<T> {
     public T getInstance() {
         if (newInstance == null) {
             try {
-                for (Map.Entry<String, Integer> entry : properties.entrySet()) {
-                    params[entry.getValue()] = null;
-                }
-                constructInstanceAndProcessCachedValues();
+                constructInstanceAndProcessPendingValues();
             } catch (CodecConfigurationException e) {
                 throw new CodecConfigurationException(format("Could not construct new instance of: %s. "
                                 + "Missing the following properties: %s",
-                        creatorExecutable.getType().getSimpleName(), properties.keySet()), e);
+                        creatorExecutable.getType().getSimpleName(), missingProperties()), e);
             }
         }
         return newInstance;
     }
 
-    private void constructInstanceAndProcessCachedValues() {
+    /**
+     * @return 该参数是否为第一次填入
+     */
+    private boolean markFilled(final int index) {
+        if (index < Long.SIZE) {
+            long bit = 1L << index;
+            if ((filled & bit) != 0) {
+                return false;
+            }
+            filled |= bit;
+            return true;
+        }
+        int word = index / Long.SIZE - 1;
+        long bit = 1L << (index % Long.SIZE);
+        if ((moreFilled[word] & bit) != 0) {
+            return false;
+        }
+        moreFilled[word] |= bit;
+        return true;
+    }
+
+    private boolean isFilled(final int index) {
+        if (index < Long.SIZE) {
+            return (filled & (1L << index)) != 0;
+        }
+        return (moreFilled[index / Long.SIZE - 1] & (1L << (index % Long.SIZE))) != 0;
+    }
+
+    private List<String> missingProperties() {
+        List<String> missing = new ArrayList<String>();
+        for (int i = 0; i < params.length; i++) {
+            if (!isFilled(i)) {
+                missing.add(creatorExecutable.parameterName(i));
+            }
+        }
+        return missing;
+    }
+
+    private void addPending(final PropertyModel<?> propertyModel, final Object value) {
+        if (pendingModels == null) {
+            pendingModels = new PropertyModel<?>[4];
+            pendingValues = new Object[4];
+        } else if (pendingCount == pendingModels.length) {
+            pendingModels = Arrays.copyOf(pendingModels, pendingCount * 2);
+            pendingValues = Arrays.copyOf(pendingValues, pendingCount * 2);
+        }
+        pendingModels[pendingCount] = propertyModel;
+        pendingValues[pendingCount++] = value;
+    }
+
+    private void constructInstanceAndProcessPendingValues() {
         try {
             newInstance = creatorExecutable.getInstance(params);
         } catch (Exception e) {
             throw new CodecConfigurationException(e.getMessage(), e);
         }
 
-        for (Map.Entry<PropertyModel<?>, Object> entry : cachedValues.entrySet()) {
-            setPropertyValue(entry.getKey(), entry.getValue());
+        for (int i = 0; i < pendingCount; i++) {
+            setPropertyValue(pendingModels[i], pendingValues[i]);
         }
+        pendingModels = null;
+        pendingValues = null;
+        pendingCount = 0;
     }
 
     @SuppressWarnings("unchecked")
     private <S> void setPropertyValue(final PropertyModel<S> propertyModel, final Object value) {
-        set((S) value, propertyModel);
+        propertyModel.getPropertyAccessor().set(newInstance, (S) value);
     }
 }
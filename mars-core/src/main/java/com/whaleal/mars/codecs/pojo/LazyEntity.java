@@ -0,0 +1,175 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+
+import java.util.Arrays;
+
+import static java.lang.String.format;
+
+/**
+ * 基于 RawBsonDocument 的实体视图
+ * <p>
+ * 查询结果只保留服务端返回的原始字节 , 属性在第一次访问时通过 {@link PropertyModel} 的 read name 找到对应字段 ,
+ * 使用属性的 codec 解码后缓存 ; 只读取少数几个属性时 , 其余属性 (例如内嵌文档) 不会被解码
+ * <p>
+ * 需要完整实体时调用 {@link #materialize()} , 结果同样会被缓存
+ * <p>
+ * 非线程安全
+ *
+ * @param <T> 实体类型
+ */
+public final class LazyEntity< T > {
+
+    private static final Object UNRESOLVED = new Object();
+
+    private final MarsCodec< T > codec;
+
+    private final RawBsonDocument document;
+
+    //  按 PropertyDispatcher 的位置缓存已解码的属性
+    private final Object[] values;
+
+    private T entity;
+
+    LazyEntity( MarsCodec< T > codec, RawBsonDocument document ) {
+        this.codec = codec;
+        this.document = document;
+        this.values = new Object[codec.getEntityModel().getPropertyDispatcher().size()];
+        Arrays.fill(values, UNRESOLVED);
+    }
+
+    /**
+     * @return 实体类型
+     */
+    @SuppressWarnings("unchecked")
+    public Class< T > getType() {
+        return (Class< T >) codec.getEntityModel().getType();
+    }
+
+    /**
+     * @return 服务端返回的原始文档
+     */
+    public RawBsonDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * 读取单个属性 , 第一次访问时解码
+     *
+     * @param property 属性名称 , 也可以使用存储的字段名称
+     * @param <V>      属性类型
+     * @return 属性值 , 文档中不存在该字段时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public < V > V get( String property ) {
+        if (entity != null) {
+            PropertyModel< ? > model = propertyModel(property);
+            return (V) model.getPropertyAccessor().get(entity);
+        }
+
+        PropertyDispatcher dispatcher = codec.getEntityModel().getPropertyDispatcher();
+        int slot = dispatcher.slot(propertyModel(property).getReadName());
+        if (slot < 0) {
+            return null;
+        }
+        Object value = values[slot];
+        if (value == UNRESOLVED) {
+            value = decode(dispatcher.model(slot));
+            values[slot] = value;
+        }
+        return (V) value;
+    }
+
+    /**
+     * @return 完整的实体 , 多次调用返回同一个实例
+     */
+    public T materialize() {
+        if (entity == null) {
+            try (BsonReader reader = document.asBsonReader()) {
+                entity = codec.decode(reader, DecoderContext.builder().build());
+            }
+        }
+        return entity;
+    }
+
+    private PropertyModel< ? > propertyModel( String property ) {
+        EntityModel< ? > entityModel = codec.getEntityModel();
+        PropertyModel< ? > model = entityModel.getPropertyModel(property);
+        if (model == null) {
+            model = entityModel.getPropertyModelFromReadName(property);
+        }
+        if (model == null || model.getReadName() == null) {
+            throw new IllegalArgumentException(format("%s has no readable property named '%s'.", entityModel.getName(), property));
+        }
+        return model;
+    }
+
+    private Object decode( PropertyModel< ? > model ) {
+        ValueHolder holder = new ValueHolder();
+        try (BsonReader reader = document.asBsonReader()) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if (model.getReadName().equals(reader.readName())) {
+                    codec.getDecoder().decodeModel(reader, DecoderContext.builder().build(), holder, model);
+                    break;
+                }
+                reader.skipValue();
+            }
+        }
+        return holder.value;
+    }
+
+    @Override
+    public String toString() {
+        return format("LazyEntity<%s>%s", codec.getEntityModel().getName(), document.toJson());
+    }
+
+    /**
+     * 接收单个属性的解码结果
+     */
+    private static final class ValueHolder implements MarsInstanceCreator< Object > {
+        private Object value;
+
+        @Override
+        public < S > void set( S value, PropertyModel< S > propertyModel ) {
+            this.value = value;
+        }
+
+        @Override
+        public Object getInstance() {
+            return null;
+        }
+    }
+}
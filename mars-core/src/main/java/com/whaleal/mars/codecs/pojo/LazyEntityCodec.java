@@ -0,0 +1,70 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.RawBsonDocumentCodec;
+
+/**
+ * 将查询 / 聚合结果读取为 {@link LazyEntity} , 只复制原始字节 , 不解码属性
+ *
+ * @param <T> 实体类型
+ */
+public final class LazyEntityCodec< T > implements Codec< LazyEntity< T > > {
+
+    private static final RawBsonDocumentCodec RAW_CODEC = new RawBsonDocumentCodec();
+
+    private final MarsCodec< T > codec;
+
+    LazyEntityCodec( MarsCodec< T > codec ) {
+        this.codec = codec;
+    }
+
+    @Override
+    public LazyEntity< T > decode( BsonReader reader, DecoderContext decoderContext ) {
+        return new LazyEntity<>(codec, RAW_CODEC.decode(reader, decoderContext));
+    }
+
+    @Override
+    public void encode( BsonWriter writer, LazyEntity< T > value, EncoderContext encoderContext ) {
+        RAW_CODEC.encode(writer, value.getDocument(), encoderContext);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Class< LazyEntity< T > > getEncoderClass() {
+        return (Class) LazyEntity.class;
+    }
+}
@@ -29,28 +29,64 @@
  */
 package com.whaleal.mars.codecs.pojo;
 
-import com.whaleal.mars.codecs.reader.DocumentReader;
 import org.bson.BsonReader;
-import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.bson.codecs.DecoderContext;
+import org.bson.codecs.RawBsonDocumentCodec;
 
+/**
+ * 为带有 {@link com.whaleal.mars.codecs.pojo.annotations.PreLoad} {@link com.whaleal.mars.codecs.pojo.annotations.PostLoad}
+ * 方法的实体解码
+ * <p>
+ * 属性仍然在一次流式读取中完成 (复用原有的 decoder , 包括 codec generation 生成的 decoder) ,
+ * 只有方法声明了文档参数时 , 才会先将当前文档复制为 RawBsonDocument , 再从其中读取属性 ,
+ * 不会再构建 Document 并二次解码
+ */
 public class LifecycleDecoder extends EntityDecoder {
 
+    private static final RawBsonDocumentCodec RAW_DOCUMENT_CODEC = new RawBsonDocumentCodec();
+
+    private final EntityDecoder delegate;
+
+    private final LifecycleMethods lifecycle;
+
     public <T> LifecycleDecoder(MarsCodec<T> codec) {
+        this(codec, LifecycleMethods.of(codec.getEntityModel().getType()));
+    }
+
+    <T> LifecycleDecoder(MarsCodec<T> codec, LifecycleMethods lifecycle) {
         super(codec);
+        this.delegate = codec.getDecoder() != null ? codec.getDecoder() : new EntityDecoder(codec);
+        this.lifecycle = lifecycle;
     }
 
     @Override
     public Object decode(BsonReader reader, DecoderContext decoderContext) {
-        final MarsInstanceCreator instanceCreator = getInstanceCreator();
-        Object entity = instanceCreator.getInstance();
-        EntityModel model = getMarsCodec().getEntityModel();
-        Document document = getMarsCodec().getRegistry().get(Document.class).decode(reader, decoderContext);
-
-
-        decodeProperties(new DocumentReader(document), decoderContext, instanceCreator);
+        if (!decoderContext.hasCheckedDiscriminator()) {
+            // 按照鉴别器找到实际的 codec , 本类型时会再次进入此方法
+            return super.decode(reader, decoderContext);
+        }
 
+        final MarsInstanceCreator instanceCreator = getInstanceCreator();
+        if (!lifecycle.needsDocument()) {
+            if (lifecycle.hasPreLoad()) {
+                lifecycle.preLoad(instanceCreator.getInstance(), null);
+            }
+            delegate.decodeProperties(reader, decoderContext, instanceCreator);
+            Object entity = instanceCreator.getInstance();
+            lifecycle.postLoad(entity, null);
+            return entity;
+        }
 
+        RawBsonDocument document = RAW_DOCUMENT_CODEC.decode(reader, decoderContext);
+        if (lifecycle.hasPreLoad()) {
+            lifecycle.preLoad(instanceCreator.getInstance(), document);
+        }
+        try (BsonReader documentReader = document.asBsonReader()) {
+            delegate.decodeProperties(documentReader, decoderContext, instanceCreator);
+        }
+        Object entity = instanceCreator.getInstance();
+        lifecycle.postLoad(entity, document);
         return entity;
     }
 
@@ -0,0 +1,157 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import com.whaleal.mars.codecs.pojo.annotations.PostLoad;
+import com.whaleal.mars.codecs.pojo.annotations.PreLoad;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.configuration.CodecConfigurationException;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * 实体上 {@link PreLoad} {@link PostLoad} 修饰的方法
+ * <p>
+ * 父类的方法先于子类调用 , 子类覆盖的方法只调用一次
+ */
+final class LifecycleMethods {
+
+    private final List< Method > preLoad;
+
+    private final List< Method > postLoad;
+
+    private final boolean needsDocument;
+
+    private LifecycleMethods( List< Method > preLoad, List< Method > postLoad ) {
+        this.preLoad = preLoad;
+        this.postLoad = postLoad;
+        boolean needsDocument = false;
+        for (Method method : preLoad) {
+            needsDocument |= method.getParameterCount() == 1;
+        }
+        for (Method method : postLoad) {
+            needsDocument |= method.getParameterCount() == 1;
+        }
+        this.needsDocument = needsDocument;
+    }
+
+    static LifecycleMethods of( Class< ? > type ) {
+        return new LifecycleMethods(find(type, PreLoad.class), find(type, PostLoad.class));
+    }
+
+    boolean hasLoadHooks() {
+        return !preLoad.isEmpty() || !postLoad.isEmpty();
+    }
+
+    boolean hasPreLoad() {
+        return !preLoad.isEmpty();
+    }
+
+    /**
+     * 是否有方法需要原始文档
+     */
+    boolean needsDocument() {
+        return needsDocument;
+    }
+
+    void preLoad( Object entity, BsonDocument document ) {
+        invoke(preLoad, entity, document);
+    }
+
+    void postLoad( Object entity, BsonDocument document ) {
+        invoke(postLoad, entity, document);
+    }
+
+    private static void invoke( List< Method > methods, Object entity, BsonDocument document ) {
+        for (Method method : methods) {
+            try {
+                if (method.getParameterCount() == 0) {
+                    method.invoke(entity);
+                } else {
+                    method.invoke(entity, document);
+                }
+            } catch (IllegalAccessException e) {
+                throw new CodecConfigurationException(format("Unable to call lifecycle method %s", method), e);
+            } catch (InvocationTargetException e) {
+                throw new CodecConfigurationException(format("Lifecycle method %s failed: %s", method,
+                        e.getCause().getMessage()), e.getCause());
+            }
+        }
+    }
+
+    private static List< Method > find( Class< ? > type, Class< ? extends Annotation > annotation ) {
+        List< Class< ? > > hierarchy = new ArrayList<>();
+        for (Class< ? > current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.add(0, current);
+        }
+
+        // 父类的方法调用时按虚方法分派 , 子类覆盖的同签名方法不再重复记录
+        Set< String > signatures = new HashSet<>();
+        List< Method > methods = new ArrayList<>();
+        for (Class< ? > current : hierarchy) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.isBridge() || method.isSynthetic() || Modifier.isStatic(method.getModifiers())
+                        || !method.isAnnotationPresent(annotation)) {
+                    continue;
+                }
+                String signature = method.getName() + Arrays.toString(method.getParameterTypes());
+                if (!Modifier.isPrivate(method.getModifiers()) && !signatures.add(signature)) {
+                    continue;
+                }
+                checkParameters(method, annotation);
+                method.setAccessible(true);
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private static void checkParameters( Method method, Class< ? extends Annotation > annotation ) {
+        Class< ? >[] parameters = method.getParameterTypes();
+        if (parameters.length == 0
+                || (parameters.length == 1 && BsonDocument.class.isAssignableFrom(parameters[0])
+                && parameters[0].isAssignableFrom(RawBsonDocument.class))) {
+            return;
+        }
+        throw new CodecConfigurationException(format("@%s method %s must take no arguments or a single BsonDocument",
+                annotation.getSimpleName(), method));
+    }
+}
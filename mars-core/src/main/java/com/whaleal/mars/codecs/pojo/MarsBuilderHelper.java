@@ -32,6 +32,7 @@ package com.whaleal.mars.codecs.pojo;
 
 
 import com.whaleal.icefrog.core.util.ClassUtil;
+import org.bson.codecs.configuration.CodecConfigurationException;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
@@ -210,6 +211,101 @@ final class MarsBuilderHelper {
 
     }
 
+    /**
+     * 根据编译期生成的描述配置 builder
+     * 只按名称查找描述中给出的字段与方法 , 不再遍历整个继承链
+     * 描述与实体类不一致时抛出 CodecConfigurationException
+     */
+    @SuppressWarnings("unchecked")
+    static <T> void configureClassModelBuilder(final EntityModelBuilder<T> entityModelBuilder, final Class<T> clazz,
+                                               final EntityModelDescriptor<T> descriptor) {
+        entityModelBuilder.type(notNull("clazz", clazz));
+
+        List<Class<?>> hierarchy = descriptor.getHierarchy();
+        Class<?> currentClass = clazz;
+        for (Class<?> type : hierarchy) {
+            if (type != currentClass) {
+                throw new CodecConfigurationException(format("Class hierarchy of %s has changed, expected %s but found %s.",
+                        clazz.getName(), type.getName(), currentClass == null ? null : currentClass.getName()));
+            }
+            currentClass = currentClass.getSuperclass();
+        }
+        if (currentClass != Object.class) {
+            throw new CodecConfigurationException(format("Class hierarchy of %s has changed.", clazz.getName()));
+        }
+
+        List<Annotation> annotations = new ArrayList<Annotation>();
+        for (Class<?> type : hierarchy) {
+            annotations.addAll(asList(type.getDeclaredAnnotations()));
+        }
+
+        String declaringClassName = ClassUtil.getSimpleClassName(clazz);
+        Map<String, TypeParameterMap> propertyTypeParameterMap = new HashMap<String, TypeParameterMap>();
+        try {
+            for (PropertyDescriptor property : descriptor.getProperties()) {
+                PropertyMetadata<?> propertyMetadata = new PropertyMetadata(property.getName(), declaringClassName, property.getTypeData());
+                Class<?> propertyType = property.getTypeData().getType();
+
+                if (property.getSetterName() != null) {
+                    Method setter = property.getSetterClass().getDeclaredMethod(property.getSetterName(), property.getSetterType());
+                    checkMemberType(property, setter, isAssignableClass(propertyType, setter.getParameterTypes()[0]));
+                    propertyMetadata.setSetter(setter);
+                    for (Annotation annotation : setter.getDeclaredAnnotations()) {
+                        propertyMetadata.addWriteAnnotation(annotation);
+                    }
+                }
+                if (property.getGetterName() != null) {
+                    Method getter = property.getGetterClass().getDeclaredMethod(property.getGetterName());
+                    checkMemberType(property, getter, isAssignableClass(propertyType, getter.getReturnType()));
+                    propertyMetadata.setGetter(getter);
+                    for (Annotation annotation : getter.getDeclaredAnnotations()) {
+                        propertyMetadata.addReadAnnotation(annotation);
+                    }
+                }
+                if (property.getFieldName() != null) {
+                    Field field = property.getFieldClass().getDeclaredField(property.getFieldName());
+                    checkMemberType(property, field, propertyType.isAssignableFrom(field.getType()));
+                    propertyMetadata.field(field);
+                    for (Annotation annotation : field.getDeclaredAnnotations()) {
+                        propertyMetadata.addReadAnnotation(annotation);
+                        propertyMetadata.addWriteAnnotation(annotation);
+                    }
+                }
+
+                // 生成的描述只覆盖没有泛型参数的实体
+                propertyTypeParameterMap.put(property.getName(), TypeParameterMap.builder().build());
+                if (propertyMetadata.isSerializable() || propertyMetadata.isDeserializable()) {
+                    entityModelBuilder.addProperty(createPropertyModelBuilder(propertyMetadata));
+                }
+            }
+        } catch (NoSuchFieldException | NoSuchMethodException e) {
+            throw new CodecConfigurationException(format("Member of %s can not be found: %s", clazz.getName(), e.getMessage()), e);
+        }
+
+        reverse(annotations);
+        entityModelBuilder.annotations(annotations);
+        entityModelBuilder.propertyNameToTypeParameterMap(propertyTypeParameterMap);
+
+        Constructor<T> noArgsConstructor = null;
+        try {
+            Constructor<T> constructor = clazz.getDeclaredConstructor();
+            if (isPublic(constructor.getModifiers()) || isProtected(constructor.getModifiers())) {
+                noArgsConstructor = constructor;
+                noArgsConstructor.setAccessible(true);
+            }
+        } catch (NoSuchMethodException ignored) {
+        }
+
+        entityModelBuilder.instanceCreatorFactory(new InstanceCreatorFactoryImpl<T>(new CreatorExecutable<T>(clazz, noArgsConstructor)));
+    }
+
+    private static void checkMemberType(final PropertyDescriptor property, final Member member, final boolean assignable) {
+        if (!assignable) {
+            throw new CodecConfigurationException(format("Type of '%s' in %s has changed, %s is not compatible with %s.",
+                    property.getName(), member.getDeclaringClass().getName(), member, property.getTypeData()));
+        }
+    }
+
     private static <T, S> PropertyMetadata<T> getOrCreateMethodPropertyMetadata(final String propertyName,
                                                                                 final String declaringClassName,
                                                                                 final Map<String, PropertyMetadata<?>> propertyNameMap,
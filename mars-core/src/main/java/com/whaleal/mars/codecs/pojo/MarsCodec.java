@@ -33,6 +33,9 @@ import com.whaleal.mars.codecs.Conversions;
 import com.whaleal.mars.codecs.MarsOrmException;
 import com.whaleal.mars.codecs.MongoMappingContext;
 import com.whaleal.mars.codecs.RepresentationConfigurable;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonNull;
 import org.bson.BsonReader;
 import org.bson.BsonType;
 import org.bson.BsonValue;
@@ -46,7 +49,6 @@ import org.bson.codecs.configuration.CodecConfigurationException;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.codecs.pojo.PropertyCodecProvider;
 import org.bson.codecs.pojo.PropertyCodecRegistry;
-import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -66,6 +68,7 @@ public class MarsCodec<T> implements CollectibleCodec<T> {
     private EntityEncoder encoder;
     private EntityDecoder decoder;
     private List<PropertyCodecProvider> propertyCodecProviders;
+    private volatile LazyEntityCodec<T> lazyCodec;
 
 
     public MarsCodec(MongoMappingContext mapper, EntityModel model,
@@ -123,6 +126,18 @@ public class MarsCodec<T> implements CollectibleCodec<T> {
         this.decoder = decoder;
     }
 
+    /**
+     * @return 将结果读取为 {@link LazyEntity} 的 codec
+     */
+    public LazyEntityCodec<T> getLazyCodec() {
+        LazyEntityCodec<T> codec = lazyCodec;
+        if (codec == null) {
+            codec = new LazyEntityCodec<>(this);
+            lazyCodec = codec;
+        }
+        return codec;
+    }
+
     @Override
     public void encode(BsonWriter writer, Object value, EncoderContext encoderContext) {
         encoder.encode(writer, value, encoderContext);
@@ -137,26 +152,80 @@ public class MarsCodec<T> implements CollectibleCodec<T> {
     @Override
     public Object generateIdIfAbsentFromDocument(Object entity) {
         if (!documentHasId(entity)) {
-            idProperty.getPropertyAccessor().set(entity, Conversions.convert(new ObjectId(), idProperty.getType()));
+            idProperty.getPropertyAccessor().set(entity, Conversions.convert(EntityEncoder.OBJECT_ID_GENERATOR.generate(), idProperty.getType()));
         }
         return entity;
     }
 
+    /**
+     * 按照 id 属性实际的存储形式 (如 @Representation) 编码 id 值
+     * 仅编码 id , 不会对整个实体进行编码
+     */
     @Override
-    public BsonValue getDocumentId(Object document) {
-        throw new UnsupportedOperationException();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BsonValue getDocumentId(Object entity) {
+        if (!documentHasId(entity)) {
+            throw new IllegalStateException("The entity does not contain an id");
+        }
+        return encodeProperty(idProperty, idProperty.getPropertyAccessor().get(entity));
+    }
+
+    /**
+     * 按照存储形式获取实体中某个字段的值 , 支持 a.b 形式的嵌套路径
+     * 路径的第一段为属性的 write name (也可以是 java 属性名) , 其余部分在编码后的文档中查找
+     * 字段不存在或值为 null 时返回 BsonNull
+     */
+    public BsonValue getPropertyValue(Object entity, String path) {
+        String[] segments = path.split("\\.");
+        PropertyModel<?> propertyModel = entityModel.getPropertyModelFromWriteName(segments[0]);
+        if (propertyModel == null) {
+            propertyModel = entityModel.getPropertyModel(segments[0]);
+        }
+        if (propertyModel == null) {
+            throw new IllegalArgumentException("No property " + segments[0] + " found on " + entityModel.getName());
+        }
+
+        Object value = propertyModel.getPropertyAccessor().get(entity);
+        BsonValue current = value == null ? BsonNull.VALUE : encodeProperty(propertyModel, value);
+        for (int i = 1; i < segments.length; i++) {
+            if (!current.isDocument()) {
+                return BsonNull.VALUE;
+            }
+            current = current.asDocument().get(segments[i], BsonNull.VALUE);
+        }
+        return current;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BsonValue encodeProperty(PropertyModel propertyModel, Object value) {
+        Codec codec = propertyModel.getCachedCodec() != null
+                ? propertyModel.getCachedCodec()
+                : registry.get(value.getClass());
+
+        BsonDocument holder = new BsonDocument();
+        BsonDocumentWriter writer = new BsonDocumentWriter(holder);
+        writer.writeStartDocument();
+        writer.writeName(propertyModel.getWriteName());
+        EncoderContext.builder().build().encodeWithChildContext(codec, writer, value);
+        writer.writeEndDocument();
+
+        return holder.get(propertyModel.getWriteName());
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     private void specializePropertyCodecs() {
         EntityModel entityModel = getEntityModel();
+        //  类型不符时读取值使用的 codec
+        Codec<?> valueCodec = mapper == null ? null : mapper.getCodecRegistry().get(Object.class);
 
         for (Object property : entityModel.getPropertyModels()) {
             PropertyModel<?> propertyModel = (PropertyModel<?>) property;
             Codec codec = getPropertyModelCodec(propertyModel);
             if (codec != null) {
                 propertyModel.cachedCodec(codec);
-
+                if (valueCodec != null) {
+                    propertyModel.typeGuard(BsonTypeGuard.of(codec, propertyModel.getTypeData().getType(), valueCodec));
+                }
             }
         }
     }
@@ -73,7 +73,7 @@ public final class MarsCodecProvider implements CodecProvider {
             EntityModel<T> classModel = (EntityModel<T>) this.mapper.getEntityModel(clazz);
 
             if (classModel != null) {
-                codec = new MarsCodec<T>(mapper, classModel, propertyCodecProviders, mapper.getDiscriminatorLookup(), registry);
+                codec = specialize(new MarsCodec<T>(mapper, classModel, propertyCodecProviders, mapper.getDiscriminatorLookup(), registry));
                 codecs.put(clazz, codec);
                 return codec;
             } else {
@@ -82,7 +82,7 @@ public final class MarsCodecProvider implements CodecProvider {
                     classModel = createClassModel(clazz, conventions);
                     if (clazz.isInterface() || !classModel.getPropertyModels().isEmpty()) {
 
-                        codec = new MarsCodec<T>(mapper, classModel, propertyCodecProviders, mapper.getDiscriminatorLookup(), registry);
+                        codec = specialize(new MarsCodec<T>(mapper, classModel, propertyCodecProviders, mapper.getDiscriminatorLookup(), registry));
 
                         if (codec != null) {
                             codecs.put(clazz, codec);
@@ -114,8 +114,25 @@ public final class MarsCodecProvider implements CodecProvider {
     }
 
 
+    /**
+     * 开启 codec generation 时 为该实体安装预先生成读写步骤的 encoder 及 decoder
+     * 实体有加载时调用的方法时 安装 LifecycleDecoder
+     */
+    private <T> MarsCodec<T> specialize(MarsCodec<T> codec) {
+        if (mapper.isCodecGeneration()) {
+            codec.setEncoder(new SpecializedEntityEncoder(codec));
+            codec.setDecoder(new SpecializedEntityDecoder(codec));
+        }
+        //  有 @PreLoad @PostLoad 方法的实体 , 在原有 decoder 之外调用这些方法
+        LifecycleMethods lifecycle = LifecycleMethods.of(codec.getEntityModel().getType());
+        if (lifecycle.hasLoadHooks()) {
+            codec.setDecoder(new LifecycleDecoder(codec, lifecycle));
+        }
+        return codec;
+    }
+
     private static <T> EntityModel<T> createClassModel(final Class<T> clazz, final List<Convention> conventions) {
-        EntityModelBuilder<T> builder = new EntityModelBuilder<>(clazz);
+        EntityModelBuilder<T> builder = EntityModelDescriptors.builder(clazz);
         if (conventions != null) {
             builder.conventions(conventions);
         }
@@ -0,0 +1,134 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import com.whaleal.mars.codecs.internal.PackedArrays;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.Collection;
+
+/**
+ * 元素为 Integer Long Float Double 的集合 , 整个集合存为一个紧凑的 BSON Binary
+ * <p>
+ * 由 {@code @Representation(BsonType.BINARY)} 启用 , 元素不能为 null ,
+ * 解码时仍可以读取普通的 BSON 数组
+ */
+class PackedCollectionCodec<T> extends CollectionCodec<T> {
+
+    private final Class<T> elementType;
+
+    PackedCollectionCodec(Class<Collection<T>> encoderClass, Codec<T> codec) {
+        super(encoderClass, codec);
+        this.elementType = codec.getEncoderClass();
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Collection<T> collection, EncoderContext encoderContext) {
+        int i = 0;
+        if (elementType == Integer.class) {
+            int[] values = new int[collection.size()];
+            for (T value : collection) {
+                values[i++] = ((Number) checkNotNull(value)).intValue();
+            }
+            PackedArrays.write(writer, values);
+        } else if (elementType == Long.class) {
+            long[] values = new long[collection.size()];
+            for (T value : collection) {
+                values[i++] = ((Number) checkNotNull(value)).longValue();
+            }
+            PackedArrays.write(writer, values);
+        } else if (elementType == Float.class) {
+            float[] values = new float[collection.size()];
+            for (T value : collection) {
+                values[i++] = ((Number) checkNotNull(value)).floatValue();
+            }
+            PackedArrays.write(writer, values);
+        } else {
+            double[] values = new double[collection.size()];
+            for (T value : collection) {
+                values[i++] = ((Number) checkNotNull(value)).doubleValue();
+            }
+            PackedArrays.write(writer, values);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<T> decode(BsonReader reader, DecoderContext context) {
+        if (reader.getCurrentBsonType() != BsonType.BINARY) {
+            return super.decode(reader, context);
+        }
+        Collection<Object> collection = (Collection<Object>) getInstance();
+        if (elementType == Integer.class) {
+            for (int value : PackedArrays.readInts(reader)) {
+                collection.add(value);
+            }
+        } else if (elementType == Long.class) {
+            for (long value : PackedArrays.readLongs(reader)) {
+                collection.add(value);
+            }
+        } else if (elementType == Float.class) {
+            for (float value : PackedArrays.readFloats(reader)) {
+                collection.add(value);
+            }
+        } else {
+            for (double value : PackedArrays.readDoubles(reader)) {
+                collection.add(value);
+            }
+        }
+        return (Collection<T>) collection;
+    }
+
+    @Override
+    public BsonType getRepresentation() {
+        return BsonType.BINARY;
+    }
+
+    @Override
+    public Codec<Collection<T>> withRepresentation(BsonType representation) {
+        if (representation == BsonType.BINARY) {
+            return this;
+        }
+        return new CollectionCodec<T>(getEncoderClass(), getCodec()).withRepresentation(representation);
+    }
+
+    private static Object checkNotNull(Object value) {
+        if (value == null) {
+            throw new BsonInvalidOperationException("A packed array can not contain null elements");
+        }
+        return value;
+    }
+}
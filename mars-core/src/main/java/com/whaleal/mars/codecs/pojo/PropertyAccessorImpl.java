@@ -32,14 +32,39 @@ package com.whaleal.mars.codecs.pojo;
 import org.bson.codecs.configuration.CodecConfigurationException;
 import org.bson.codecs.pojo.PropertyAccessor;
 
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
 import static java.lang.String.format;
 
 public class PropertyAccessorImpl<T> implements PropertyAccessor<T> {
 
     private final PropertyMetadata<T> propertyMetadata;
+    // 构建时生成的访问器 , 为 null 时使用反射
+    private final Function<Object, Object> getter;
+    private final BiConsumer<Object, Object> setter;
+    // 基本类型属性不装箱的 getter
+    private final ToIntFunction<Object> intGetter;
+    private final ToLongFunction<Object> longGetter;
+    private final ToDoubleFunction<Object> doubleGetter;
+    private final Predicate<Object> booleanGetter;
 
     PropertyAccessorImpl(final PropertyMetadata<T> propertyMetadata) {
         this.propertyMetadata = propertyMetadata;
+        this.getter = propertyMetadata.isSerializable() ? PropertyAccessors.getter(propertyMetadata) : null;
+        this.setter = propertyMetadata.isDeserializable() ? PropertyAccessors.setter(propertyMetadata) : null;
+
+        boolean primitive = propertyMetadata.isSerializable() && (propertyMetadata.getGetter() != null
+                ? propertyMetadata.getGetter().getReturnType().isPrimitive()
+                : propertyMetadata.getField() != null && propertyMetadata.getField().getType().isPrimitive());
+        this.intGetter = primitive ? PropertyAccessors.<ToIntFunction<Object>>primitiveGetter(propertyMetadata, int.class) : null;
+        this.longGetter = primitive ? PropertyAccessors.<ToLongFunction<Object>>primitiveGetter(propertyMetadata, long.class) : null;
+        this.doubleGetter = primitive ? PropertyAccessors.<ToDoubleFunction<Object>>primitiveGetter(propertyMetadata, double.class) : null;
+        this.booleanGetter = primitive ? PropertyAccessors.<Predicate<Object>>primitiveGetter(propertyMetadata, boolean.class) : null;
     }
 
 
@@ -48,6 +73,9 @@ public class PropertyAccessorImpl<T> implements PropertyAccessor<T> {
     public <S> T get(final S instance) {
 
         try {
+            if (getter != null) {
+                return (T) getter.apply(instance);
+            }
             if (propertyMetadata.isSerializable()) {
                 if (propertyMetadata.getGetter() != null) {
                     return (T) propertyMetadata.getGetter().invoke(instance);
@@ -65,6 +93,10 @@ public class PropertyAccessorImpl<T> implements PropertyAccessor<T> {
     @Override
     public <S> void set(final S instance, final T value) {
         try {
+            if (setter != null) {
+                setter.accept(instance, value);
+                return;
+            }
             if (propertyMetadata.isDeserializable()) {
                 if (propertyMetadata.getSetter() != null) {
                     propertyMetadata.getSetter().invoke(instance, value);
@@ -77,6 +109,57 @@ public class PropertyAccessorImpl<T> implements PropertyAccessor<T> {
         }
     }
 
+    /**
+     * 属性为 int 且生成了不装箱的 getter 时返回 true
+     */
+    boolean hasIntGetter() {
+        return intGetter != null;
+    }
+
+    boolean hasLongGetter() {
+        return longGetter != null;
+    }
+
+    boolean hasDoubleGetter() {
+        return doubleGetter != null;
+    }
+
+    boolean hasBooleanGetter() {
+        return booleanGetter != null;
+    }
+
+    <S> int getInt(final S instance) {
+        try {
+            return intGetter.applyAsInt(instance);
+        } catch (final RuntimeException e) {
+            throw getError(e);
+        }
+    }
+
+    <S> long getLong(final S instance) {
+        try {
+            return longGetter.applyAsLong(instance);
+        } catch (final RuntimeException e) {
+            throw getError(e);
+        }
+    }
+
+    <S> double getDouble(final S instance) {
+        try {
+            return doubleGetter.applyAsDouble(instance);
+        } catch (final RuntimeException e) {
+            throw getError(e);
+        }
+    }
+
+    <S> boolean getBoolean(final S instance) {
+        try {
+            return booleanGetter.test(instance);
+        } catch (final RuntimeException e) {
+            throw getError(e);
+        }
+    }
+
     protected PropertyMetadata<T> getPropertyMetadata() {
         return propertyMetadata;
     }
@@ -0,0 +1,277 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import com.whaleal.icefrog.log.Log;
+import com.whaleal.icefrog.log.LogFactory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 在构建 EntityModel 时为属性生成访问器 , 替代每次读写时的反射调用
+ * <p>
+ * public 的 getter / setter 通过 LambdaMetafactory 生成函数式接口的实现 , 可以被 JIT 内联 ,
+ * int / long / double / boolean 类型的 getter 另外生成不装箱的版本
+ * 直接访问的字段使用 MethodHandle
+ * <p>
+ * 无法生成时 (非 public 的类或方法 , 实体类对当前 ClassLoader 不可见等) 返回 null , 由调用方退回到反射
+ */
+final class PropertyAccessors {
+
+    private static final Log log = LogFactory.get(PropertyAccessors.class);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private PropertyAccessors() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Function< Object, Object > getter( PropertyMetadata< ? > metadata ) {
+        Method getter = metadata.getGetter();
+        try {
+            if (getter != null) {
+                if (canLink(getter)) {
+                    return (Function< Object, Object >) metafactory(getter, "apply", Function.class, GETTER_TYPE,
+                            MethodType.methodType(wrap(getter.getReturnType()), getter.getDeclaringClass()));
+                }
+                return null;
+            }
+            Field field = metadata.getField();
+            if (field != null && Modifier.isPublic(field.getModifiers())) {
+                return fieldGetter(field);
+            }
+        } catch (Throwable e) {
+            debug(metadata, e);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    static BiConsumer< Object, Object > setter( PropertyMetadata< ? > metadata ) {
+        Method setter = metadata.getSetter();
+        try {
+            if (setter != null) {
+                if (canLink(setter)) {
+                    return (BiConsumer< Object, Object >) metafactory(setter, "accept", BiConsumer.class, SETTER_TYPE,
+                            MethodType.methodType(void.class, setter.getDeclaringClass(), wrap(setter.getParameterTypes()[0])));
+                }
+                return null;
+            }
+            Field field = metadata.getField();
+            if (field != null && Modifier.isPublic(field.getModifiers())) {
+                return fieldSetter(field);
+            }
+        } catch (Throwable e) {
+            debug(metadata, e);
+        }
+        return null;
+    }
+
+    /**
+     * 不装箱的 getter , 属性类型与期望的基本类型不一致时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    static < F > F primitiveGetter( PropertyMetadata< ? > metadata, Class< ? > primitiveType ) {
+        Method getter = metadata.getGetter();
+        try {
+            if (getter != null) {
+                if (getter.getReturnType() != primitiveType || !canLink(getter)) {
+                    return null;
+                }
+                MethodType instantiated = MethodType.methodType(primitiveType, getter.getDeclaringClass());
+                if (primitiveType == int.class) {
+                    return (F) metafactory(getter, "applyAsInt", ToIntFunction.class, MethodType.methodType(int.class, Object.class), instantiated);
+                } else if (primitiveType == long.class) {
+                    return (F) metafactory(getter, "applyAsLong", ToLongFunction.class, MethodType.methodType(long.class, Object.class), instantiated);
+                } else if (primitiveType == double.class) {
+                    return (F) metafactory(getter, "applyAsDouble", ToDoubleFunction.class, MethodType.methodType(double.class, Object.class), instantiated);
+                } else if (primitiveType == boolean.class) {
+                    return (F) metafactory(getter, "test", Predicate.class, MethodType.methodType(boolean.class, Object.class), instantiated);
+                }
+                return null;
+            }
+
+            Field field = metadata.getField();
+            if (field == null || field.getType() != primitiveType || !Modifier.isPublic(field.getModifiers())) {
+                return null;
+            }
+            MethodHandle handle = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(primitiveType, Object.class));
+            if (primitiveType == int.class) {
+                return (F) (ToIntFunction< Object >) instance -> {
+                    try {
+                        return (int) handle.invokeExact(instance);
+                    } catch (Throwable e) {
+                        throw rethrow(e);
+                    }
+                };
+            } else if (primitiveType == long.class) {
+                return (F) (ToLongFunction< Object >) instance -> {
+                    try {
+                        return (long) handle.invokeExact(instance);
+                    } catch (Throwable e) {
+                        throw rethrow(e);
+                    }
+                };
+            } else if (primitiveType == double.class) {
+                return (F) (ToDoubleFunction< Object >) instance -> {
+                    try {
+                        return (double) handle.invokeExact(instance);
+                    } catch (Throwable e) {
+                        throw rethrow(e);
+                    }
+                };
+            } else if (primitiveType == boolean.class) {
+                return (F) (Predicate< Object >) instance -> {
+                    try {
+                        return (boolean) handle.invokeExact(instance);
+                    } catch (Throwable e) {
+                        throw rethrow(e);
+                    }
+                };
+            }
+        } catch (Throwable e) {
+            debug(metadata, e);
+        }
+        return null;
+    }
+
+    /**
+     * 字段的 getter , 非 public 字段需要调用方先 setAccessible
+     */
+    static Function< Object, Object > fieldGetter( Field field ) throws IllegalAccessException {
+        MethodHandle handle = LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+        return instance -> {
+            try {
+                return (Object) handle.invokeExact(instance);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    /**
+     * 字段的 setter , 非 public 字段需要调用方先 setAccessible
+     */
+    static BiConsumer< Object, Object > fieldSetter( Field field ) throws IllegalAccessException {
+        MethodHandle handle = LOOKUP.unreflectSetter(field).asType(SETTER_TYPE);
+        return (instance, value) -> {
+            try {
+                handle.invokeExact(instance, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static Object metafactory( Method method, String samName, Class< ? > samType, MethodType samMethodType,
+                                       MethodType instantiatedMethodType ) throws Throwable {
+        MethodHandle implementation = LOOKUP.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, samName, MethodType.methodType(samType),
+                samMethodType, implementation, instantiatedMethodType);
+        return site.getTarget().invoke();
+    }
+
+    /**
+     * 生成的实现类由当前 ClassLoader 加载 , 因此方法及其签名中的类型都需要是 public 且对当前 ClassLoader 可见
+     */
+    private static boolean canLink( Method method ) {
+        if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())) {
+            return false;
+        }
+        if (!isAccessible(method.getDeclaringClass()) || !isAccessible(method.getReturnType())) {
+            return false;
+        }
+        for (Class< ? > parameterType : method.getParameterTypes()) {
+            if (!isAccessible(parameterType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAccessible( Class< ? > type ) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        for (Class< ? > current = type; current != null; current = current.getDeclaringClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            return Class.forName(type.getName(), false, PropertyAccessors.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static Class< ? > wrap( Class< ? > type ) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static RuntimeException rethrow( Throwable e ) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+
+    private static void debug( PropertyMetadata< ? > metadata, Throwable e ) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fall back to reflection for property '{}' in {}: {}", metadata.getName(), metadata.getDeclaringClassName(), e.getMessage());
+        }
+    }
+}
@@ -47,6 +47,7 @@ class PropertyCodecRegistryImpl implements PropertyCodecRegistry {
     PropertyCodecRegistryImpl(Codec<?> marsCodec, final CodecRegistry codecRegistry,
                               final List<PropertyCodecProvider> propertyCodecProviders) {
         List<PropertyCodecProvider> augmentedProviders = new ArrayList<PropertyCodecProvider>();
+        augmentedProviders.add(new RawBsonPropertyCodecProvider());
         if (propertyCodecProviders != null) {
             augmentedProviders.addAll(propertyCodecProviders);
         }
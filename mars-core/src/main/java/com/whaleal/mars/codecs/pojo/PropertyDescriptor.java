@@ -0,0 +1,132 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import static com.whaleal.icefrog.core.lang.Precondition.notNull;
+
+/**
+ * 生成的实体描述中的单个属性
+ * <p>
+ * 记录属性的名称 , 类型 , 以及 setter / getter / field 的声明类和名称 ,
+ * 三者均可为空 , 是否可读写仍由 {@link PropertyMetadata} 根据修饰符判断
+ *
+ * @see EntityModelDescriptor
+ */
+public final class PropertyDescriptor {
+
+    private final String name;
+
+    private final TypeData< ? > typeData;
+
+    private Class< ? > setterClass;
+    private String setterName;
+    private Class< ? > setterType;
+
+    private Class< ? > getterClass;
+    private String getterName;
+
+    private Class< ? > fieldClass;
+    private String fieldName;
+
+    private PropertyDescriptor( String name, TypeData< ? > typeData ) {
+        this.name = notNull("name", name);
+        this.typeData = notNull("typeData", typeData);
+    }
+
+    public static PropertyDescriptor of( String name, TypeData< ? > typeData ) {
+        return new PropertyDescriptor(name, typeData);
+    }
+
+    public PropertyDescriptor setter( Class< ? > declaringClass, String methodName, Class< ? > parameterType ) {
+        this.setterClass = notNull("declaringClass", declaringClass);
+        this.setterName = notNull("methodName", methodName);
+        this.setterType = notNull("parameterType", parameterType);
+        return this;
+    }
+
+    public PropertyDescriptor getter( Class< ? > declaringClass, String methodName ) {
+        this.getterClass = notNull("declaringClass", declaringClass);
+        this.getterName = notNull("methodName", methodName);
+        return this;
+    }
+
+    public PropertyDescriptor field( Class< ? > declaringClass, String fieldName ) {
+        this.fieldClass = notNull("declaringClass", declaringClass);
+        this.fieldName = notNull("fieldName", fieldName);
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TypeData< ? > getTypeData() {
+        return typeData;
+    }
+
+    public Class< ? > getSetterClass() {
+        return setterClass;
+    }
+
+    public String getSetterName() {
+        return setterName;
+    }
+
+    public Class< ? > getSetterType() {
+        return setterType;
+    }
+
+    public Class< ? > getGetterClass() {
+        return getterClass;
+    }
+
+    public String getGetterName() {
+        return getterName;
+    }
+
+    public Class< ? > getFieldClass() {
+        return fieldClass;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyDescriptor{"
+                + "name='" + name + '\''
+                + ", typeData=" + typeData
+                + ", setter=" + setterName
+                + ", getter=" + getterName
+                + ", field=" + fieldName
+                + '}';
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解码时 字段名 到 PropertyModel 的查找表 , 每个 EntityModel 一份
+ * <p>
+ * 属性按 EntityEncoder 的写入顺序排列 (先 _id , 再其余属性) , 由 Mars 写入的文档读回时字段顺序不变 ,
+ * 解码时先与预计的下一个位置比较 , 命中时只需一次 String#equals ,
+ * 未命中 (字段缺失 , 顺序不同 , 或由其他程序写入) 时再通过 HashMap 查找
+ */
+final class PropertyDispatcher {
+
+    //  按写入顺序排列的 read name , 同名属性中未被选中的位置为 null , 不参与顺序匹配
+    private final String[] readNames;
+
+    private final PropertyModel< ? >[] models;
+
+    private final Map< String, Integer > slots;
+
+    PropertyDispatcher( PropertyModel< ? > idModel, List< PropertyModel< ? > > propertyModels ) {
+        int size = propertyModels.size();
+        this.readNames = new String[size];
+        this.models = new PropertyModel< ? >[size];
+        this.slots = new HashMap<>(size * 2);
+
+        int slot = 0;
+        if (idModel != null && containsSame(propertyModels, idModel)) {
+            readNames[slot] = idModel.getReadName();
+            models[slot++] = idModel;
+        }
+        for (PropertyModel< ? > propertyModel : propertyModels) {
+            if (propertyModel != idModel) {
+                readNames[slot] = propertyModel.getReadName();
+                models[slot++] = propertyModel;
+            }
+        }
+
+        // 同名时与 EntityModel 中按顺序查找的结果一致 , 取第一个
+        for (PropertyModel< ? > propertyModel : propertyModels) {
+            if (propertyModel.getReadName() != null && !slots.containsKey(propertyModel.getReadName())) {
+                slots.put(propertyModel.getReadName(), slotOf(propertyModel));
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (readNames[i] != null && slots.get(readNames[i]) != i) {
+                readNames[i] = null;
+            }
+        }
+    }
+
+    /**
+     * @param name     字段名
+     * @param expected 预计的位置 , 通常为上一个字段的位置 + 1
+     * @return 属性的位置 , 不存在时返回 -1
+     */
+    int slot( String name, int expected ) {
+        if (expected < readNames.length && name.equals(readNames[expected])) {
+            return expected;
+        }
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @return 属性的位置 , 不存在时返回 -1
+     */
+    int slot( String name ) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    PropertyModel< ? > model( int slot ) {
+        return models[slot];
+    }
+
+    PropertyModel< ? > find( String name ) {
+        Integer slot = slots.get(name);
+        return slot == null ? null : models[slot];
+    }
+
+    int size() {
+        return models.length;
+    }
+
+    private static boolean containsSame( List< PropertyModel< ? > > propertyModels, PropertyModel< ? > model ) {
+        for (PropertyModel< ? > propertyModel : propertyModels) {
+            if (propertyModel == model) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int slotOf( PropertyModel< ? > propertyModel ) {
+        for (int i = 0; i < models.length; i++) {
+            if (models[i] == propertyModel) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Property model not found: " + propertyModel.getName());
+    }
+}
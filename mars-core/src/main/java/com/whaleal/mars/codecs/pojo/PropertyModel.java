@@ -47,6 +47,9 @@ public final class PropertyModel<T> {
     private final PropertyAccessor<T> propertyAccessor;
     private final String error;
     private volatile Codec<T> cachedCodec;
+    private volatile BsonTypeGuard typeGuard;
+    //  在构造函数 / 工厂方法参数中的位置 , 不是参数时为 -1 , 构建 EntityModel 时确定
+    private int creatorIndex = -1;
     private final BsonType bsonRepresentation;
 
     PropertyModel(final String name, final String readName, final String writeName, final TypeData<T> typeData,
@@ -256,5 +259,24 @@ public final class PropertyModel<T> {
         return cachedCodec;
     }
 
+    /**
+     * 与 cachedCodec 对应 , codec 可以直接读取的 BSON 类型 , 为 null 时解码失败再回退
+     */
+    void typeGuard(final BsonTypeGuard typeGuard) {
+        this.typeGuard = typeGuard;
+    }
+
+    BsonTypeGuard getTypeGuard() {
+        return typeGuard;
+    }
+
+    void creatorIndex(final int creatorIndex) {
+        this.creatorIndex = creatorIndex;
+    }
+
+    int getCreatorIndex() {
+        return creatorIndex;
+    }
+
 
 }
@@ -0,0 +1,63 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import com.whaleal.mars.codecs.internal.RawBsonArrayCodec;
+import com.whaleal.mars.codecs.internal.RawBsonDocumentCodec;
+import org.bson.RawBsonArray;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.pojo.PropertyCodecProvider;
+import org.bson.codecs.pojo.PropertyCodecRegistry;
+import org.bson.codecs.pojo.TypeWithTypeParameters;
+
+/**
+ * RawBsonDocument 及 RawBsonArray 类型的属性直接复制字节
+ * <p>
+ * 两者同时实现了 Map / List , 需要排在 Map 及 Collection 的 provider 之前 , 否则会被逐个元素解码
+ */
+@SuppressWarnings("unchecked")
+class RawBsonPropertyCodecProvider implements PropertyCodecProvider {
+
+    private static final Codec< RawBsonDocument > DOCUMENT_CODEC = new RawBsonDocumentCodec();
+
+    private static final Codec< RawBsonArray > ARRAY_CODEC = new RawBsonArrayCodec();
+
+    @Override
+    public < T > Codec< T > get( TypeWithTypeParameters< T > type, PropertyCodecRegistry registry ) {
+        if (type.getType() == RawBsonDocument.class) {
+            return (Codec< T >) DOCUMENT_CODEC;
+        }
+        if (type.getType() == RawBsonArray.class) {
+            return (Codec< T >) ARRAY_CODEC;
+        }
+        return null;
+    }
+}
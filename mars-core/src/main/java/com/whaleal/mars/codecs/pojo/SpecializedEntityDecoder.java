@@ -0,0 +1,153 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import com.whaleal.mars.codecs.internal.BooleanCodec;
+import com.whaleal.mars.codecs.internal.DoubleCodec;
+import com.whaleal.mars.codecs.internal.IntegerCodec;
+import com.whaleal.mars.codecs.internal.LongCodec;
+import com.whaleal.mars.codecs.internal.StringCodec;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+
+import static com.whaleal.mars.codecs.pojo.EntityEncoder.isDefaultCodec;
+
+/**
+ * 针对单个 EntityModel 预先生成读取步骤的 Decoder
+ * <p>
+ * 构建时按 PropertyDispatcher 中的位置为每个属性确定读取方式 , 基本类型、包装类型及 String 在使用默认 codec
+ * 且服务端存储的类型与之一致时 直接调用 BsonReader 对应的方法 ,
+ * 其余情况 (包括类型不一致需要转换时) 与 EntityDecoder 的处理方式相同
+ *
+ * @see com.whaleal.mars.codecs.MongoMappingContext#setCodecGeneration(boolean)
+ */
+class SpecializedEntityDecoder extends EntityDecoder {
+
+    private final PropertyDispatcher dispatcher;
+
+    //  与 PropertyDispatcher 中的位置一一对应
+    private final FieldReader[] readers;
+
+    SpecializedEntityDecoder(MarsCodec<?> marsCodec) {
+        super(marsCodec);
+        this.dispatcher = marsCodec.getEntityModel().getPropertyDispatcher();
+        this.readers = new FieldReader[dispatcher.size()];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = readerFor(dispatcher.model(i));
+        }
+    }
+
+    @Override
+    protected void decodeProperties(BsonReader reader, DecoderContext decoderContext, MarsInstanceCreator instanceCreator) {
+        EntityModel<?> classModel = getMarsCodec().getEntityModel();
+        String discriminatorKey = classModel.useDiscriminator() ? classModel.getDiscriminatorKey() : null;
+
+        reader.readStartDocument();
+        int expected = 0;
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (name.equals(discriminatorKey)) {
+                reader.readString();
+                continue;
+            }
+            int slot = dispatcher.slot(name, expected);
+            if (slot < 0) {
+                reader.skipValue();
+            } else {
+                expected = slot + 1;
+                readers[slot].read(reader, decoderContext, instanceCreator);
+            }
+        }
+        reader.readEndDocument();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private FieldReader readerFor(PropertyModel propertyModel) {
+        Codec codec = propertyModel.getCachedCodec();
+        FieldReader generic = (reader, context, creator) -> decodeModel(reader, context, creator, propertyModel);
+        if (codec == null) {
+            return generic;
+        }
+
+        if (isDefaultCodec(codec, IntegerCodec.class, org.bson.codecs.IntegerCodec.class, BsonType.INT32)) {
+            return (reader, context, creator) -> {
+                if (reader.getCurrentBsonType() == BsonType.INT32) {
+                    creator.set(reader.readInt32(), propertyModel);
+                } else {
+                    generic.read(reader, context, creator);
+                }
+            };
+        }
+        if (isDefaultCodec(codec, LongCodec.class, org.bson.codecs.LongCodec.class, BsonType.INT64)) {
+            return (reader, context, creator) -> {
+                if (reader.getCurrentBsonType() == BsonType.INT64) {
+                    creator.set(reader.readInt64(), propertyModel);
+                } else {
+                    generic.read(reader, context, creator);
+                }
+            };
+        }
+        if (isDefaultCodec(codec, DoubleCodec.class, org.bson.codecs.DoubleCodec.class, BsonType.DOUBLE)) {
+            return (reader, context, creator) -> {
+                if (reader.getCurrentBsonType() == BsonType.DOUBLE) {
+                    creator.set(reader.readDouble(), propertyModel);
+                } else {
+                    generic.read(reader, context, creator);
+                }
+            };
+        }
+        if (codec.getClass() == BooleanCodec.class || codec.getClass() == org.bson.codecs.BooleanCodec.class) {
+            return (reader, context, creator) -> {
+                if (reader.getCurrentBsonType() == BsonType.BOOLEAN) {
+                    creator.set(reader.readBoolean(), propertyModel);
+                } else {
+                    generic.read(reader, context, creator);
+                }
+            };
+        }
+        if (isDefaultCodec(codec, StringCodec.class, org.bson.codecs.StringCodec.class, BsonType.STRING)) {
+            return (reader, context, creator) -> {
+                if (reader.getCurrentBsonType() == BsonType.STRING) {
+                    creator.set(reader.readString(), propertyModel);
+                } else {
+                    generic.read(reader, context, creator);
+                }
+            };
+        }
+        return generic;
+    }
+
+    @FunctionalInterface
+    private interface FieldReader {
+        void read(BsonReader reader, DecoderContext context, MarsInstanceCreator creator);
+    }
+}
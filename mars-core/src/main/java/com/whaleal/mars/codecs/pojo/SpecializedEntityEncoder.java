@@ -0,0 +1,190 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.pojo;
+
+import com.whaleal.mars.codecs.internal.BooleanCodec;
+import com.whaleal.mars.codecs.internal.DoubleCodec;
+import com.whaleal.mars.codecs.internal.IntegerCodec;
+import com.whaleal.mars.codecs.internal.LongCodec;
+import com.whaleal.mars.codecs.internal.StringCodec;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.EncoderContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.whaleal.mars.codecs.pojo.EntityEncoder.isDefaultCodec;
+
+/**
+ * 针对单个 EntityModel 预先生成写入步骤的 Encoder
+ * <p>
+ * 构建时为每个属性确定写入方式 : 基本类型、包装类型及 String 在使用默认 codec 时直接调用 BsonWriter 对应的方法 ,
+ * 其余属性按照 EntityEncoder 相同的方式通过 codec 写入
+ * 实例的实际类型与模型不一致 (子类等) 时 退回到 EntityEncoder
+ *
+ * @see com.whaleal.mars.codecs.MongoMappingContext#setCodecGeneration(boolean)
+ */
+class SpecializedEntityEncoder extends EntityEncoder {
+
+    private final FieldWriter[] writers;
+
+    SpecializedEntityEncoder(MarsCodec<?> marsCodec) {
+        super(marsCodec);
+        EntityModel<?> model = marsCodec.getEntityModel();
+        PropertyModel<?> idModel = model.getIdProperty();
+        List<FieldWriter> plan = new ArrayList<>();
+        for (PropertyModel<?> propertyModel : model.getPropertyModels()) {
+            if (!propertyModel.equals(idModel)) {
+                plan.add(writerFor(propertyModel));
+            }
+        }
+        this.writers = plan.toArray(new FieldWriter[0]);
+    }
+
+    @Override
+    protected void encodeEntity(BsonWriter writer, Object value, EncoderContext encoderContext) {
+        EntityModel<?> model = getMarsCodec().getEntityModel();
+        if (value.getClass() != model.getType()) {
+            super.encodeEntity(writer, value, encoderContext);
+            return;
+        }
+
+        writer.writeStartDocument();
+        encodeIdProperty(writer, value, encoderContext, model.getIdProperty());
+        if (model.useDiscriminator()) {
+            writer.writeString(model.getDiscriminatorKey(), model.getDiscriminator());
+        }
+        for (FieldWriter fieldWriter : writers) {
+            fieldWriter.write(writer, value, encoderContext);
+        }
+        writer.writeEndDocument();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static FieldWriter writerFor(PropertyModel propertyModel) {
+        String name = propertyModel.getWriteName();
+        Codec codec = propertyModel.getCachedCodec();
+        boolean defaultSerialization = propertyModel.getPropertySerialization() instanceof PropertyModelSerializationImpl;
+
+        if (codec != null && defaultSerialization && propertyModel.getPropertyAccessor() instanceof PropertyAccessorImpl) {
+            PropertyAccessorImpl<?> accessor = (PropertyAccessorImpl<?>) propertyModel.getPropertyAccessor();
+
+            if (isDefaultCodec(codec, IntegerCodec.class, org.bson.codecs.IntegerCodec.class, BsonType.INT32)) {
+                if (accessor.hasIntGetter()) {
+                    return (writer, instance, context) -> {
+                        writer.writeName(name);
+                        writer.writeInt32(accessor.getInt(instance));
+                    };
+                }
+                return (writer, instance, context) -> {
+                    Integer value = (Integer) accessor.get(instance);
+                    if (value != null) {
+                        writer.writeName(name);
+                        writer.writeInt32(value);
+                    }
+                };
+            }
+            if (isDefaultCodec(codec, LongCodec.class, org.bson.codecs.LongCodec.class, BsonType.INT64)) {
+                if (accessor.hasLongGetter()) {
+                    return (writer, instance, context) -> {
+                        writer.writeName(name);
+                        writer.writeInt64(accessor.getLong(instance));
+                    };
+                }
+                return (writer, instance, context) -> {
+                    Long value = (Long) accessor.get(instance);
+                    if (value != null) {
+                        writer.writeName(name);
+                        writer.writeInt64(value);
+                    }
+                };
+            }
+            if (isDefaultCodec(codec, DoubleCodec.class, org.bson.codecs.DoubleCodec.class, BsonType.DOUBLE)) {
+                if (accessor.hasDoubleGetter()) {
+                    return (writer, instance, context) -> {
+                        writer.writeName(name);
+                        writer.writeDouble(accessor.getDouble(instance));
+                    };
+                }
+                return (writer, instance, context) -> {
+                    Double value = (Double) accessor.get(instance);
+                    if (value != null) {
+                        writer.writeName(name);
+                        writer.writeDouble(value);
+                    }
+                };
+            }
+            if (codec.getClass() == BooleanCodec.class || codec.getClass() == org.bson.codecs.BooleanCodec.class) {
+                if (accessor.hasBooleanGetter()) {
+                    return (writer, instance, context) -> {
+                        writer.writeName(name);
+                        writer.writeBoolean(accessor.getBoolean(instance));
+                    };
+                }
+                return (writer, instance, context) -> {
+                    Boolean value = (Boolean) accessor.get(instance);
+                    if (value != null) {
+                        writer.writeName(name);
+                        writer.writeBoolean(value);
+                    }
+                };
+            }
+            if (isDefaultCodec(codec, StringCodec.class, org.bson.codecs.StringCodec.class, BsonType.STRING)) {
+                return (writer, instance, context) -> {
+                    String value = (String) accessor.get(instance);
+                    if (value != null) {
+                        writer.writeName(name);
+                        writer.writeString(value);
+                    }
+                };
+            }
+        }
+
+        // 通用的写入方式 , 与 EntityEncoder#encodeValue 一致
+        return (writer, instance, context) -> {
+            Object value = propertyModel.getPropertyAccessor().get(instance);
+            if (propertyModel.shouldSerialize(value)) {
+                writer.writeName(name);
+                if (value == null) {
+                    writer.writeNull();
+                } else {
+                    context.encodeWithChildContext(propertyModel.getCachedCodec(), writer, value);
+                }
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter {
+        void write(BsonWriter writer, Object instance, EncoderContext context);
+    }
+}
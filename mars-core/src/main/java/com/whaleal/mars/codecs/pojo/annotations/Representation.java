@@ -34,6 +34,12 @@ import org.bson.BsonType;
 import java.lang.annotation.*;
 
 /**
+ * 指定属性在数据库中的存储类型
+ * <p>
+ * int[] long[] float[] double[] 及元素为其包装类型的集合 可以指定为 {@link BsonType#BINARY} ,
+ * 整个数组存为一个紧凑的二进制 (小端序 , 升序的 long[] 使用差值编码) , 体积更小 , 编解码更快 ,
+ * 但无法再按元素查询 , 见 {@link com.whaleal.mars.codecs.internal.PackedArrays}
+ *
  * @author wh
  */
 @Documented
@@ -33,6 +33,7 @@ import org.bson.*;
 import org.bson.codecs.Codec;
 import org.bson.codecs.EncoderContext;
 import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.Binary;
 import org.bson.types.Decimal128;
 import org.bson.types.ObjectId;
 
@@ -103,12 +104,17 @@ public class DocumentWriter implements BsonWriter {
 
     @Override
     public void writeBinaryData(BsonBinary binary) {
-        state.value(binary);
+        state.value(toBinary(binary));
     }
 
     @Override
     public void writeBinaryData(String name, BsonBinary binary) {
-        state.name(name).value(binary);
+        state.name(name).value(toBinary(binary));
+    }
+
+    // 与从数据库中读取的 Document 一致 , 二进制数据保存为 Binary , DocumentReader 才能识别其类型
+    private static Binary toBinary(BsonBinary binary) {
+        return new Binary(binary.getType(), binary.getData());
     }
 
     @Override
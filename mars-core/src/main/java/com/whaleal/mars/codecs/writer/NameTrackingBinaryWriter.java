@@ -0,0 +1,83 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.codecs.writer;
+
+import org.bson.BsonBinaryWriter;
+import org.bson.io.BsonOutput;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 直接写出 BSON 字节的 writer , 同时记录同一层文档中是否出现了重复的字段名
+ * <p>
+ * {@link DocumentWriter} 会把同名的子文档合并 (如 Match 中同一字段的多个条件) ,
+ * 直接写出字节时无法合并 , 调用方可以据此退回 DocumentWriter
+ */
+public class NameTrackingBinaryWriter extends BsonBinaryWriter {
+
+    private final Deque< Set< String > > names = new ArrayDeque<>();
+
+    private boolean duplicateNames;
+
+    public NameTrackingBinaryWriter( BsonOutput bsonOutput ) {
+        super(bsonOutput);
+    }
+
+    /**
+     * 是否在同一层文档中写入过相同的字段名
+     */
+    public boolean hasDuplicateNames() {
+        return duplicateNames;
+    }
+
+    @Override
+    public void writeName( String name ) {
+        super.writeName(name);
+        Set< String > current = names.peek();
+        if (current != null && !current.add(name)) {
+            duplicateNames = true;
+        }
+    }
+
+    @Override
+    public void writeStartDocument() {
+        super.writeStartDocument();
+        names.push(new HashSet<>());
+    }
+
+    @Override
+    public void writeEndDocument() {
+        super.writeEndDocument();
+        names.poll();
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.core.query;
+
+import com.whaleal.icefrog.core.lang.Precondition;
+import org.bson.BsonArray;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonNull;
+import org.bson.BsonValue;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset (seek) 分页的位置信息
+ * <p>
+ * 记录上一页最后一条数据在各个排序字段上的取值 , 下一页通过范围条件直接定位 , 不再依赖 skip
+ * 对于排序 a asc , b desc , _id asc 生成的条件为
+ * <pre>
+ * { $or : [ { a : { $gt : va } } ,
+ *           { a : va , b : { $lt : vb } } ,
+ *           { a : va , b : vb , _id : { $gt : vid } } ] }
+ * </pre>
+ * 排序中不包含 _id 时会自动追加 _id 升序作为唯一的 tiebreaker
+ * <p>
+ * $gt / $lt 只匹配同一类型的值 , 而 null 与缺失字段在排序中排在最前 , 因此取值为 null 的位置单独处理
+ * <ul>
+ * <li>升序且位置为 null 时 , 之后的数据为 { a : { $ne : null } }</li>
+ * <li>降序且位置为 null 时 , 之后没有数据 , 该分支直接省略</li>
+ * <li>降序且位置不为 null 时 , 之后的数据还包含 a 为 null 的文档 , 即 { $or : [ { a : { $lt : va } } , { a : null } ] }</li>
+ * </ul>
+ * <p>
+ * token 为位置文档 BSON 字节的 url safe base64 编码 , 保留了字段的原始 BSON 类型
+ */
+public class KeysetCursor {
+
+    private static final String ID_KEY = "_id";
+
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    private final BsonDocument position;
+
+    public KeysetCursor( BsonDocument position ) {
+        Precondition.notNull(position, "Position must not be null!");
+        this.position = position;
+    }
+
+    /**
+     * 解析 {@link #toToken()} 生成的 token
+     *
+     * @param token must not be {@literal null} or empty.
+     * @return the cursor
+     */
+    public static KeysetCursor parse( String token ) {
+        Precondition.hasText(token, "Token must not be empty or null!");
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+            return new KeysetCursor(CODEC.decode(reader, DecoderContext.builder().build()));
+        }
+    }
+
+    /**
+     * 为排序追加 _id 作为 tiebreaker , 原有的 Sort 不会被修改
+     *
+     * @param sort must not be {@literal null}.
+     * @return 一定包含 _id 的排序
+     */
+    public static Sort withTiebreaker( Sort sort ) {
+        Precondition.notNull(sort, "Sort must not be null!");
+        for (Sort.SortType sortType : sort.getSorts()) {
+            Precondition.isTrue(sortType.getDirection() != Sort.Direction.META,
+                    "Keyset pagination does not support $meta sort on " + sortType.getField());
+            if (ID_KEY.equals(sortType.getField())) {
+                return sort;
+            }
+        }
+        return Sort.by(new ArrayList<>(sort.getSorts())).ascending(ID_KEY);
+    }
+
+    public BsonDocument getPosition() {
+        return position;
+    }
+
+    public String toToken() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            CODEC.encode(writer, position, EncoderContext.builder().build());
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.toByteArray());
+    }
+
+    /**
+     * 生成定位到该位置之后的范围条件
+     *
+     * @param sort 由 {@link #withTiebreaker(Sort)} 得到的排序
+     * @return the filter
+     */
+    public BsonDocument toFilter( Sort sort ) {
+        List< Sort.SortType > sorts = withTiebreaker(sort).getSorts();
+        BsonArray or = new BsonArray();
+
+        for (int i = 0; i < sorts.size(); i++) {
+            BsonDocument branch = new BsonDocument();
+            for (int j = 0; j < i; j++) {
+                String field = sorts.get(j).getField();
+                branch.append(field, valueOf(field));
+            }
+            Sort.SortType current = sorts.get(i);
+            if (appendAfter(branch, current)) {
+                or.add(branch);
+            }
+
+            // _id 唯一 , 其后的排序字段没有意义
+            if (ID_KEY.equals(current.getField())) {
+                break;
+            }
+        }
+
+        return new BsonDocument("$or", or);
+    }
+
+    /**
+     * 向分支中追加 排在该字段当前取值之后 的条件
+     *
+     * @return 该分支能否匹配到数据 , 降序且取值为 null 时返回 false
+     */
+    private boolean appendAfter( BsonDocument branch, Sort.SortType sortType ) {
+        String field = sortType.getField();
+        BsonValue value = valueOf(field);
+        boolean descending = sortType.getDirection() == Sort.Direction.DESCENDING;
+
+        if (value.isNull()) {
+            if (descending) {
+                return false;
+            }
+            branch.append(field, new BsonDocument("$ne", BsonNull.VALUE));
+            return true;
+        }
+
+        if (descending) {
+            // 同一分支中只有当前字段需要 $or , 不会与其它条件冲突
+            branch.append("$or", new BsonArray(Arrays.asList(
+                    new BsonDocument(field, new BsonDocument("$lt", value)),
+                    new BsonDocument(field, BsonNull.VALUE))));
+        } else {
+            branch.append(field, new BsonDocument("$gt", value));
+        }
+        return true;
+    }
+
+    private BsonValue valueOf( String field ) {
+        BsonValue value = position.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("Continuation token does not contain sort field " + field);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{" + position.toJson() + "}";
+    }
+}
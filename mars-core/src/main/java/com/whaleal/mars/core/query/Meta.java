@@ -278,11 +278,15 @@ public class Meta {
 
         /**
          * Sets the cursor to return all data returned by the query at once rather than splitting the results into batches.
+         * <p>
+         * Not supported by the driver, running a find with this flag throws {@link IllegalArgumentException}.
          */
         EXHAUST,
 
         /**
          * Allows querying of a replica.
+         * <p>
+         * Ignored by find operations, see {@link #SECONDARY_READS}.
          *
          * @deprecated since 3.0.2, use {@link #SECONDARY_READS} instead.
          */
@@ -292,7 +296,9 @@ public class Meta {
         /**
          * Allows querying of a replica.
          * <p>
-         * .2
+         * The find command has no such cursor flag, so this option is ignored when the query runs. Which member is
+         * read from is decided only by the {@link com.mongodb.ReadPreference} of the collection, set through
+         * {@code @Concern(readPreference = ...)} or {@code setReadPreference}.
          */
         SECONDARY_READS,
 
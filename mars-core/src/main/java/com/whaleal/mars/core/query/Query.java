@@ -403,10 +403,11 @@ public class Query {
 
     /**
      * Allows querying of a replica.
+     * <p>
+     * Ignored when the query runs, use a {@link com.mongodb.ReadPreference} instead.
      *
      * @return this.
      * @see Meta.CursorOption#SECONDARY_READS
-     * .2
      */
     public Query allowSecondaryReads() {
 
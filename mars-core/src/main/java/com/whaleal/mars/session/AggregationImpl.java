@@ -29,21 +29,28 @@
  */
 package com.whaleal.mars.session;
 
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.LazyEntity;
 import com.whaleal.mars.codecs.writer.DocumentWriter;
 import com.whaleal.mars.core.aggregation.AggregationPipeline;
 import com.whaleal.mars.core.aggregation.stages.Stage;
 import com.whaleal.mars.session.option.AggregationOptions;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.bson.codecs.Codec;
 import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
 public abstract class AggregationImpl {
 
     protected  MongoMappingContext mapper;
@@ -62,6 +69,23 @@ public abstract class AggregationImpl {
         this.mapper = mapper ;
     }
 
+    /**
+     * 共享上层实例的 mapper 及 database
+     * 不再重新构建 MongoMappingContext 及 codecRegistry
+     */
+    protected AggregationImpl(AggregationImpl parent){
+        this.database = parent.database;
+        this.mapper = parent.mapper;
+    }
+
+    /**
+     * 当前操作绑定的 ClientSession
+     * 返回 null 时 不显式传递 session ,由驱动使用隐式会话
+     */
+    protected ClientSession getClientSession() {
+        return null;
+    }
+
 
     /**
      * 如有类型 需要定义需要在这里传参
@@ -131,7 +155,14 @@ public abstract class AggregationImpl {
         }
 
 
-        MongoCursor<T> cursor = collection.aggregate(getDocuments(pipeline.getInnerStage()), resultType).iterator();
+        ClientSession session = this.getClientSession();
+
+        MongoCursor<T> cursor;
+        if (session == null) {
+            cursor = collection.aggregate(getDocuments(pipeline.getInnerStage()), resultType).iterator();
+        } else {
+            cursor = collection.aggregate(session, getDocuments(pipeline.getInnerStage()), resultType).iterator();
+        }
 
         return new QueryCursor<T>(cursor);
 
@@ -139,17 +170,69 @@ public abstract class AggregationImpl {
     }
 
 
+    public <T> QueryCursor<LazyEntity<T>> aggregateLazy(AggregationPipeline<T> pipeline) {
+        return this.aggregateLazy(pipeline, null, null);
+    }
+
+    /**
+     * 结果读取为 {@link LazyEntity} , 属性在访问时才解码
+     * 输出类型需要是实体类型
+     */
+    public <T> QueryCursor<LazyEntity<T>> aggregateLazy(AggregationPipeline<T> pipeline, String collectionName, AggregationOptions options) {
+
+        Class< T > resultType = pipeline.getOutputType();
+
+        String collName = this.mapper.determineCollectionName(resultType, collectionName);
+
+        MongoCollection<LazyEntity<T>> collection = lazyCollection(this.database.getCollection(collName), resultType);
+
+        if (options != null) {
+            collection = options.prepare(collection);
+        }
+
+        ClientSession session = this.getClientSession();
+
+        MongoCursor<LazyEntity<T>> cursor;
+        if (session == null) {
+            cursor = collection.aggregate(getDocuments(pipeline.getInnerStage())).iterator();
+        } else {
+            cursor = collection.aggregate(session, getDocuments(pipeline.getInnerStage())).iterator();
+        }
+
+        return new QueryCursor<LazyEntity<T>>(cursor);
+    }
+
+    /**
+     * 在集合原有的 codecRegistry 之前加入 LazyEntity 的 codec , 结果只保留原始字节
+     */
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private List<Document> getDocuments(List<Stage> stages) {
+    protected <T> MongoCollection<LazyEntity<T>> lazyCollection(MongoCollection<?> collection, Class<T> entityClass) {
+        return (MongoCollection) collection
+                .withCodecRegistry(fromRegistries(fromCodecs(mapper.getLazyEntityCodec(entityClass)), collection.getCodecRegistry()))
+                .withDocumentClass(LazyEntity.class);
+    }
+
+    private List<Bson> getDocuments(List<Stage> stages) {
         return stages.stream()
-                .map(s -> {
-                    Codec codec = mapper.getCodecRegistry().get(s.getClass());
-                    DocumentWriter writer = new DocumentWriter();
-                    codec.encode(writer, s, EncoderContext.builder().build());
-                    return writer.getDocument();
-                })
+                .map(this::getDocument)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 阶段直接编码为 RawBsonDocument , 驱动发送时不再重新编码
+     * 同一层出现重复的字段名时 (如 Match 中同一字段的多个条件) 需要合并 , 仍然通过 DocumentWriter 编码
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Bson getDocument(Stage stage) {
+        RawBsonDocument document = mapper.toRawDocument(stage, true);
+        if (document != null) {
+            return document;
+        }
+        Codec codec = mapper.getCodecRegistry().get(stage.getClass());
+        DocumentWriter writer = new DocumentWriter();
+        codec.encode(writer, stage, EncoderContext.builder().build());
+        return writer.getDocument();
+    }
+
 
 }
@@ -0,0 +1,285 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.session;
+
+import com.whaleal.mars.core.aggregation.AggregationPipeline;
+import com.whaleal.mars.core.query.Query;
+import com.whaleal.mars.core.query.Sort;
+import com.whaleal.mars.core.query.UpdateDefinition;
+import com.whaleal.mars.session.option.AggregationOptions;
+import com.whaleal.mars.session.result.DeleteResult;
+import com.whaleal.mars.session.result.InsertManyResult;
+import com.whaleal.mars.session.result.InsertOneResult;
+import com.whaleal.mars.session.result.UpdateResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.whaleal.icefrog.core.lang.Precondition.notNull;
+
+/**
+ * Datastore 的异步视图
+ * <p>
+ * 所有操作都在给定的 Executor 上执行 , 返回 CompletableFuture
+ * 多个相互独立的查询可以同时发出 , 再通过 {@link #allOf(CompletableFuture[])} 汇总 , 总耗时取决于最慢的一个
+ * <p>
+ * 通过 {@link MarsSession} 获取时 , 所有操作都绑定在该 session 上 ,
+ * 由于 ClientSession 不是线程安全的 , 这些操作会按照提交顺序依次执行
+ * <p>
+ * 未列出的方法可以通过 {@link #supply(Function)} 执行
+ *
+ * @see DatastoreImpl#async()
+ */
+public class AsyncDatastore {
+
+    private final DatastoreImpl datastore;
+
+    private final Executor executor;
+
+    AsyncDatastore( DatastoreImpl datastore, Executor executor ) {
+        notNull(datastore, "Datastore must not be null!");
+        notNull(executor, "Executor must not be null!");
+        this.datastore = datastore;
+        this.executor = datastore.getClientSession() == null ? executor : new SerialExecutor(executor);
+    }
+
+    /**
+     * 在 Executor 上执行任意的 Datastore 操作
+     */
+    public < R > CompletableFuture< R > supply( Function< ? super DatastoreImpl, R > operation ) {
+        notNull(operation, "Operation must not be null!");
+        try {
+            return CompletableFuture.supplyAsync(() -> operation.apply(datastore), executor);
+        } catch (RejectedExecutionException e) {
+            return rejected(e);
+        }
+    }
+
+    public CompletableFuture< Void > run( Consumer< ? super DatastoreImpl > operation ) {
+        notNull(operation, "Operation must not be null!");
+        try {
+            return CompletableFuture.runAsync(() -> operation.accept(datastore), executor);
+        } catch (RejectedExecutionException e) {
+            return rejected(e);
+        }
+    }
+
+    /**
+     * Executor 拒绝任务时 (例如线程池已关闭) 通过返回的 CompletableFuture 传递异常
+     */
+    private static < R > CompletableFuture< R > rejected( RejectedExecutionException e ) {
+        CompletableFuture< R > future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    public < T > CompletableFuture< Optional< T > > findOne( Query query, Class< T > entityClass ) {
+        return supply(ds -> ds.findOne(query, entityClass));
+    }
+
+    public < T > CompletableFuture< Optional< T > > findOne( Query query, Class< T > entityClass, String collectionName ) {
+        return supply(ds -> ds.findOne(query, entityClass, collectionName));
+    }
+
+    /**
+     * 与 {@link Datastore#findAll(Query, Class)} 不同 , 游标会在 Executor 上读取完毕并关闭
+     */
+    public < T > CompletableFuture< List< T > > findAll( Query query, Class< T > entityClass ) {
+        return supply(ds -> ds.findAll(query, entityClass).toList());
+    }
+
+    public < T > CompletableFuture< List< T > > findAll( Query query, Class< T > entityClass, String collectionName ) {
+        return supply(ds -> ds.findAll(query, entityClass, collectionName).toList());
+    }
+
+    public < T > CompletableFuture< Page< T > > findPage( Query query, Sort sort, String continuationToken, int pageSize, Class< T > entityClass ) {
+        return supply(ds -> ds.findPage(query, sort, continuationToken, pageSize, entityClass));
+    }
+
+    public < T > CompletableFuture< Long > count( Class< T > entityClass ) {
+        return supply(ds -> ds.count(entityClass));
+    }
+
+    public < T > CompletableFuture< Long > countById( Query query, Class< T > entityClass ) {
+        return supply(ds -> ds.countById(query, entityClass));
+    }
+
+    public < T > CompletableFuture< InsertOneResult > insert( T entity ) {
+        return supply(ds -> ds.insert(entity));
+    }
+
+    public < T > CompletableFuture< InsertManyResult > insert( Collection< ? extends T > entities, Class< ? > entityClass ) {
+        return supply(ds -> ds.insert(entities, entityClass));
+    }
+
+    public < T > CompletableFuture< T > save( T entity ) {
+        return supply(ds -> ds.save(entity));
+    }
+
+    public < T > CompletableFuture< List< T > > save( Collection< ? extends T > entities ) {
+        return supply(ds -> ds.save(entities));
+    }
+
+    public < T > CompletableFuture< UpdateResult > update( Query query, UpdateDefinition update, Class< T > entityClass ) {
+        return supply(ds -> ds.update(query, update, entityClass));
+    }
+
+    public < T > CompletableFuture< UpdateResult > updateEntity( Query query, T entity ) {
+        return supply(ds -> ds.updateEntity(query, entity));
+    }
+
+    public < T > CompletableFuture< UpdateResult > replace( Query query, T entity ) {
+        return supply(ds -> ds.replace(query, entity));
+    }
+
+    public < T > CompletableFuture< DeleteResult > delete( Query query, Class< T > entityClass ) {
+        return supply(ds -> ds.delete(query, entityClass));
+    }
+
+    public < T > CompletableFuture< T > findAndModify( Query query, UpdateDefinition update, Class< T > entityClass ) {
+        return supply(ds -> ds.findAndModify(query, update, entityClass));
+    }
+
+    public < T > CompletableFuture< T > findAndDelete( Query query, Class< T > entityClass ) {
+        return supply(ds -> ds.findAndDelete(query, entityClass));
+    }
+
+    public < T > CompletableFuture< List< T > > aggregate( AggregationPipeline< T > pipeline ) {
+        return supply(ds -> ds.aggregate(pipeline).toList());
+    }
+
+    public < T > CompletableFuture< List< T > > aggregate( AggregationPipeline< T > pipeline, String collectionName ) {
+        return supply(ds -> ds.aggregate(pipeline, collectionName).toList());
+    }
+
+    public < T > CompletableFuture< List< T > > aggregate( AggregationPipeline< T > pipeline, String collectionName, AggregationOptions options ) {
+        return supply(ds -> ds.aggregate(pipeline, collectionName, options).toList());
+    }
+
+    /**
+     * 等待所有 future 完成 , 按传入顺序返回结果 , 任意一个失败时返回的 future 以该异常结束
+     */
+    @SafeVarargs
+    public static < T > CompletableFuture< List< T > > allOf( CompletableFuture< ? extends T >... futures ) {
+        return allOf(Arrays.asList(futures));
+    }
+
+    public static < T > CompletableFuture< List< T > > allOf( Collection< ? extends CompletableFuture< ? extends T > > futures ) {
+        notNull(futures, "Futures must not be null!");
+        List< CompletableFuture< ? extends T > > copy = new ArrayList<>(futures);
+        return CompletableFuture.allOf(copy.toArray(new CompletableFuture[0]))
+                .thenApply(ignore -> {
+                    List< T > results = new ArrayList<>(copy.size());
+                    for (CompletableFuture< ? extends T > future : copy) {
+                        results.add(future.join());
+                    }
+                    return results;
+                });
+    }
+
+    /**
+     * 按提交顺序依次执行任务 , 同一时间只有一个任务在运行
+     */
+    private static final class SerialExecutor implements Executor {
+
+        private final ArrayDeque< Runnable > tasks = new ArrayDeque<>();
+
+        private final Executor executor;
+
+        // 是否已有任务交给 executor , 只在持有锁时读写
+        private boolean active;
+
+        SerialExecutor( Executor executor ) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute( Runnable command ) {
+            synchronized (this) {
+                tasks.offer(command);
+                if (active) {
+                    return;
+                }
+                active = true;
+            }
+            try {
+                dispatch();
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    tasks.remove(command);
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 在锁外将队首的任务交给 executor , 避免 CallerRunsPolicy 等情况下任务在锁内执行
+         * executor 拒绝时将任务放回队首并重置 active , 之后提交的任务会重新触发执行
+         */
+        private void dispatch() {
+            Runnable next;
+            synchronized (this) {
+                next = tasks.poll();
+                if (next == null) {
+                    active = false;
+                    return;
+                }
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        next.run();
+                    } finally {
+                        try {
+                            dispatch();
+                        } catch (RejectedExecutionException e) {
+                            // 任务已放回队列 , 等待下一次提交时重试
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    tasks.addFirst(next);
+                    active = false;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -33,7 +33,6 @@ import com.mongodb.ClientSessionOptions;
 import com.mongodb.ServerAddress;
 import com.mongodb.TransactionOptions;
 import com.mongodb.client.ClientSession;
-import com.mongodb.client.MongoClient;
 import com.mongodb.client.TransactionBody;
 import com.mongodb.lang.NonNull;
 import com.mongodb.lang.Nullable;
@@ -47,6 +46,8 @@ import org.bson.BsonTimestamp;
  * 主要是通用会话层的实现
  * <p>
  * 具体数据库 操作 还是要看 继承的 DatastoreImpl
+ * 其 mapper  database  codecRegistry 均共享自创建它的 Mars 实例 , 本身只是一个轻量包装
+ * 所有操作均绑定在内部的 clientSession 上
  * <p>
  * 子类为 为 MarsSessionImpl
  *
@@ -57,11 +58,16 @@ public class BaseMarsSesssion extends DatastoreImpl implements MarsSession {
     private final ClientSession session;
 
     BaseMarsSesssion(ClientSession session,
-                     MongoClient mongoClient,
-                     String databaseName) {
-        super(mongoClient,databaseName);
+                     DatastoreImpl parent) {
+        super(parent);
         this.session = session;
     }
+
+    @Override
+    protected ClientSession getClientSession() {
+        return session;
+    }
+
     @Override
     @Nullable
     public ServerAddress getPinnedServerAddress() {
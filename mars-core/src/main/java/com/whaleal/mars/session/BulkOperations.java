@@ -0,0 +1,316 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.session;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.bulk.WriteConcernError;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import com.whaleal.mars.core.query.Query;
+import com.whaleal.mars.core.query.UpdateDefinition;
+import com.whaleal.mars.core.query.UpdatePipeline;
+import com.whaleal.mars.session.option.BulkWriteOptions;
+import com.whaleal.mars.session.result.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.codecs.CollectibleCodec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.whaleal.icefrog.core.lang.Precondition.notNull;
+
+/**
+ * 批量写入操作
+ * <p>
+ * 可以混合 insert  replace  update  upsert  delete 等操作
+ * 调用 execute 时 通过驱动的 bulkWrite 一次性提交
+ * 超过服务端 maxWriteBatchSize 时 自动拆分为多次 bulkWrite
+ * <p>
+ * 有序执行时 任意一次 bulkWrite 出错即停止 , 此前已提交的部分不会回滚 ;
+ * 无序执行时 所有批次都会执行 , 出错时在最后抛出合并后的 MongoBulkWriteException , 错误的下标为在整个批量操作中的下标
+ * 如需要原子性 请在事务中使用
+ *
+ * @param <T> 实体类型
+ */
+public class BulkOperations< T > {
+
+    private final MongoCollection< T > collection;
+
+    private final CollectibleCodec< T > codec;
+
+    private final ClientSession session;
+
+    private final int maxWriteBatchSize;
+
+    private final List< WriteModel< T > > models = new ArrayList<>();
+
+    private BulkWriteOptions options = new BulkWriteOptions();
+
+    BulkOperations( MongoCollection< T > collection, CollectibleCodec< T > codec, ClientSession session, int maxWriteBatchSize ) {
+        this.collection = collection;
+        this.codec = codec;
+        this.session = session;
+        this.maxWriteBatchSize = maxWriteBatchSize;
+    }
+
+    /**
+     * 插入实体 , 未设置 id 时 会在客户端生成 id 并写回实体
+     */
+    public BulkOperations< T > insert( T entity ) {
+        notNull(entity, "Entity must not be null!");
+        models.add(new InsertOneModel<>(entity));
+        return this;
+    }
+
+    /**
+     * 插入多个实体
+     */
+    public BulkOperations< T > insert( Collection< ? extends T > entities ) {
+        notNull(entities, "Entities must not be null!");
+        entities.forEach(this::insert);
+        return this;
+    }
+
+    /**
+     * 根据实体的 id 进行替换
+     */
+    public BulkOperations< T > replace( T entity ) {
+        return replaceById(entity, false);
+    }
+
+    /**
+     * 根据实体的 id 进行替换 , 不存在时插入
+     */
+    public BulkOperations< T > upsert( T entity ) {
+        return replaceById(entity, true);
+    }
+
+    /**
+     * 根据 query 进行替换
+     */
+    public BulkOperations< T > replace( Query query, T entity ) {
+        notNull(query, "Query must not be null!");
+        notNull(entity, "Entity must not be null!");
+        models.add(new ReplaceOneModel<>(query.getQueryObject(), entity, new ReplaceOptions()));
+        return this;
+    }
+
+    /**
+     * 更新 query 匹配的第一条数据
+     */
+    public BulkOperations< T > updateOne( Query query, UpdateDefinition update ) {
+        models.add(updateModel(query, update, false, false));
+        return this;
+    }
+
+    /**
+     * 更新 query 匹配的所有数据
+     */
+    public BulkOperations< T > updateMulti( Query query, UpdateDefinition update ) {
+        models.add(updateModel(query, update, true, false));
+        return this;
+    }
+
+    /**
+     * 更新 query 匹配的第一条数据 , 不存在时插入
+     */
+    public BulkOperations< T > upsert( Query query, UpdateDefinition update ) {
+        models.add(updateModel(query, update, false, true));
+        return this;
+    }
+
+    /**
+     * 删除 query 匹配的第一条数据
+     */
+    public BulkOperations< T > deleteOne( Query query ) {
+        notNull(query, "Query must not be null!");
+        models.add(new DeleteOneModel<>(query.getQueryObject()));
+        return this;
+    }
+
+    /**
+     * 删除 query 匹配的所有数据
+     */
+    public BulkOperations< T > deleteMulti( Query query ) {
+        notNull(query, "Query must not be null!");
+        models.add(new DeleteManyModel<>(query.getQueryObject()));
+        return this;
+    }
+
+    /**
+     * 是否有序执行 , 默认有序
+     */
+    public BulkOperations< T > ordered( boolean ordered ) {
+        this.options.ordered(ordered);
+        return this;
+    }
+
+    public BulkOperations< T > options( BulkWriteOptions options ) {
+        notNull(options, "Options must not be null!");
+        this.options = options;
+        return this;
+    }
+
+    /**
+     * @return 当前已添加的操作数量
+     */
+    public int size() {
+        return models.size();
+    }
+
+    /**
+     * 提交所有操作 , 执行完成后 清空已添加的操作
+     *
+     * @return 合并后的结果
+     */
+    public BulkWriteResult execute() {
+
+        BulkWriteResult result = new BulkWriteResult();
+
+        if (models.isEmpty()) {
+            return result;
+        }
+
+        MongoCollection< T > prepared = options.prepare(collection);
+        boolean ordered = options.getOriginOptions().isOrdered();
+
+        // 各次 bulkWrite 的错误 , 下标均已换算为在整个批量操作中的下标
+        List< BulkWriteError > writeErrors = new ArrayList<>();
+        List< BulkWriteInsert > inserts = new ArrayList<>();
+        MongoBulkWriteException lastError = null;
+        WriteConcernError writeConcernError = null;
+        Set< String > errorLabels = new HashSet<>();
+
+        try {
+            for (int offset = 0; offset < models.size(); offset += maxWriteBatchSize) {
+
+                List< WriteModel< T > > batch = models.subList(offset, Math.min(models.size(), offset + maxWriteBatchSize));
+
+                com.mongodb.bulk.BulkWriteResult originResult;
+                try {
+                    originResult = session == null
+                            ? prepared.bulkWrite(batch, options.getOriginOptions())
+                            : prepared.bulkWrite(session, batch, options.getOriginOptions());
+                } catch (MongoBulkWriteException e) {
+                    // 无序执行时 继续执行其余的批次 , 最后统一抛出
+                    lastError = e;
+                    originResult = e.getWriteResult();
+                    for (BulkWriteError error : e.getWriteErrors()) {
+                        writeErrors.add(new BulkWriteError(error.getCode(), error.getMessage(), error.getDetails(), offset + error.getIndex()));
+                    }
+                    if (writeConcernError == null) {
+                        writeConcernError = e.getWriteConcernError();
+                    }
+                    errorLabels.addAll(e.getErrorLabels());
+                }
+
+                result.merge(originResult, offset);
+                if (originResult.wasAcknowledged()) {
+                    for (BulkWriteInsert insert : originResult.getInserts()) {
+                        inserts.add(new BulkWriteInsert(offset + insert.getIndex(), insert.getId()));
+                    }
+                }
+
+                if (lastError != null && ordered) {
+                    break;
+                }
+            }
+        } finally {
+            models.clear();
+        }
+
+        if (lastError != null) {
+            throw new MongoBulkWriteException(toOriginResult(result, inserts), writeErrors, writeConcernError,
+                    lastError.getServerAddress(), errorLabels);
+        }
+
+        return result;
+    }
+
+    /**
+     * 合并后的结果转换为驱动的结果 , 用于抛出合并后的异常
+     */
+    private static com.mongodb.bulk.BulkWriteResult toOriginResult( BulkWriteResult result, List< BulkWriteInsert > inserts ) {
+        List< BulkWriteUpsert > upserts = new ArrayList<>(result.getUpserts().size());
+        result.getUpserts().forEach(( index, id ) -> upserts.add(new BulkWriteUpsert(index, id)));
+        return com.mongodb.bulk.BulkWriteResult.acknowledged((int) result.getInsertedCount(), (int) result.getMatchedCount(),
+                (int) result.getDeletedCount(), (int) result.getModifiedCount(), upserts, inserts);
+    }
+
+    private BulkOperations< T > replaceById( T entity, boolean upsert ) {
+        notNull(entity, "Entity must not be null!");
+        if (!codec.documentHasId(entity)) {
+            if (!upsert) {
+                throw new IllegalArgumentException("Can't replace an entity without id: " + entity.getClass().getName());
+            }
+            // 没有 id 时 upsert 即为插入
+            models.add(new InsertOneModel<>(entity));
+            return this;
+        }
+        BsonDocument filter = new BsonDocument("_id", codec.getDocumentId(entity));
+        models.add(new ReplaceOneModel<>(filter, entity, new ReplaceOptions().upsert(upsert)));
+        return this;
+    }
+
+    private WriteModel< T > updateModel( Query query, UpdateDefinition update, boolean multi, boolean upsert ) {
+        notNull(query, "Query must not be null!");
+        notNull(update, "Update must not be null!");
+
+        UpdateOptions updateOptions = new UpdateOptions().upsert(upsert);
+        if (update.hasArrayFilters()) {
+            updateOptions.arrayFilters(update.getArrayFilters().stream()
+                    .map(UpdateDefinition.ArrayFilter::toData)
+                    .collect(Collectors.toList()));
+        }
+
+        Document updateObject = update.getUpdateObject();
+
+        if (update instanceof UpdatePipeline && updateObject.containsKey(UpdatePipeline.Updatepipeline)) {
+            @SuppressWarnings("unchecked")
+            List< Document > pipeline = new ArrayList<>((Collection< Document >) updateObject.get(UpdatePipeline.Updatepipeline));
+            return multi
+                    ? new UpdateManyModel<>(query.getQueryObject(), pipeline, updateOptions)
+                    : new UpdateOneModel<>(query.getQueryObject(), pipeline, updateOptions);
+        }
+
+        return multi
+                ? new UpdateManyModel<>(query.getQueryObject(), updateObject, updateOptions)
+                : new UpdateOneModel<>(query.getQueryObject(), updateObject, updateOptions);
+    }
+}
@@ -33,6 +33,7 @@ import com.mongodb.ClientSessionOptions;
 import com.mongodb.lang.Nullable;
 import com.whaleal.icefrog.core.util.ClassUtil;
 import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.LazyEntity;
 import com.whaleal.mars.core.query.*;
 import com.whaleal.mars.session.option.*;
 import com.whaleal.mars.session.result.DeleteResult;
@@ -41,11 +42,13 @@ import com.whaleal.mars.session.result.InsertOneResult;
 import com.whaleal.mars.session.result.UpdateResult;
 import com.whaleal.mars.session.transactions.MarsTransaction;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.whaleal.icefrog.core.lang.Precondition.notNull;
 
@@ -120,6 +123,92 @@ interface Datastore extends IndexOperations, MongoOperations {
 
     < T > QueryCursor< T > findAll( Query query, Class< T > entityClass, String collectionName );
 
+    default < T > QueryCursor< LazyEntity< T > > findAllLazy( Query query, Class< T > entityClass ) {
+        return findAllLazy(query, entityClass, null);
+    }
+
+    /**
+     * 结果读取为 {@link LazyEntity} , 只保留服务端返回的原始字节 , 属性在第一次访问时才解码
+     * 适用于只读取实体中少数几个属性的场景
+     */
+    < T > QueryCursor< LazyEntity< T > > findAllLazy( Query query, Class< T > entityClass, String collectionName );
+
+    default < T > Stream< T > stream( Query query, Class< T > entityClass ) {
+        return stream(query, entityClass, null);
+    }
+
+    /**
+     * 以 Stream 的形式返回查询结果 , 元素按游标批次拉取 , 不会一次性加载到内存中
+     * 调用方需要关闭返回的 Stream (例如 try-with-resources) 以释放服务端游标
+     * 每批拉取的数量由 {@link Query#cursorBatchSize(int)} 控制
+     */
+    default < T > Stream< T > stream( Query query, Class< T > entityClass, String collectionName ) {
+        return findAll(query, entityClass, collectionName).stream();
+    }
+
+    default < T > void forEachBatch( Query query, Class< T > entityClass, int batchSize, Consumer< List< T > > consumer ) {
+        forEachBatch(query, entityClass, null, batchSize, consumer);
+    }
+
+    /**
+     * 按驱动的批次处理查询结果 , 游标的 batchSize 设置为 batchSize , 每次回调正好是服务端返回的一批数据
+     * 传入的 Query 不会被修改 , 游标在处理完毕后关闭
+     *
+     * @see QueryCursor#forEachBatch(int, Consumer)
+     */
+    default < T > void forEachBatch( Query query, Class< T > entityClass, String collectionName, int batchSize, Consumer< List< T > > consumer ) {
+        findAll(Query.of(query).cursorBatchSize(batchSize), entityClass, collectionName).forEachBatch(batchSize, consumer);
+    }
+
+    default < T > Stream< T > parallelScan( Query query, Class< T > entityClass, int partitions ) {
+        return parallelScan(query, entityClass, partitions, (String) null);
+    }
+
+    default < T > Stream< T > parallelScan( Query query, Class< T > entityClass, int partitions, String collectionName ) {
+        return parallelScan(query, entityClass, partitions, collectionName, null);
+    }
+
+    /**
+     * 分区并行扫描
+     * <p>
+     * 先通过 $sample 采样得到 _id 的分割点 , 每个分区使用一个带 _id 范围条件的游标 ,
+     * 各分区的游标在 executor 上同时读取 , 返回的 Stream 按到达顺序输出 , 分区之间不保证顺序
+     * executor 需要能同时运行全部分区 , 为 null 时为本次扫描创建专用线程池 , Stream 关闭后线程池随之关闭
+     * Query 的过滤条件与 projection 等会应用到每个分区上 , 不支持 skip limit 及 collation
+     * 在 session 中执行时 , 由于 ClientSession 不是线程安全的 , 各分区将在调用方线程中依次执行
+     * 调用方需要关闭返回的 Stream 以释放未消费完的游标
+     */
+    < T > Stream< T > parallelScan( Query query, Class< T > entityClass, int partitions, String collectionName, Executor executor );
+
+    default < T > void parallelForEach( Query query, Class< T > entityClass, int partitions, BiConsumer< Integer, T > consumer ) {
+        parallelForEach(query, entityClass, partitions, null, consumer);
+    }
+
+    default < T > void parallelForEach( Query query, Class< T > entityClass, int partitions, String collectionName, BiConsumer< Integer, T > consumer ) {
+        parallelForEach(query, entityClass, partitions, collectionName, null, consumer);
+    }
+
+    /**
+     * 与 {@link #parallelScan(Query, Class, int, String, Executor)} 相同的分区方式 , 回调中会传入分区序号
+     * 同一分区内的数据在同一个线程中按顺序回调 , 全部分区结束后返回
+     */
+    < T > void parallelForEach( Query query, Class< T > entityClass, int partitions, String collectionName, Executor executor, BiConsumer< Integer, T > consumer );
+
+    default < T > Page< T > findPage( Query query, Sort sort, String continuationToken, int pageSize, Class< T > entityClass ) {
+        return findPage(query, sort, continuationToken, pageSize, entityClass, null);
+    }
+
+    /**
+     * Keyset 分页查询 , 第 N 页与第一页的代价相同
+     * <p>
+     * 首页传入 null 作为 continuationToken , 之后传入上一页的 {@link Page#getNextToken()}
+     * 排序中不包含 _id 时会自动追加 _id 升序 , Query 自身的 sort、skip 与 limit 会被忽略
+     * 排序字段不应为 null , 若 Query 含有 projection 需包含所有排序字段
+     *
+     * @see KeysetCursor
+     */
+    < T > Page< T > findPage( Query query, Sort sort, String continuationToken, int pageSize, Class< T > entityClass, String collectionName );
+
     default < T > Optional< T > findOne( Query query, Class< T > entityClass ) {
         return findOne(query, entityClass, null);
     }
@@ -254,17 +343,10 @@ interface Datastore extends IndexOperations, MongoOperations {
 
     /**
      * Saves the entities (Objects) and updates the @Id field
+     * <p>
+     * 未设置 id 的实体 通过一次 insertMany 写入 , 已设置 id 的实体 通过一次无序的 upsert bulkWrite 写入
      */
-    default < T > List< T > save( Collection< ? extends T > entities, InsertManyOptions options, String collectionName ) {
-        if (entities.isEmpty()) {
-            return new ArrayList< T >();
-        }
-        InsertOneOptions insertOneOption = new InsertOneOptions()
-                .bypassDocumentValidation(options.getBypassDocumentValidation())
-                .writeConcern(options.writeConcern());
-        return entities.stream().map(entity -> save(entity, insertOneOption, collectionName)).collect(Collectors.toList());
-    }
-
+    < T > List< T > save( Collection< ? extends T > entities, InsertManyOptions options, String collectionName );
 
     /**
      * Saves an entity (Object) and updates the @Id field
@@ -294,6 +376,20 @@ interface Datastore extends IndexOperations, MongoOperations {
     < T > T save( T entity, InsertOneOptions options, String collectionName );
 
 
+    /**
+     * 创建实体对应集合的批量写入操作
+     * 添加的操作在 execute 时 通过一次 bulkWrite 提交
+     */
+    default < T > BulkOperations< T > bulk( Class< T > entityClass ) {
+        return bulk(entityClass, null);
+    }
+
+    /**
+     * 创建指定集合的批量写入操作
+     * 添加的操作在 execute 时 通过一次 bulkWrite 提交
+     */
+    < T > BulkOperations< T > bulk( Class< T > entityClass, String collectionName );
+
     /**
      * Starts a new session on the server.
      * 提供出去的对外的接口
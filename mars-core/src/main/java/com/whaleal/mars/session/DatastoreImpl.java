@@ -36,6 +36,7 @@ import com.mongodb.client.gridfs.GridFSBuckets;
 import com.mongodb.client.gridfs.GridFSFindIterable;
 import com.mongodb.client.gridfs.model.GridFSFile;
 import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.ValidationAction;
 import com.mongodb.client.model.ValidationLevel;
 
@@ -47,6 +48,8 @@ import com.whaleal.icefrog.log.LogFactory;
 import com.whaleal.mars.codecs.MarsOrmException;
 import com.whaleal.mars.codecs.MongoMappingContext;
 import com.whaleal.mars.codecs.pojo.EntityModel;
+import com.whaleal.mars.codecs.pojo.LazyEntity;
+import com.whaleal.mars.codecs.pojo.MarsCodec;
 import com.whaleal.mars.codecs.pojo.PropertyModel;
 import com.whaleal.mars.codecs.pojo.annotations.CappedAt;
 import com.whaleal.mars.codecs.pojo.annotations.Concern;
@@ -67,7 +70,15 @@ import com.whaleal.mars.session.result.UpdateResult;
 import com.whaleal.mars.core.query.BsonUtil;
 
 import com.whaleal.mars.session.transactions.MarsTransaction;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.CollectibleCodec;
 import org.bson.codecs.EncoderContext;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
@@ -75,10 +86,24 @@ import org.bson.types.ObjectId;
 
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.whaleal.icefrog.core.lang.Precondition.isTrue;
 import static com.whaleal.icefrog.core.lang.Precondition.notNull;
@@ -94,26 +119,59 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
     private static final Log log = LogFactory.get(DatastoreImpl.class);
 
+    // 服务端未返回 maxWriteBatchSize 时 使用的默认值
+    private static final int DEFAULT_MAX_WRITE_BATCH_SIZE = 100000;
+
+    // 并行扫描时 每个分区采样的 _id 数量
+    private static final int SCAN_SAMPLES_PER_PARTITION = 20;
+
+    // 默认异步线程池的队列长度
+    private static final int DEFAULT_ASYNC_QUEUE_SIZE = 1024;
+
     private final Lock lock = new ReentrantLock();
     private final MongoClient mongoClient;
 
     private final GridFSBucket defaultGridFSBucket;
-    //缓存 collectionName
-    private final Map< Class<?> , String > collectionNameCache = new HashMap< Class<?>, String >();
+    //缓存 已经准备好的 collection (codecRegistry 及 读写关注均已处理) , key 为 实体类 集合名称 及 database
+    //session 默认与上层实例共享 , session 自行修改读写关注后改用自己的缓存
+    private volatile ConcurrentMap< CollectionKey, MongoCollection< ? > > collectionCache ;
+
+    // session 对应的上层实例 , 为 null 时 即为 Mars 本身
+    private final DatastoreImpl parent ;
+
+    private volatile int maxWriteBatchSize ;
+
+    private volatile ExecutorService asyncExecutor ;
 
 
     protected DatastoreImpl( MongoClient mongoClient, String databaseName ) {
         super(mongoClient.getDatabase(databaseName));
         this.mongoClient = mongoClient;
+        this.collectionCache = new ConcurrentHashMap<>();
+        this.parent = null;
         defaultGridFSBucket = GridFSBuckets.create(super.database);
     }
 
     protected DatastoreImpl(MongoClient mongoClient ,MongoMappingContext mapper){
         super(mapper.getDatabase(),mapper);
         this.mongoClient = mongoClient ;
+        this.collectionCache = new ConcurrentHashMap<>();
+        this.parent = null;
         this.defaultGridFSBucket = GridFSBuckets.create(super.database);
     }
 
+    /**
+     * session 使用
+     * 直接共享上层实例的 mapper  database  gridFsBucket 及相关缓存
+     */
+    protected DatastoreImpl( DatastoreImpl parent ) {
+        super(parent);
+        this.mongoClient = parent.mongoClient;
+        this.collectionCache = parent.collectionCache;
+        this.parent = parent;
+        this.defaultGridFSBucket = parent.defaultGridFSBucket;
+    }
+
 
 
     protected static com.mongodb.client.model.Collation fromDocument( Document source ) {
@@ -148,7 +206,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
         collection = prepareConcern(collection, options);
         //根据query  去 删除相关数据
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
 //        CrudExecutor executor = CrudExecutorFactory.create(CrudEnum.DELETE);
 
         DeleteResult result = deleteExecute(session, collection, query, options, null);
@@ -160,7 +218,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
     @Override
     public < T > QueryCursor< T > findAll( Query query, Class< T > entityClass, String collectionName ) {
 
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
 
         MongoCollection collection = this.getCollection(entityClass, collectionName);
 
@@ -172,10 +230,247 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
     }
 
+    @Override
+    public < T > QueryCursor< LazyEntity< T > > findAllLazy( Query query, Class< T > entityClass, String collectionName ) {
+
+        ClientSession session = this.getClientSession();
+
+        MongoCollection< LazyEntity< T > > collection = lazyCollection(this.getCollection(entityClass, collectionName), entityClass);
+
+        MongoCursor< LazyEntity< T > > iterator = findAllExecute(session, collection, query, null, null);
+
+        return new QueryCursor< LazyEntity< T > >(iterator, LazyEntity.class);
+
+    }
+
+    @Override
+    public < T > Page< T > findPage( Query query, Sort sort, String continuationToken, int pageSize, Class< T > entityClass, String collectionName ) {
+        notNull(query, "Query must not be null!");
+        notNull(sort, "Sort must not be null!");
+        notNull(entityClass, "EntityClass must not be null!");
+        isTrue(pageSize > 0, "PageSize must be greater than 0!");
+
+        Sort keysetSort = KeysetCursor.withTiebreaker(sort);
+
+        Bson filter = query.getQueryObject();
+        if (StrUtil.hasText(continuationToken)) {
+            filter = Filters.and(filter, KeysetCursor.parse(continuationToken).toFilter(keysetSort));
+        }
+
+        ClientSession session = this.getClientSession();
+        MongoCollection< T > collection = this.getCollection(entityClass, collectionName);
+        FindIterable< T > findIterable = session == null ? collection.find(filter) : collection.find(session, filter);
+
+        // 多取一条用于判断是否还有下一页
+        findIterable = prepareFind(findIterable, query)
+                .sort(keysetSort.getSortObject())
+                .limit(pageSize + 1);
+
+        List< T > content = new ArrayList<>(pageSize + 1);
+        try (MongoCursor< T > cursor = findIterable.iterator()) {
+            while (cursor.hasNext()) {
+                content.add(cursor.next());
+            }
+        }
+
+        if (content.size() <= pageSize) {
+            return new Page<>(content, null);
+        }
+
+        content.remove(pageSize);
+        return new Page<>(content, keysetCursorOf(content.get(pageSize - 1), keysetSort).toToken());
+    }
+
+    @Override
+    public < T > Stream< T > parallelScan( Query query, Class< T > entityClass, int partitions, String collectionName, Executor executor ) {
+        notNull(entityClass, "EntityClass must not be null!");
+
+        List< Bson > filters = scanPartitions(query, entityClass, partitions, collectionName);
+        ClientSession session = this.getClientSession();
+        MongoCollection< T > collection = this.getCollection(entityClass, collectionName);
+
+        if (session != null || filters.size() == 1) {
+            // ClientSession 不是线程安全的 , 各分区在调用方线程中依次读取
+            return filters.stream().flatMap(filter -> scanPartition(session, collection, filter, query, entityClass).stream());
+        }
+
+        List< Supplier< QueryCursor< T > > > cursors = new ArrayList<>(filters.size());
+        for (Bson filter : filters) {
+            cursors.add(() -> scanPartition(null, collection, filter, query, entityClass));
+        }
+        if (executor != null) {
+            return new PartitionedScan<>(cursors, executor, () -> { }).stream();
+        }
+        ExecutorService scanExecutor = newScanExecutor(filters.size());
+        return new PartitionedScan<>(cursors, scanExecutor, scanExecutor::shutdown).stream();
+    }
+
+    @Override
+    public < T > void parallelForEach( Query query, Class< T > entityClass, int partitions, String collectionName, Executor executor, BiConsumer< Integer, T > consumer ) {
+        notNull(entityClass, "EntityClass must not be null!");
+        notNull(consumer, "Consumer must not be null!");
+
+        List< Bson > filters = scanPartitions(query, entityClass, partitions, collectionName);
+        ClientSession session = this.getClientSession();
+        MongoCollection< T > collection = this.getCollection(entityClass, collectionName);
+
+        if (session != null || filters.size() == 1) {
+            for (int i = 0; i < filters.size(); i++) {
+                forEachInPartition(session, collection, filters.get(i), query, entityClass, i, consumer);
+            }
+            return;
+        }
+
+        ExecutorService scanExecutor = executor == null ? newScanExecutor(filters.size()) : null;
+        try {
+            CompletableFuture< ? >[] futures = new CompletableFuture< ? >[filters.size()];
+            for (int i = 0; i < filters.size(); i++) {
+                int partition = i;
+                futures[i] = CompletableFuture.runAsync(
+                        () -> forEachInPartition(null, collection, filters.get(partition), query, entityClass, partition, consumer),
+                        scanExecutor != null ? scanExecutor : executor);
+            }
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            if (scanExecutor != null) {
+                scanExecutor.shutdown();
+            }
+        }
+    }
+
+    private < T > void forEachInPartition( ClientSession session, MongoCollection< T > collection, Bson filter, Query query,
+                                          Class< T > entityClass, int partition, BiConsumer< Integer, T > consumer ) {
+        try (QueryCursor< T > cursor = scanPartition(session, collection, filter, query, entityClass)) {
+            while (cursor.hasNext()) {
+                consumer.accept(partition, cursor.next());
+            }
+        }
+    }
+
+    /**
+     * 未指定 Executor 时 为本次扫描创建的线程池 , 每个分区一个线程 , 扫描结束后关闭
+     */
+    private static ExecutorService newScanExecutor( int partitions ) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(partitions, runnable -> {
+            Thread thread = new Thread(runnable, "mars-scan-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private < T > QueryCursor< T > scanPartition( ClientSession session, MongoCollection< T > collection, Bson filter, Query query, Class< T > entityClass ) {
+        FindIterable< T > findIterable = session == null ? collection.find(filter) : collection.find(session, filter);
+        findIterable = prepareFind(findIterable, query);
+        return new QueryCursor< T >(findIterable.iterator(), entityClass);
+    }
+
+    /**
+     * 计算每个分区的过滤条件
+     * <p>
+     * 通过 $sample 采样 _id , 按分位数取分割点 , 第一个分区与最后一个分区不设下界与上界
+     * 分割点与范围条件都按 _id 的二进制顺序比较 , 因此不支持 collation
+     * 范围查询在服务端是按类型区分的 ( 数值类型之间可以比较 ) , 因此第一个分区额外包含范围查询比较不到的 _id
+     * 采样到的 _id 类型不一致或数量不足时退化为单个分区
+     */
+    private < T > List< Bson > scanPartitions( Query query, Class< T > entityClass, int partitions, String collectionName ) {
+        notNull(query, "Query must not be null!");
+        isTrue(partitions > 0, "Partitions must be greater than 0!");
+        isTrue(query.getSkip() <= 0 && query.getLimit() <= 0, "Parallel scan does not support skip or limit.");
+        // 分割点按 _id 的二进制顺序计算 , 带 collation 的范围条件会按另一种顺序比较字符串 , 分区之间可能重叠或遗漏
+        isTrue(!query.getCollation().isPresent(), "Parallel scan does not support collation.");
+
+        Document queryObject = query.getQueryObject();
+        if (partitions == 1) {
+            return Collections.singletonList(queryObject);
+        }
+
+        List< Bson > pipeline = new ArrayList<>();
+        if (!queryObject.isEmpty()) {
+            pipeline.add(new Document("$match", queryObject));
+        }
+        pipeline.add(new Document("$sample", new Document("size", partitions * SCAN_SAMPLES_PER_PARTITION)));
+        pipeline.add(new Document("$project", new Document("_id", 1)));
+        pipeline.add(new Document("$sort", new Document("_id", 1)));
+
+        ClientSession session = this.getClientSession();
+        MongoCollection< BsonDocument > collection = this.getCollection(entityClass, collectionName).withDocumentClass(BsonDocument.class);
+        AggregateIterable< BsonDocument > samples = session == null
+                ? collection.aggregate(pipeline)
+                : collection.aggregate(session, pipeline);
+
+        List< BsonValue > ids = new ArrayList<>();
+        for (BsonDocument sample : samples.allowDiskUse(true)) {
+            ids.add(sample.get("_id"));
+        }
+
+        List< BsonValue > splits = new ArrayList<>();
+        for (int i = 1; i < partitions && !ids.isEmpty(); i++) {
+            BsonValue split = ids.get(ids.size() * i / partitions);
+            if (splits.isEmpty() || !splits.get(splits.size() - 1).equals(split)) {
+                splits.add(split);
+            }
+        }
+
+        if (splits.isEmpty() || splits.stream().map(DatastoreImpl::typeBracket).distinct().count() > 1) {
+            if (log.isDebugEnabled()) {
+                log.debug("Parallel scan of {} falls back to a single partition", entityClass.getName());
+            }
+            return Collections.singletonList(queryObject);
+        }
+
+        List< BsonDocument > ranges = new ArrayList<>(splits.size() + 1);
+        ranges.add(new BsonDocument("$or", new BsonArray(Arrays.asList(
+                new BsonDocument("_id", new BsonDocument("$lt", splits.get(0))),
+                new BsonDocument("_id", new BsonDocument("$not", new BsonDocument("$type", typeBracket(splits.get(0)))))))));
+        for (int i = 1; i < splits.size(); i++) {
+            ranges.add(new BsonDocument("_id", new BsonDocument("$gte", splits.get(i - 1)).append("$lt", splits.get(i))));
+        }
+        ranges.add(new BsonDocument("_id", new BsonDocument("$gte", splits.get(splits.size() - 1))));
+
+        List< Bson > filters = new ArrayList<>(ranges.size());
+        for (BsonDocument range : ranges) {
+            filters.add(queryObject.isEmpty() ? range : Filters.and(queryObject, range));
+        }
+        return filters;
+    }
+
+    /**
+     * 范围查询可以比较到的 _id 类型 , 数值类型之间可以相互比较 , 视为同一类
+     */
+    private static BsonValue typeBracket( BsonValue value ) {
+        if (value.isNumber() || value.isDecimal128()) {
+            return new BsonString("number");
+        }
+        return new BsonInt32(value.getBsonType().getValue());
+    }
+
+    /**
+     * 按照映射后的存储形式读取实体在各个排序字段上的值
+     */
+    private KeysetCursor keysetCursorOf( Object entity, Sort keysetSort ) {
+        Codec< ? > codec = this.mapper.getCodecRegistry().get(entity.getClass());
+        if (!(codec instanceof MarsCodec)) {
+            throw new MarsOrmException("Keyset pagination requires a mapped entity, found " + entity.getClass().getName());
+        }
+        MarsCodec< ? > marsCodec = (MarsCodec< ? >) codec;
+
+        BsonDocument position = new BsonDocument();
+        for (Sort.SortType sortType : keysetSort.getSorts()) {
+            position.append(sortType.getField(), marsCodec.getPropertyValue(entity, sortType.getField()));
+        }
+        return new KeysetCursor(position);
+    }
+
     @Override
     public < T > Optional< T > findOne( Query query, Class< T > entityClass, String collectionName ) {
 
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
 
         MongoCollection collection = this.getCollection(entityClass, collectionName);
 
@@ -198,7 +493,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
     @Override
     public < T > InsertOneResult insert( T entity, InsertOneOptions options, String collectionName ) {
 
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
         MongoCollection collection = this.getCollection(entity.getClass(), collectionName);
 
         collection = prepareConcern(collection, options);
@@ -223,7 +518,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
             throw new IllegalArgumentException("entities in operation can't be null or empty ");
         }
 
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
 
         Class< ? > type = null;
 
@@ -249,11 +544,12 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
     @Override
     public < T > UpdateResult updateEntity( Query query, T entity, UpdateOptions options, String collectionName ) {
 
-        Document entityDoc = this.toDocument(entity);
+        // 直接编码为 RawBsonDocument , 作为 $set 的值发送时不再重新编码
+        RawBsonDocument entityDoc = this.mapper.toRawDocument(entity);
         if (entityDoc == null) {
             throw new IllegalArgumentException();
         }
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
         MongoCollection< ? > collection = this.getCollection(entity.getClass(), collectionName);
 
         collection = prepareConcern(collection, options);
@@ -307,7 +603,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
         }
 
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
         MongoCollection<T> collection = this.getCollection(entityClass, collectionName);
         collection = prepareConcern(collection, options);
 
@@ -325,6 +621,153 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
     }
 
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public < T > BulkOperations< T > bulk( Class< T > entityClass, String collectionName ) {
+        notNull(entityClass, "EntityClass must not be null!");
+
+        Codec< T > codec = this.mapper.getCodecRegistry().get(entityClass);
+        if (!(codec instanceof CollectibleCodec)) {
+            throw new MarsOrmException("Bulk operations require a CollectibleCodec for " + entityClass.getName());
+        }
+
+        return new BulkOperations<>(this.getCollection(entityClass, collectionName), (CollectibleCodec< T >) codec,
+                this.getClientSession(), this.getMaxWriteBatchSize());
+    }
+
+    /**
+     * 创建实体对应集合的单条写入合并器 , 使用默认的批量大小及等待时间
+     * 使用完毕后 需要调用 close
+     */
+    public < T > WriteCoalescer< T > writeCoalescer( Class< T > entityClass ) {
+        return writeCoalescer(entityClass, null, WriteCoalescer.DEFAULT_MAX_BATCH_SIZE,
+                WriteCoalescer.DEFAULT_LINGER_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 创建指定集合的单条写入合并器
+     * 队列容量为 maxBatchSize 的 10 倍
+     * 使用完毕后 需要调用 close
+     * 不能在 session 中创建 : 合并后的写入在后台线程中执行 , 而 ClientSession 不是线程安全的 , 也无法与事务的提交顺序对应
+     */
+    @SuppressWarnings("unchecked")
+    public < T > WriteCoalescer< T > writeCoalescer( Class< T > entityClass, String collectionName, int maxBatchSize,
+                                                    long lingerTime, TimeUnit unit ) {
+        notNull(entityClass, "EntityClass must not be null!");
+        if (this.getClientSession() != null) {
+            throw new UnsupportedOperationException("WriteCoalescer cannot be created from a session, its writes run on a background thread.");
+        }
+
+        Codec< T > codec = this.mapper.getCodecRegistry().get(entityClass);
+        if (!(codec instanceof CollectibleCodec)) {
+            throw new MarsOrmException("WriteCoalescer requires a CollectibleCodec for " + entityClass.getName());
+        }
+
+        int batchSize = Math.min(maxBatchSize, this.getMaxWriteBatchSize());
+        return new WriteCoalescer<>(this.getCollection(entityClass, collectionName), (CollectibleCodec< T >) codec,
+                batchSize, batchSize * 10, lingerTime, unit);
+    }
+
+    /**
+     * 获取异步视图 , 使用默认的有界线程池
+     * 在 session 中调用时 , 异步操作同样绑定在该 session 上
+     */
+    public AsyncDatastore async() {
+        return new AsyncDatastore(this, getAsyncExecutor());
+    }
+
+    /**
+     * 获取使用指定 Executor 的异步视图 , Executor 的生命周期由调用方管理
+     */
+    public AsyncDatastore async( Executor executor ) {
+        return new AsyncDatastore(this, executor);
+    }
+
+    /**
+     * 默认的异步线程池 , 首次使用时创建 , 同一个 Mars 及其 session 共享
+     * 线程数固定 , 队列有界 , 队列满时由提交任务的线程执行 , 以此进行背压
+     * 不再使用时通过 {@link #shutdownAsyncExecutor()} 关闭
+     */
+    protected Executor getAsyncExecutor() {
+        if (parent != null) {
+            return parent.getAsyncExecutor();
+        }
+        ExecutorService executor = asyncExecutor;
+        if (executor == null) {
+            lock.lock();
+            try {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(DEFAULT_ASYNC_QUEUE_SIZE),
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "mars-async-" + counter.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            },
+                            // 与 CallerRunsPolicy 相同 , 但线程池关闭后抛出异常 , 而不是静默丢弃任务
+                            ( runnable, pool ) -> {
+                                if (pool.isShutdown()) {
+                                    throw new RejectedExecutionException("The async executor has been shut down");
+                                }
+                                runnable.run();
+                            });
+                    ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+                    asyncExecutor = executor;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 关闭默认的异步线程池 , 已提交的任务会继续执行完毕 , 之后提交的任务以 RejectedExecutionException 结束
+     * 之后再调用 {@link #async()} 时会重新创建线程池
+     * 线程池由 Mars 实例管理 , 在 session 中调用时不做任何处理
+     */
+    public void shutdownAsyncExecutor() {
+        if (parent != null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (asyncExecutor != null) {
+                asyncExecutor.shutdown();
+                asyncExecutor = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 服务端单次 bulkWrite 允许的最大操作数
+     * 首次使用时 通过 hello 命令获取
+     */
+    protected int getMaxWriteBatchSize() {
+        if (parent != null) {
+            return parent.getMaxWriteBatchSize();
+        }
+        if (maxWriteBatchSize <= 0) {
+            int size = DEFAULT_MAX_WRITE_BATCH_SIZE;
+            try {
+                Object value = this.database.runCommand(new Document("hello", 1)).get("maxWriteBatchSize");
+                if (value instanceof Number) {
+                    size = ((Number) value).intValue();
+                }
+            } catch (MongoException e) {
+                log.warn("Failed to get maxWriteBatchSize from server, use default {} : {}", DEFAULT_MAX_WRITE_BATCH_SIZE, e.getMessage());
+            }
+            maxWriteBatchSize = size;
+        }
+        return maxWriteBatchSize;
+    }
+
+
     @Override
     public MarsSession startSession() {
         ClientSession clientSession = null;
@@ -334,7 +777,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
             return null;
         }
-        return new MarsSessionImpl(clientSession, mongoClient, database.getName());
+        return new MarsSessionImpl(clientSession, this);
     }
 
 
@@ -348,7 +791,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
             return null;
         }
 
-        return new MarsSessionImpl(clientSession, mongoClient, database.getName());
+        return new MarsSessionImpl(clientSession, this);
     }
 
     @Override
@@ -365,7 +808,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
         notNull(collectionName, "CollectionName must not be null!");
 
         //  do with collation
-        OptionalUtil.ifAllPresent(query.getCollation(), Optional.of(options.getCollation()), (l, r) -> {
+        OptionalUtil.ifAllPresent(query.getCollation(), Optional.ofNullable(options.getCollation()), (l, r) -> {
             throw new IllegalArgumentException(
                     "Both Query and FindOneAndModifyOptions define a collation. Please provide the collation only via one of the two.");
         });
@@ -387,21 +830,29 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
         isTrue(query.getSkip() <= 0, "Query must not define skip.");
 
 
-        MarsSession marsSession = this.startSession();
+        ClientSession session = this.getClientSession();
 
         if(entityType == resultType){
-            S oneAndReplace = this.database.getCollection(collectionName, entityType).findOneAndReplace(marsSession, query.getQueryObject(), replacement, options.getOriginOptions());
+            MongoCollection< S > collection = this.database.getCollection(collectionName, entityType);
+            S oneAndReplace = session == null
+                    ? collection.findOneAndReplace(query.getQueryObject(), replacement, options.getOriginOptions())
+                    : collection.findOneAndReplace(session, query.getQueryObject(), replacement, options.getOriginOptions());
 
             return (T) oneAndReplace;
         }
 
-        Document document = this.toDocument(replacement);
-        Document oneAndReplace = this.database.getCollection(collectionName).findOneAndReplace(marsSession, query.getQueryObject(), document, options.getOriginOptions());
+        RawBsonDocument document = this.mapper.toRawDocument(replacement);
+        MongoCollection< RawBsonDocument > collection = this.database.getCollection(collectionName, RawBsonDocument.class);
+        RawBsonDocument oneAndReplace = session == null
+                ? collection.findOneAndReplace(query.getQueryObject(), document, options.getOriginOptions())
+                : collection.findOneAndReplace(session, query.getQueryObject(), document, options.getOriginOptions());
         if(oneAndReplace == null){
             return null ;
         }
 
-        T first = this.database.getCollection(collectionName, resultType).find(marsSession, new Document("_id", oneAndReplace.get("_id"))).limit(1).first();
+        MongoCollection< T > resultCollection = this.database.getCollection(collectionName, resultType);
+        Document idFilter = new Document("_id", oneAndReplace.get("_id"));
+        T first = (session == null ? resultCollection.find(idFilter) : resultCollection.find(session, idFilter)).limit(1).first();
 
         return first ;
 
@@ -414,9 +865,12 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
         notNull(entityClass, "EntityClass must not be null!");
         notNull(collectionName, "CollectionName must not be null!");
 
-        MarsSession marsSession = this.startSession();
+        ClientSession session = this.getClientSession();
 
-        T oneAndDelete = this.database.getCollection(collectionName, entityClass).findOneAndDelete(marsSession,query.getQueryObject(), options.getOriginOptions());
+        MongoCollection< T > collection = this.database.getCollection(collectionName, entityClass);
+        T oneAndDelete = session == null
+                ? collection.findOneAndDelete(query.getQueryObject(), options.getOriginOptions())
+                : collection.findOneAndDelete(session, query.getQueryObject(), options.getOriginOptions());
 
 
         return oneAndDelete;
@@ -438,14 +892,17 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
         MongoCollection< T > collection = getCollection(entityClass, collectionName);
 
         Document updateObject = update.getUpdateObject();
-        MarsSession marsSession = this.startSession();
+        ClientSession session = this.getClientSession();
 
         if(update instanceof UpdatePipeline){
             //todo
             return null ;
         }else {
 
-            T oneAndUpdate = collection.findOneAndUpdate(marsSession,query.getQueryObject(), updateObject, optionsToUse.getOriginOptions());
+            com.mongodb.client.model.FindOneAndUpdateOptions options = prepareFindAndModify(query, optionsToUse);
+            T oneAndUpdate = session == null
+                    ? collection.findOneAndUpdate(query.getQueryObject(), updateObject, options)
+                    : collection.findOneAndUpdate(session, query.getQueryObject(), updateObject, options);
             return oneAndUpdate;
 
         }
@@ -453,10 +910,58 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
     }
 
 
+    /**
+     * 将 Query 中的 projection、sort、hint、collation 与 maxTime 合并到 findAndModify 的参数中
+     * FindOneAndUpdateOptions 中显式设置的值优先
+     */
+    private com.mongodb.client.model.FindOneAndUpdateOptions prepareFindAndModify( Query query, FindOneAndUpdateOptions optionsToUse ) {
+
+        com.mongodb.client.model.FindOneAndUpdateOptions origin = optionsToUse.getOriginOptions();
+        com.mongodb.client.model.FindOneAndUpdateOptions target = new com.mongodb.client.model.FindOneAndUpdateOptions()
+                .projection(origin.getProjection())
+                .sort(origin.getSort())
+                .upsert(origin.isUpsert())
+                .returnDocument(origin.getReturnDocument())
+                .maxTime(origin.getMaxTime(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS)
+                .bypassDocumentValidation(origin.getBypassDocumentValidation())
+                .collation(origin.getCollation())
+                .arrayFilters(origin.getArrayFilters())
+                .hint(origin.getHint())
+                .hintString(origin.getHintString());
+
+        if (origin.getProjection() == null && !query.getFieldsObject().isEmpty()) {
+            target.projection(query.getFieldsObject());
+        }
+
+        if (origin.getSort() == null && query.getSortObject() != null && !query.getSortObject().isEmpty()) {
+            target.sort(query.getSortObject());
+        }
+
+        String hint = query.getHint();
+        if (origin.getHint() == null && origin.getHintString() == null && StrUtil.hasText(hint)) {
+            if (isJsonHint(hint)) {
+                target.hint(Document.parse(hint));
+            } else {
+                target.hintString(hint);
+            }
+        }
+
+        if (origin.getCollation() == null && query.getCollation().isPresent()) {
+            target.collation(query.getCollation().get().toMongoCollation());
+        }
+
+        Long maxTimeMsec = query.getMeta().getMaxTimeMsec();
+        if (origin.getMaxTime(TimeUnit.MILLISECONDS) == 0 && maxTimeMsec != null) {
+            target.maxTime(maxTimeMsec, TimeUnit.MILLISECONDS);
+        }
+
+        return target;
+    }
+
     @Override
     public < T > UpdateResult replace( Query query, T entity, ReplaceOptions options, String collectionName ) {
 
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
 
         MongoCollection collection = this.getCollection(entity.getClass(), collectionName);
 
@@ -472,7 +977,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
     @Override
     public void createIndex( Index index, String collectionName ) {
 
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
 
         MongoCollection collection = database.getCollection(collectionName);
 
@@ -496,7 +1001,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
     @Override
     public void dropIndex( Index index, String collectionName ) {
 
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
 
         MongoCollection collection = database.getCollection(collectionName);
 
@@ -509,7 +1014,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
     @Override
     public void dropIndexes( String collectionName ) {
 
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
 
         MongoCollection collection = database.getCollection(collectionName);
 
@@ -522,7 +1027,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
     @Override
     public List< Index > getIndexes( String collectionName ) {
 
-        ClientSession session = this.startSession();
+        ClientSession session = this.getClientSession();
 
         MongoCollection collection = database.getCollection(collectionName);
 
@@ -556,14 +1061,29 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
     public void setWriteConcern( WriteConcern writeConcern ) {
         this.database = database.withWriteConcern(writeConcern);
+        resetCollectionCache();
     }
 
     public void setReadConcern( ReadConcern readConcern ) {
         this.database = database.withReadConcern(readConcern);
+        resetCollectionCache();
     }
 
     public void setReadPreference( ReadPreference readPerference ) {
         this.database = database.withReadPreference(readPerference);
+        resetCollectionCache();
+    }
+
+    /**
+     * 读写关注变化后 丢弃基于旧 database 生成的 collection
+     * session 不能清空与上层实例共享的缓存 , 改为使用自己的缓存 , 只影响当前 session
+     */
+    private void resetCollectionCache() {
+        if (parent != null) {
+            this.collectionCache = new ConcurrentHashMap<>();
+        } else {
+            this.collectionCache.clear();
+        }
     }
 
     /**
@@ -605,10 +1125,13 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
                     .bypassDocumentValidation(options.getBypassDocumentValidation())
                     .upsert(true);
 
-            Document document = this.toDocument(entity);
-
+            // 只编码 id , 实体本身由 replace 编码一次
+            Codec< ? > codec = this.mapper.getCodecRegistry().get(entity.getClass());
+            Object id = codec instanceof CollectibleCodec
+                    ? ((CollectibleCodec) codec).getDocumentId(entity)
+                    : this.mapper.toRawDocument(entity).get("_id");
 
-            replace(new Query(Criteria.where("_id").is(document.get("_id"))), entity, replaceOptiion, collectionName);
+            replace(new Query(Criteria.where("_id").is(id)), entity, replaceOptiion, collectionName);
         } else {
             insert(entity, options, collectionName);
         }
@@ -617,6 +1140,61 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
     }
 
+    /**
+     * 先按实体的实际类型分组 , 每种类型各自解析集合及 codec , 与单个实体的 save 一致
+     * 每组再按照是否已有 id 分为两部分
+     * 没有 id 的实体 一次 insertMany 写入 , id 在客户端生成并写回实体
+     * 已有 id 的实体 一次无序的 bulkWrite 通过 upsert 替换写入
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public < T > List< T > save( Collection< ? extends T > entities, InsertManyOptions options, String collectionName ) {
+
+        if (entities == null || entities.isEmpty()) {
+            return new ArrayList< T >();
+        }
+
+        Map< Class< ? >, List< T > > groups = new LinkedHashMap<>();
+        for (T entity : entities) {
+            groups.computeIfAbsent(entity.getClass(), key -> new ArrayList<>()).add(entity);
+        }
+        for (Map.Entry< Class< ? >, List< T > > group : groups.entrySet()) {
+            saveGroup((Class< T >) group.getKey(), group.getValue(), options, collectionName);
+        }
+
+        return new ArrayList< T >(entities);
+    }
+
+    private < T > void saveGroup( Class< T > type, List< T > entities, InsertManyOptions options, String collectionName ) {
+
+        List< T > newEntities = new ArrayList<>();
+        List< T > existingEntities = new ArrayList<>();
+
+        for (T entity : entities) {
+            if (this.mapper.getId(entity) == null) {
+                newEntities.add(entity);
+            } else {
+                existingEntities.add(entity);
+            }
+        }
+
+        if (!newEntities.isEmpty()) {
+            insertManyExecute(this.getClientSession(), prepareConcern(this.getCollection(type, collectionName), options),
+                    null, options, newEntities);
+        }
+
+        if (!existingEntities.isEmpty()) {
+            BulkWriteOptions bulkWriteOptions = new BulkWriteOptions()
+                    .ordered(false)
+                    .bypassDocumentValidation(options.getBypassDocumentValidation())
+                    .writeConcern(options.writeConcern());
+
+            BulkOperations< T > operations = this.bulk(type, collectionName).options(bulkWriteOptions);
+            existingEntities.forEach(operations::upsert);
+            operations.execute();
+        }
+    }
+
     @Override
     public < T > T storeGridFs( GridFsObject< T, InputStream > upload, String bucketName ) {
 
@@ -664,6 +1242,23 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
         Document sortObject = query.getSortObject();
 
         GridFSFindIterable iterable = getGridFsBucket(bucketName).find(queryObject).sort(sortObject);
+
+        // GridFSFindIterable 不支持 hint 与 projection
+        if (query.getCollation().isPresent()) {
+            iterable = iterable.collation(query.getCollation().get().toMongoCollation());
+        }
+
+        Meta meta = query.getMeta();
+        if (meta.getMaxTimeMsec() != null) {
+            iterable = iterable.maxTime(meta.getMaxTimeMsec(), TimeUnit.MILLISECONDS);
+        }
+        if (meta.getCursorBatchSize() != null) {
+            iterable = iterable.batchSize(meta.getCursorBatchSize());
+        }
+        if (meta.getFlags().contains(Meta.CursorOption.NO_TIMEOUT)) {
+            iterable = iterable.noCursorTimeout(true);
+        }
+
         if (query.getSkip() > 0) {
             iterable = iterable.skip(Math.toIntExact(query.getSkip()));
         }
@@ -731,37 +1326,29 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
     public < T > MongoCollection< T > getCollection( Class< T > type ) {
 
-        String nameCache =null ;
-        if( (nameCache = collectionNameCache.get(type) ) !=null){
-
-            MongoCollection< T > collection = this.database.getCollection(nameCache, type);
-            this.withConcern(collection,type);
-            return collection ;
-        }
-
-
-        EntityModel entityModel = mapper.getEntityModel(type);
-        String collectionName = entityModel.getCollectionName();
-
-        collectionNameCache.put(type,collectionName);
-
-        MongoCollection< T > collection = this.database.getCollection(collectionName, type);
-
-        this.withConcern(collection,type);
-        return collection;
+        return getCollection(type, null);
     }
 
 
 
+    /**
+     * 获取实体对应的 collection
+     * 首次获取时 解析集合名称 及 @Concern , 之后直接从缓存中获取
+     * 默认的读写关注发生变化时 缓存会被清空 , 之后按新的 database 重新生成
+     * session 使用自己的 database , 创建时与上层实例相同 , 之后各自修改读写关注互不影响
+     */
+    @SuppressWarnings("unchecked")
     public < T > MongoCollection< T > getCollection( Class< T > type, String collectionName ) {
 
-        if (collectionName != null) {
-            MongoCollection< T > collection = this.database.getCollection(collectionName, type);
-            return this.withConcern(collection, type);
-        } else {
+        //  database 本身不可变 , 读写关注变化时会被整体替换 ;
+        //  key 中记录生成 collection 时使用的 database , 并发查找时旧的 database 生成的 collection 不会再被命中
+        MongoDatabase current = this.database;
+        return (MongoCollection< T >) collectionCache.computeIfAbsent(new CollectionKey(type, collectionName, current), key -> {
 
-            return getCollection(type);
-        }
+            String collName = this.mapper.determineCollectionName(type, collectionName);
+
+            return this.withConcern(current.getCollection(collName, type), type);
+        });
 
     }
 
@@ -788,7 +1375,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
         if (log.isDebugEnabled()) {
             log.debug("Executing count: {} in collection: {}", query.getQueryObject().toJson(), collectionName);
         }
-        return this.database.getCollection(collectionName).countDocuments(query.getQueryObject(), countOptions.getOriginOptions());
+        return this.database.getCollection(collectionName).countDocuments(query.getQueryObject(), prepareCount(query, countOptions));
     }
 
     @Override
@@ -810,10 +1397,46 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
         if (log.isDebugEnabled()) {
             log.debug("Executing count: {} in collection: {}", query.getQueryObject().toJson(), collectionName);
         }
-        return this.database.getCollection(collectionName).countDocuments(query.getQueryObject(), countOptions.getOriginOptions());
+        return this.database.getCollection(collectionName).countDocuments(query.getQueryObject(), prepareCount(query, countOptions));
     }
 
 
+    /**
+     * 合并 Query 与 CountOptions  , CountOptions 中显式设置的值优先
+     * 返回新的 CountOptions , 不修改调用方传入的对象
+     */
+    private com.mongodb.client.model.CountOptions prepareCount( Query query, CountOptions countOptions ) {
+
+        com.mongodb.client.model.CountOptions origin = countOptions.getOriginOptions();
+        com.mongodb.client.model.CountOptions target = new com.mongodb.client.model.CountOptions()
+                .skip(origin.getSkip())
+                .limit(origin.getLimit())
+                .maxTime(origin.getMaxTime(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS)
+                .collation(origin.getCollation())
+                .hint(origin.getHint())
+                .hintString(origin.getHintString());
+
+        String hint = query.getHint();
+        if (origin.getHint() == null && origin.getHintString() == null && StrUtil.hasText(hint)) {
+            if (isJsonHint(hint)) {
+                target.hint(Document.parse(hint));
+            } else {
+                target.hintString(hint);
+            }
+        }
+
+        if (origin.getCollation() == null && query.getCollation().isPresent()) {
+            target.collation(query.getCollation().get().toMongoCollation());
+        }
+
+        Long maxTimeMsec = query.getMeta().getMaxTimeMsec();
+        if (origin.getMaxTime(TimeUnit.MILLISECONDS) == 0 && maxTimeMsec != null) {
+            target.maxTime(maxTimeMsec, TimeUnit.MILLISECONDS);
+        }
+
+        return target;
+    }
+
     @Override
     public < T > MongoCollection< Document > createCollection( Class< T > entityClass ) {
         notNull(entityClass, "EntityClass must not be null!");
@@ -965,19 +1588,20 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
         if (annotation != null) {
 
-            if (WriteConcern.valueOf(annotation.writeConcern()) != null) {
-                collection = collection.withWriteConcern(WriteConcern.valueOf(annotation.writeConcern()));
+            if (StrUtil.hasText(annotation.writeConcern())) {
+                WriteConcern writeConcern = WriteConcern.valueOf(annotation.writeConcern());
+                if (writeConcern != null) {
+                    collection = collection.withWriteConcern(writeConcern);
+                }
             }
 
-            if (ReadPreference.valueOf(annotation.readPreference()) != null) {
-                collection = collection.withWriteConcern(WriteConcern.valueOf(annotation.writeConcern()));
-
+            if (StrUtil.hasText(annotation.readPreference())) {
+                collection = collection.withReadPreference(ReadPreference.valueOf(annotation.readPreference()));
             }
 
-            ReadConcernLevel readConcernLevel = ReadConcernLevel.fromString(annotation.readConcern());
-
-            if (readConcernLevel != null) {
-                collection.withReadConcern(new ReadConcern(readConcernLevel));
+            if (StrUtil.hasText(annotation.readConcern())) {
+                ReadConcernLevel readConcernLevel = ReadConcernLevel.fromString(annotation.readConcern());
+                collection = collection.withReadConcern(new ReadConcern(readConcernLevel));
             }
         }
         return collection;
@@ -1072,10 +1696,6 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
         FindIterable findIterable;
 
-        //todo  query  解析缺少
-        //  projection
-        //  find  操作 没有 option   参数
-
         if (session == null) {
             findIterable = collection.find(query.getQueryObject());
 
@@ -1084,14 +1704,7 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
             findIterable = collection.find(session, query.getQueryObject());
         }
 
-        if (!query.getFieldsObject().isEmpty()) {
-            findIterable.projection(query.getFieldsObject());
-        }
-
-
-        if (query.getSortObject() != null) {
-            findIterable = findIterable.sort(query.getSortObject());
-        }
+        findIterable = prepareFind(findIterable, query);
 
         if (query.getSkip() > 0) {
             findIterable = findIterable.skip((int) query.getSkip());
@@ -1106,6 +1719,81 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
     }
 
+    /**
+     * 将 Query 中的 projection、sort、hint、collation 以及 Meta 信息应用到 find 操作上
+     * skip 与 limit 由调用方自行处理
+     */
+    private FindIterable prepareFind( FindIterable findIterable, Query query ) {
+
+        if (!query.getFieldsObject().isEmpty()) {
+            findIterable = findIterable.projection(query.getFieldsObject());
+        }
+
+        if (query.getSortObject() != null && !query.getSortObject().isEmpty()) {
+            findIterable = findIterable.sort(query.getSortObject());
+        }
+
+        String hint = query.getHint();
+        if (StrUtil.hasText(hint)) {
+            findIterable = isJsonHint(hint) ? findIterable.hint(Document.parse(hint)) : findIterable.hintString(hint);
+        }
+
+        if (query.getCollation().isPresent()) {
+            findIterable = findIterable.collation(query.getCollation().get().toMongoCollation());
+        }
+
+        Meta meta = query.getMeta();
+        if (!meta.hasValues()) {
+            return findIterable;
+        }
+
+        if (meta.getMaxTimeMsec() != null) {
+            findIterable = findIterable.maxTime(meta.getMaxTimeMsec(), TimeUnit.MILLISECONDS);
+        }
+
+        if (StrUtil.hasText(meta.getComment())) {
+            findIterable = findIterable.comment(meta.getComment());
+        }
+
+        if (meta.getCursorBatchSize() != null) {
+            findIterable = findIterable.batchSize(meta.getCursorBatchSize());
+        }
+
+        if (meta.getAllowDiskUse() != null) {
+            findIterable = findIterable.allowDiskUse(meta.getAllowDiskUse());
+        }
+
+        for (Meta.CursorOption option : meta.getFlags()) {
+            switch (option) {
+                case NO_TIMEOUT:
+                    findIterable = findIterable.noCursorTimeout(true);
+                    break;
+                case EXHAUST:
+                    // 驱动 4.x 不再支持 exhaust 游标
+                    throw new IllegalArgumentException("Exhaust cursors are not supported by the driver.");
+                case PARTIAL:
+                    findIterable = findIterable.partial(true);
+                    break;
+                case SECONDARY_READS:
+                case SLAVE_OK:
+                    // find 命令没有对应的游标标记 此处有意忽略
+                    // 读哪个节点只由集合上的 ReadPreference 决定 见 Meta.CursorOption#SECONDARY_READS
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("%s is not a supported flag.", option));
+            }
+        }
+
+        return findIterable;
+    }
+
+    /**
+     * Query 中的 hint 既可以是索引名 也可以是 Document 序列化后的 json
+     */
+    private static boolean isJsonHint( String hint ) {
+        return hint.trim().startsWith("{");
+    }
+
     /**
      *
      * find 操作本身没有相关 的Option 参数
@@ -1133,15 +1821,12 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
         }
 
+        findIterable = prepareFind(findIterable, query);
 
         if (query.getSkip() > 0) {
             findIterable = findIterable.skip((int) query.getSkip());
         }
 
-        if (query.getSortObject() != null) {
-            findIterable = findIterable.sort(query.getSortObject());
-        }
-
         findIterable.limit(1);
 
         return (T) findIterable.first();
@@ -1243,7 +1928,9 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
 
         UpdateOptions option = (UpdateOptions) options;
 
-        Document updateOperations = new Document("$set", new Document((Map) data));
+        Bson updateOperations = data instanceof BsonDocument
+                ? new BsonDocument("$set", (BsonDocument) data)
+                : new Document("$set", new Document((Map) data));
 
         UpdateResult updateResult = new UpdateResult();
 
@@ -1584,18 +2271,50 @@ public abstract class DatastoreImpl extends AggregationImpl implements Datastore
         return doTransaction(startSession(options), transaction);
     }
     private <T> T doTransaction(MarsSession marssession, MarsTransaction<T> body) {
+        if (marssession == null) {
+            throw new IllegalStateException("No session could be found for the transaction.");
+        }
         try (AutoCloseable closeable = marssession){
-            ClientSession session = marssession.startSession();
-            if (session == null) {
-                throw new IllegalStateException("No session could be found for the transaction.");
-            }
-            return session.withTransaction(() -> body.execute(marssession));
+            // 事务直接开启在当前 session 上 , body 内的操作均绑定该 session
+            return marssession.withTransaction(() -> body.execute(marssession));
         } catch (Exception e) {
             log.error(e.getMessage());
             return null ;
         }
     }
-}
 
+    /**
+     * collection 缓存的 key
+     * database 按引用比较 , 即生成 collection 时的读写关注
+     */
+    private static final class CollectionKey {
 
+        private final Class< ? > type;
+        private final String collectionName;
+        private final MongoDatabase database;
 
+        CollectionKey( Class< ? > type, String collectionName, MongoDatabase database ) {
+            this.type = type;
+            this.collectionName = collectionName;
+            this.database = database;
+        }
+
+        @Override
+        public boolean equals( Object o ) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CollectionKey)) {
+                return false;
+            }
+            CollectionKey that = (CollectionKey) o;
+            return database == that.database && type.equals(that.type) && Objects.equals(collectionName, that.collectionName);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 31 * type.hashCode() + (collectionName != null ? collectionName.hashCode() : 0);
+            return 31 * result + System.identityHashCode(database);
+        }
+    }
+}
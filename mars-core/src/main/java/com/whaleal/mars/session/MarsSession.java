@@ -40,4 +40,9 @@ import com.mongodb.client.ClientSession;
  * 是对外使用的一个开放的 session
  */
 public interface MarsSession extends Datastore, ClientSession, AutoCloseable {
+
+    /**
+     * 绑定在当前 session 上的异步视图 , 操作按提交顺序依次执行
+     */
+    AsyncDatastore async();
 }
@@ -30,8 +30,6 @@
 package com.whaleal.mars.session;
 
 import com.mongodb.client.ClientSession;
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoDatabase;
 
 /**
  * 重要部分
@@ -43,9 +41,12 @@ public class MarsSessionImpl extends BaseMarsSesssion {
 
     /**
      * Creates a new session.
+     *
+     * @param session 实际绑定的 clientSession
+     * @param parent  创建该 session 的实例 , 共享其 mapper 及 database
      */
-    public MarsSessionImpl(ClientSession session, MongoClient mongoClient, String databaseName) {
-        super(session, mongoClient, databaseName);
+    public MarsSessionImpl(ClientSession session, DatastoreImpl parent) {
+        super(session, parent);
     }
 
 
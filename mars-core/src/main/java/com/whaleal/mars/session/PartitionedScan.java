@@ -0,0 +1,183 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.session;
+
+import com.whaleal.mars.codecs.MarsOrmException;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * parallelScan 返回的 Stream 的数据来源
+ * <p>
+ * 每个分区的游标由 executor 上的一个任务读取 , 读到的实体放入有界队列 , 消费方按到达顺序取出
+ * 游标的阻塞读取因此不会占用 ForkJoinPool 或消费方的线程 , 队列满时读取任务等待消费
+ * 关闭后各个读取任务会在下一次放入队列前停止 , 并关闭各自的游标
+ *
+ * @param <T> 实体类型
+ */
+class PartitionedScan< T > implements Iterator< T >, AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private static final Object PARTITION_END = new Object();
+
+    private final BlockingQueue< Object > queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final Runnable onClose;
+
+    private volatile boolean closed;
+
+    private int remaining;
+
+    private T next;
+
+    /**
+     * @param partitions 每个分区打开游标的方式 , 在读取任务中调用
+     * @param executor   执行读取任务 , 需要能同时运行全部分区的任务
+     * @param onClose    关闭时执行 , 例如关闭专用的线程池
+     */
+    PartitionedScan( List< Supplier< QueryCursor< T > > > partitions, Executor executor, Runnable onClose ) {
+        this.onClose = onClose;
+        for (Supplier< QueryCursor< T > > partition : partitions) {
+            try {
+                executor.execute(() -> read(partition));
+            } catch (RejectedExecutionException e) {
+                close();
+                throw e;
+            }
+            remaining++;
+        }
+    }
+
+    Stream< T > stream() {
+        Spliterator< T > spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    private void read( Supplier< QueryCursor< T > > partition ) {
+        try (QueryCursor< T > cursor = partition.get()) {
+            while (!closed && cursor.hasNext()) {
+                put(cursor.next());
+            }
+        } catch (RuntimeException e) {
+            put(new Failure(e));
+        } finally {
+            put(PARTITION_END);
+        }
+    }
+
+    private void put( Object element ) {
+        try {
+            while (!closed) {
+                if (queue.offer(element, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        while (remaining > 0 && !closed) {
+            Object element;
+            try {
+                element = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new MarsOrmException("Interrupted while waiting for the parallel scan", e);
+            }
+            if (element == PARTITION_END) {
+                remaining--;
+            } else if (element instanceof Failure) {
+                close();
+                throw ((Failure) element).exception;
+            } else {
+                next = (T) element;
+                return true;
+            }
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // 唤醒等待放入队列的读取任务
+        queue.clear();
+        onClose.run();
+    }
+
+    /**
+     * 读取任务中的异常 , 交给消费方抛出
+     */
+    private static final class Failure {
+
+        private final RuntimeException exception;
+
+        private Failure( RuntimeException exception ) {
+            this.exception = exception;
+        }
+    }
+}
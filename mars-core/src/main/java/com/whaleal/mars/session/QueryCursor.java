@@ -36,6 +36,14 @@ import com.mongodb.client.MongoCursor;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.whaleal.icefrog.core.lang.Precondition.isTrue;
+import static com.whaleal.icefrog.core.lang.Precondition.notNull;
 
 /**
  * 该 方法 需要重新设计
@@ -89,6 +97,46 @@ public class QueryCursor< T > implements MarsCursor< T > {
         return results;
     }
 
+    /**
+     * Converts this cursor to a sequential Stream backed by the underlying cursor.  Elements are fetched batch by batch
+     * as the stream is consumed, the cursor is closed when the stream is closed.
+     *
+     * @return the stream of Entities
+     */
+    public Stream< T > stream() {
+        Spliterator< T > spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Hands the results to the consumer batch by batch, following the batches the driver has received from the server.
+     * A chunk holds at most {@code batchSize} entities and never spans two driver batches, so building a chunk never
+     * waits on the network.  When the cursor batch size ({@link com.whaleal.mars.core.query.Query#cursorBatchSize(int)})
+     * equals {@code batchSize}, every chunk is exactly one driver batch, see
+     * {@link Datastore#forEachBatch(com.whaleal.mars.core.query.Query, Class, int, Consumer)}.  Only one chunk is held
+     * in memory at a time.  The cursor is closed afterwards.
+     *
+     * @param batchSize the maximum number of entities per chunk
+     * @param consumer  the consumer of each chunk
+     */
+    public void forEachBatch( int batchSize, Consumer< List< T > > consumer ) {
+        isTrue(batchSize > 0, "BatchSize must be greater than 0!");
+        notNull(consumer, "Consumer must not be null!");
+        try {
+            // hasNext 在当前批次读完时才会向服务端拉取下一批 , available 为当前批次中剩余的数量
+            while (this.wrapped.hasNext()) {
+                int size = Math.min(batchSize, Math.max(this.wrapped.available(), 1));
+                List< T > batch = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    batch.add(this.wrapped.next());
+                }
+                consumer.accept(batch);
+            }
+        } finally {
+            this.wrapped.close();
+        }
+    }
+
     /**
      * Closes the underlying cursor.
      */
@@ -0,0 +1,380 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.session;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.*;
+import com.whaleal.icefrog.log.Log;
+import com.whaleal.icefrog.log.LogFactory;
+import org.bson.BsonDocument;
+import org.bson.codecs.CollectibleCodec;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.whaleal.icefrog.core.lang.Precondition.isTrue;
+import static com.whaleal.icefrog.core.lang.Precondition.notNull;
+
+/**
+ * 单条写入的合并器
+ * <p>
+ * 多个线程提交的单条 insert  save  delete 先进入无锁队列
+ * 当队列中的数量达到 maxBatchSize 或 等待时间达到 lingerTime 时 通过一次无序的 bulkWrite 写入
+ * 每个调用方通过返回的 CompletableFuture 获取自己的结果或异常
+ * <p>
+ * 使用的 collection 与 Mars 相同 , 会遵循 @Concern 中的写关注
+ * 队列达到容量上限时 由提交的线程直接执行写入 , 队列中的数量不会超过容量
+ * 生成 id 过滤条件等提交前的错误 同样通过返回的 CompletableFuture 传递 , 不会直接抛出
+ * 不能在 session 中使用 , 写入在后台线程中执行 , 不会绑定到 ClientSession 上
+ * 由于批次内无序执行 , 同一文档的多次写入 如需保证顺序 请等待上一次的结果完成后再提交
+ * <p>
+ * 不再使用时 需要调用 close , 会写入队列中剩余的数据
+ *
+ * @param <T> 实体类型
+ */
+public class WriteCoalescer< T > implements Closeable {
+
+    private static final Log log = LogFactory.get(WriteCoalescer.class);
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    public static final long DEFAULT_LINGER_MILLIS = 5;
+
+    private final MongoCollection< T > collection;
+
+    private final CollectibleCodec< T > codec;
+
+    private final int maxBatchSize;
+
+    private final int capacity;
+
+    private final ConcurrentLinkedQueue< PendingWrite< T > > queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean closed;
+
+    private final AtomicLong flushCount = new AtomicLong();
+
+    private final AtomicLong flushedDocuments = new AtomicLong();
+
+    private final AtomicInteger maxFlushSize = new AtomicInteger();
+
+    private volatile int lastFlushSize;
+
+    /**
+     * @param collection   已处理读写关注的 collection
+     * @param codec        实体对应的 codec , 用于生成 id 过滤条件
+     * @param maxBatchSize 单次写入的最大数量
+     * @param capacity     队列容量
+     * @param lingerTime   数据在队列中的最长等待时间
+     * @param unit         时间单位
+     */
+    public WriteCoalescer( MongoCollection< T > collection, CollectibleCodec< T > codec, int maxBatchSize, int capacity,
+                           long lingerTime, TimeUnit unit ) {
+        notNull(collection, "Collection must not be null!");
+        notNull(codec, "Codec must not be null!");
+        isTrue(maxBatchSize > 0, "maxBatchSize must be greater than 0");
+        isTrue(capacity >= maxBatchSize, "capacity must not be less than maxBatchSize");
+        isTrue(lingerTime > 0, "lingerTime must be greater than 0");
+
+        this.collection = collection;
+        this.codec = codec;
+        this.maxBatchSize = maxBatchSize;
+        this.capacity = capacity;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mars-write-coalescer-" + collection.getNamespace().getCollectionName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushAll, lingerTime, lingerTime, unit);
+    }
+
+    /**
+     * 插入实体 , 未设置 id 时 在客户端生成并写回实体
+     *
+     * @return 完成时返回该实体
+     */
+    public CompletableFuture< T > insert( T entity ) {
+        notNull(entity, "Entity must not be null!");
+        return submit(new PendingWrite<>(new InsertOneModel<>(entity), entity));
+    }
+
+    /**
+     * 保存实体 , 没有 id 时插入 , 否则根据 id 替换 , 不存在时插入
+     *
+     * @return 完成时返回该实体
+     */
+    public CompletableFuture< T > save( T entity ) {
+        notNull(entity, "Entity must not be null!");
+        WriteModel< T > model;
+        try {
+            if (!codec.documentHasId(entity)) {
+                return insert(entity);
+            }
+            model = new ReplaceOneModel<>(idFilter(entity), entity, new ReplaceOptions().upsert(true));
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        return submit(new PendingWrite<>(model, entity));
+    }
+
+    /**
+     * 根据 id 删除实体 , 实体没有 id 时 返回的 CompletableFuture 以 IllegalArgumentException 结束
+     */
+    public CompletableFuture< Void > delete( T entity ) {
+        notNull(entity, "Entity must not be null!");
+        WriteModel< T > model;
+        try {
+            if (!codec.documentHasId(entity)) {
+                throw new IllegalArgumentException("Cannot delete " + entity.getClass().getName() + " without an id");
+            }
+            model = new DeleteOneModel<>(idFilter(entity));
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        return submit(new PendingWrite<>(model, null));
+    }
+
+    /**
+     * 立即写入队列中的一批数据
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List< PendingWrite< T > > batch = new ArrayList<>(Math.min(Math.max(depth.get(), 1), maxBatchSize));
+            PendingWrite< T > write;
+            while (batch.size() < maxBatchSize && (write = queue.poll()) != null) {
+                batch.add(write);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            depth.addAndGet(-batch.size());
+
+            // 在 future 完成之前记录 , 调用方拿到结果时统计数据已经包含本批次
+            flushCount.incrementAndGet();
+            flushedDocuments.addAndGet(batch.size());
+            lastFlushSize = batch.size();
+            maxFlushSize.accumulateAndGet(batch.size(), Math::max);
+
+            execute(batch);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 停止定时写入 , 并写入队列中剩余的数据
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+    }
+
+    /**
+     * @return 队列中等待写入的数量
+     */
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    /**
+     * @return 已执行的写入次数
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * @return 已写入的文档数量
+     */
+    public long getFlushedDocuments() {
+        return flushedDocuments.get();
+    }
+
+    public int getLastFlushSize() {
+        return lastFlushSize;
+    }
+
+    public int getMaxFlushSize() {
+        return maxFlushSize.get();
+    }
+
+    public double getAverageFlushSize() {
+        long count = flushCount.get();
+        return count == 0 ? 0 : (double) flushedDocuments.get() / count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private < R > CompletableFuture< R > submit( PendingWrite< T > write ) {
+        if (closed) {
+            write.future.completeExceptionally(new IllegalStateException("WriteCoalescer has been closed"));
+            return (CompletableFuture< R >) write.future;
+        }
+
+        // 先原子地占用队列中的一个位置 , 队列已满时 由提交的线程直接写入后再重试
+        int reserved;
+        for (; ; ) {
+            int current = depth.get();
+            if (current >= capacity) {
+                flush();
+            } else if (depth.compareAndSet(current, current + 1)) {
+                reserved = current + 1;
+                break;
+            }
+        }
+
+        queue.offer(write);
+
+        if (reserved >= maxBatchSize) {
+            scheduleFlush();
+        }
+
+        if (closed) {
+            // close 已经执行完毕的情况下 由当前线程写入
+            flushAll();
+        }
+
+        return (CompletableFuture< R >) write.future;
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushScheduled.set(false);
+                    while (depth.get() >= maxBatchSize) {
+                        flush();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flushAll() {
+        try {
+            while (!queue.isEmpty()) {
+                flush();
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to flush coalesced writes : {}", e.getMessage());
+        }
+    }
+
+    private void execute( List< PendingWrite< T > > batch ) {
+
+        List< WriteModel< T > > models = new ArrayList<>(batch.size());
+        for (PendingWrite< T > write : batch) {
+            models.add(write.model);
+        }
+
+        try {
+            collection.bulkWrite(models, new BulkWriteOptions().ordered(false));
+            batch.forEach(PendingWrite::complete);
+        } catch (MongoBulkWriteException e) {
+
+            Map< Integer, BulkWriteError > errors = new HashMap<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                errors.put(error.getIndex(), error);
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                BulkWriteError error = errors.get(i);
+                if (error != null) {
+                    batch.get(i).future.completeExceptionally(new MongoWriteException(error, e.getServerAddress()));
+                } else if (e.getWriteConcernError() != null) {
+                    batch.get(i).future.completeExceptionally(e);
+                } else {
+                    batch.get(i).complete();
+                }
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(write -> write.future.completeExceptionally(e));
+        }
+    }
+
+    private static < R > CompletableFuture< R > failed( Throwable e ) {
+        CompletableFuture< R > future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    private BsonDocument idFilter( T entity ) {
+        return new BsonDocument("_id", codec.getDocumentId(entity));
+    }
+
+    /**
+     * 等待写入的单条操作
+     */
+    private static final class PendingWrite< T > {
+
+        private final WriteModel< T > model;
+
+        private final Object result;
+
+        private final CompletableFuture< Object > future = new CompletableFuture<>();
+
+        PendingWrite( WriteModel< T > model, Object result ) {
+            this.model = model;
+            this.result = result;
+        }
+
+        void complete() {
+            future.complete(result);
+        }
+    }
+}
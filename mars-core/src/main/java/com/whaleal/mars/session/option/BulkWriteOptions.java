@@ -42,11 +42,11 @@ public class BulkWriteOptions implements WriteConfigurable<BulkWriteOptions> {
 
     private com.mongodb.client.model.BulkWriteOptions originBulkWriteOptions;
 
-    BulkWriteOptions() {
+    public BulkWriteOptions() {
         originBulkWriteOptions = new com.mongodb.client.model.BulkWriteOptions();
     }
 
-    BulkWriteOptions(com.mongodb.client.model.BulkWriteOptions originBulkWriteOptions) {
+    public BulkWriteOptions(com.mongodb.client.model.BulkWriteOptions originBulkWriteOptions) {
         this.originBulkWriteOptions = originBulkWriteOptions;
     }
 
@@ -55,6 +55,10 @@ public class BulkWriteOptions implements WriteConfigurable<BulkWriteOptions> {
         return originBulkWriteOptions.getBypassDocumentValidation();
     }
 
+    public boolean isOrdered() {
+        return originBulkWriteOptions.isOrdered();
+    }
+
     public BulkWriteOptions ordered(boolean ordered) {
         originBulkWriteOptions.ordered(ordered);
         return this;
@@ -0,0 +1,128 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.session.result;
+
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.BsonValue;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 批量写入的结果
+ * <p>
+ * 批量操作可能会按照 maxWriteBatchSize 拆分为多次 bulkWrite 执行
+ * 这里对每一次的 com.mongodb.bulk.BulkWriteResult 进行合并
+ * upserts 中的下标 为该操作在整个批量操作中的下标
+ */
+public class BulkWriteResult {
+
+    private boolean acknowledged = true;
+
+    private long insertedCount;
+
+    private long matchedCount;
+
+    private long modifiedCount;
+
+    private long deletedCount;
+
+    private final Map< Integer, BsonValue > upserts = new LinkedHashMap<>();
+
+    public BulkWriteResult() {
+    }
+
+    /**
+     * 合并一次 bulkWrite 的结果
+     *
+     * @param originBulkWriteResult 驱动返回的结果
+     * @param offset                该次 bulkWrite 中第一个操作 在整个批量操作中的下标
+     */
+    public void merge( com.mongodb.bulk.BulkWriteResult originBulkWriteResult, int offset ) {
+
+        if (!originBulkWriteResult.wasAcknowledged()) {
+            this.acknowledged = false;
+            return;
+        }
+
+        this.insertedCount += originBulkWriteResult.getInsertedCount();
+        this.matchedCount += originBulkWriteResult.getMatchedCount();
+        this.modifiedCount += originBulkWriteResult.getModifiedCount();
+        this.deletedCount += originBulkWriteResult.getDeletedCount();
+
+        for (BulkWriteUpsert upsert : originBulkWriteResult.getUpserts()) {
+            this.upserts.put(offset + upsert.getIndex(), upsert.getId());
+        }
+    }
+
+    public boolean wasAcknowledged() {
+        return acknowledged;
+    }
+
+    public long getInsertedCount() {
+        return insertedCount;
+    }
+
+    public long getMatchedCount() {
+        return matchedCount;
+    }
+
+    public long getModifiedCount() {
+        return modifiedCount;
+    }
+
+    public long getDeletedCount() {
+        return deletedCount;
+    }
+
+    public long getUpsertedCount() {
+        return upserts.size();
+    }
+
+    /**
+     * @return 操作下标 与 upsert 生成的 id
+     */
+    public Map< Integer, BsonValue > getUpserts() {
+        return Collections.unmodifiableMap(upserts);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkWriteResult{" +
+                "acknowledged=" + acknowledged +
+                ", insertedCount=" + insertedCount +
+                ", matchedCount=" + matchedCount +
+                ", modifiedCount=" + modifiedCount +
+                ", deletedCount=" + deletedCount +
+                ", upserts=" + upserts +
+                '}';
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.FilerException;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * 为每个 @Entity 生成 EntityModelDescriptor
+ * <p>
+ * 生成类与实体位于同一个包 , 类名为 实体类名(内部类以 '_' 连接) + "_MarsModel" ,
+ * 运行时由 EntityModelDescriptors 加载 , 构建 EntityModel 时不再反射扫描实体的字段与方法
+ * <p>
+ * 使用方式 : 将 mars-processor 以 provided 的 scope 加入依赖即可
+ *
+ * @see EntityModelScanner
+ */
+@SupportedAnnotationTypes(EntityModelProcessor.ENTITY)
+public class EntityModelProcessor extends AbstractProcessor {
+
+    static final String ENTITY = "com.whaleal.mars.codecs.pojo.annotations.Entity";
+
+    static final String DESCRIPTOR = "com.whaleal.mars.codecs.pojo.EntityModelDescriptor";
+
+    static final String PROPERTY_DESCRIPTOR = "com.whaleal.mars.codecs.pojo.PropertyDescriptor";
+
+    static final String SUFFIX = "_MarsModel";
+
+    private final Set< String > generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process( Set< ? extends TypeElement > annotations, RoundEnvironment roundEnv ) {
+        for (TypeElement annotation : annotations) {
+            // Entity 带有 @Inherited , 子类同样会被处理
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        // 不独占 Entity 注解 , 其他处理器仍然可以处理
+        return false;
+    }
+
+    private void generate( TypeElement entity ) {
+        String entityName = entity.getQualifiedName().toString();
+        if (!generated.add(entityName)) {
+            return;
+        }
+
+        EntityModelScanner scanner = new EntityModelScanner(processingEnv.getElementUtils(), processingEnv.getTypeUtils(), entity);
+        if (!scanner.scan()) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "Skip generating model of " + entityName + ": " + scanner.getSkipReason(), entity);
+            return;
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        String className = descriptorSimpleName(entity, packageName);
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+
+        Filer filer = processingEnv.getFiler();
+        try {
+            JavaFileObject file = filer.createSourceFile(qualifiedName, entity);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source(scanner, entityName, packageName, className));
+            }
+        } catch (FilerException e) {
+            // 同一个类已经生成过
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Can not generate model of " + entityName + ": " + e.getMessage(), entity);
+        }
+    }
+
+    /**
+     * com.foo.Outer.Inner 对应 Outer_Inner_MarsModel , 与 EntityModelDescriptors#descriptorName 一致
+     */
+    private String descriptorSimpleName( TypeElement entity, String packageName ) {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(entity).toString();
+        String simpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        return simpleName.replace('$', '_') + SUFFIX;
+    }
+
+    private String source( EntityModelScanner scanner, String entityName, String packageName, String className ) {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        // 生成的源码只包含 ASCII 字符 , 不依赖编译时的 encoding
+        source.append("/**\n")
+                .append(" * EntityModelDescriptor of ").append(entityName).append("\n")
+                .append(" * Generated by ").append(EntityModelProcessor.class.getName()).append(", do not edit.\n")
+                .append(" */\n")
+                .append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+                .append("public final class ").append(className)
+                .append(" implements ").append(DESCRIPTOR).append("<").append(entityName).append("> {\n\n");
+
+        source.append("    @Override\n")
+                .append("    public Class<").append(entityName).append("> getType() {\n")
+                .append("        return ").append(entityName).append(".class;\n")
+                .append("    }\n\n");
+
+        source.append("    @Override\n")
+                .append("    public java.util.List<Class<?>> getHierarchy() {\n")
+                .append("        return java.util.Arrays.<Class<?>>asList(");
+        for (Iterator< TypeElement > iterator = scanner.getHierarchy().iterator(); iterator.hasNext(); ) {
+            source.append(iterator.next().getQualifiedName()).append(".class");
+            if (iterator.hasNext()) {
+                source.append(", ");
+            }
+        }
+        source.append(");\n")
+                .append("    }\n\n");
+
+        source.append("    @Override\n")
+                .append("    public java.util.List<").append(PROPERTY_DESCRIPTOR).append("> getProperties() {\n")
+                .append("        return java.util.Arrays.<").append(PROPERTY_DESCRIPTOR).append(">asList(");
+        for (Iterator< EntityModelScanner.PropertyInfo > iterator = scanner.getProperties().values().iterator(); iterator.hasNext(); ) {
+            EntityModelScanner.PropertyInfo property = iterator.next();
+            source.append("\n                ").append(PROPERTY_DESCRIPTOR)
+                    .append(".of(\"").append(property.name).append("\", ").append(scanner.typeData(property.type)).append(')');
+            if (property.setter != null) {
+                source.append("\n                        .setter(")
+                        .append(((TypeElement) property.setter.getEnclosingElement()).getQualifiedName()).append(".class, \"")
+                        .append(property.setter.getSimpleName()).append("\", ")
+                        .append(scanner.classLiteral(property.setter.getParameters().get(0).asType())).append(')');
+            }
+            if (property.getter != null) {
+                source.append("\n                        .getter(")
+                        .append(((TypeElement) property.getter.getEnclosingElement()).getQualifiedName()).append(".class, \"")
+                        .append(property.getter.getSimpleName()).append("\")");
+            }
+            if (property.field != null) {
+                source.append("\n                        .field(")
+                        .append(((TypeElement) property.field.getEnclosingElement()).getQualifiedName()).append(".class, \"")
+                        .append(property.field.getSimpleName()).append("\")");
+            }
+            if (iterator.hasNext()) {
+                source.append(',');
+            }
+        }
+        source.append(");\n")
+                .append("    }\n")
+                .append("}\n");
+        return source.toString();
+    }
+}
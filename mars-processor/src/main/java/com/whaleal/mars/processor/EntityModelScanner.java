@@ -0,0 +1,423 @@
+/**
+ *    Copyright 2020-present  Shanghai Jinmu Information Technology Co., Ltd.
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the Server Side Public License, version 1,
+ *    as published by Shanghai Jinmu Information Technology Co., Ltd.(The name of the development team is Whaleal.)
+ *
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    Server Side Public License for more details.
+ *
+ *    You should have received a copy of the Server Side Public License
+ *    along with this program. If not, see
+ *    <http://www.whaleal.com/licensing/server-side-public-license>.
+ *
+ *    As a special exception, the copyright holders give permission to link the
+ *    code of portions of this program with the OpenSSL library under certain
+ *    conditions as described in each individual source file and distribute
+ *    linked combinations including the program with the OpenSSL library. You
+ *    must comply with the Server Side Public License in all respects for
+ *    all of the code used other than as permitted herein. If you modify file(s)
+ *    with this exception, you may extend this exception to your version of the
+ *    file(s), but you are not obligated to do so. If you do not wish to do so,
+ *    delete this exception statement from your version. If you delete this
+ *    exception statement from all source files in the program, then also delete
+ *    it in the license file.
+ */
+package com.whaleal.mars.processor;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 在编译期按照 MarsBuilderHelper 的规则解析实体
+ * <p>
+ * 逐级处理实体类及其父类 : setter , getter , 字段 ,
+ * 同名属性的类型以最先出现的为准 , 父类中的成员不会覆盖子类已有的成员
+ * <p>
+ * 以下情况不生成 , 运行时仍通过反射构建 :
+ * 泛型实体或泛型父类 , 属性类型中包含类型变量 , 引用了生成类无法访问的类型 ,
+ * 使用了 lombok 等会在编译期修改成员的注解 , 属性类型冲突 或 存在重载的 getter / setter
+ */
+final class EntityModelScanner {
+
+    private static final String IS_PREFIX = "is";
+    private static final String GET_PREFIX = "get";
+    private static final String SET_PREFIX = "set";
+
+    private final Elements elements;
+
+    private final Types types;
+
+    private final TypeElement entity;
+
+    private final String packageName;
+
+    private final List< TypeElement > hierarchy = new ArrayList<>();
+
+    private final Map< String, PropertyInfo > properties = new TreeMap<>();
+
+    private String skipReason;
+
+    EntityModelScanner( Elements elements, Types types, TypeElement entity ) {
+        this.elements = elements;
+        this.types = types;
+        this.entity = entity;
+        this.packageName = elements.getPackageOf(entity).getQualifiedName().toString();
+    }
+
+    /**
+     * @return 解析成功返回 true , 否则通过 {@link #getSkipReason()} 获取原因
+     */
+    boolean scan() {
+        if (entity.getKind() != ElementKind.CLASS) {
+            return skip("not a class");
+        }
+        if (entity.getNestingKind() != NestingKind.TOP_LEVEL
+                && (entity.getNestingKind() != NestingKind.MEMBER || !entity.getModifiers().contains(Modifier.STATIC))) {
+            return skip("only top level or static member classes are supported");
+        }
+
+        TypeElement current = entity;
+        while (current != null && current.getSuperclass().getKind() != TypeKind.NONE) {
+            if (!current.getTypeParameters().isEmpty()) {
+                return skip(current.getQualifiedName() + " has type parameters");
+            }
+            if (!isAccessible(current)) {
+                return skip(current.getQualifiedName() + " is not accessible");
+            }
+            if (hasLombok(current)) {
+                return skip(current.getQualifiedName() + " uses lombok");
+            }
+            hierarchy.add(current);
+
+            List< ExecutableElement > setters = new ArrayList<>();
+            List< ExecutableElement > getters = new ArrayList<>();
+            // 与 PropertyReflectionUtil#getPropertyMethods 一致 : 先是直接实现的接口中的 default 方法 , 再是自身声明的方法
+            for (TypeMirror anInterface : current.getInterfaces()) {
+                TypeElement interfaceElement = (TypeElement) types.asElement(anInterface);
+                for (ExecutableElement method : ElementFilter.methodsIn(interfaceElement.getEnclosedElements())) {
+                    if (method.isDefault()) {
+                        addPropertyMethod(method, getters, setters);
+                    }
+                }
+            }
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                addPropertyMethod(method, getters, setters);
+            }
+
+            for (ExecutableElement setter : setters) {
+                TypeMirror type = setter.getParameters().get(0).asType();
+                PropertyInfo property = getOrCreate(toPropertyName(setter), type);
+                if (property == null) {
+                    return false;
+                }
+                if (property.setter == null) {
+                    property.setter = setter;
+                } else if (property.setter.getEnclosingElement().equals(setter.getEnclosingElement())) {
+                    return skip("overloaded setter " + setter.getSimpleName() + " in " + current.getQualifiedName());
+                }
+            }
+
+            for (ExecutableElement getter : getters) {
+                String propertyName = toPropertyName(getter);
+                PropertyInfo property = properties.get(propertyName);
+                if (property != null && property.getter != null) {
+                    if (property.getter.getEnclosingElement().equals(getter.getEnclosingElement())) {
+                        return skip("duplicate getter for " + propertyName + " in " + current.getQualifiedName());
+                    }
+                    // 子类中覆盖的 getter 优先
+                    continue;
+                }
+                if (getter.getReturnType().getKind() == TypeKind.VOID) {
+                    return skip("getter " + getter.getSimpleName() + " returns void");
+                }
+                property = getOrCreate(propertyName, getter.getReturnType());
+                if (property == null) {
+                    return false;
+                }
+                property.getter = getter;
+            }
+
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                String propertyName = field.getSimpleName().toString();
+                TypeMirror type = field.asType();
+                PropertyInfo property = properties.get(propertyName);
+                if (property == null) {
+                    property = getOrCreate(propertyName, type);
+                    if (property == null) {
+                        return false;
+                    }
+                } else if (!isAssignableFrom(property.type, type)) {
+                    // 类型不一致时 该字段只是实现细节 , 不参与映射
+                    continue;
+                }
+                if (property.field == null) {
+                    property.field = field;
+                }
+            }
+
+            TypeMirror superclass = current.getSuperclass();
+            if (superclass.getKind() != TypeKind.DECLARED) {
+                break;
+            }
+            if (!((DeclaredType) superclass).getTypeArguments().isEmpty()) {
+                return skip("generic superclass " + superclass);
+            }
+            current = (TypeElement) types.asElement(superclass);
+        }
+
+        for (PropertyInfo property : properties.values()) {
+            if (property.setter != null && !isAccessible(property.setter.getParameters().get(0).asType())) {
+                return skip("parameter type of " + property.setter.getSimpleName() + " is not accessible");
+            }
+            if (property.setter != null && !isAccessible((TypeElement) property.setter.getEnclosingElement())) {
+                return skip(property.setter.getEnclosingElement() + " is not accessible");
+            }
+            if (property.getter != null && !isAccessible((TypeElement) property.getter.getEnclosingElement())) {
+                return skip(property.getter.getEnclosingElement() + " is not accessible");
+            }
+        }
+        return true;
+    }
+
+    String getSkipReason() {
+        return skipReason;
+    }
+
+    List< TypeElement > getHierarchy() {
+        return hierarchy;
+    }
+
+    Map< String, PropertyInfo > getProperties() {
+        return properties;
+    }
+
+    /**
+     * 生成 TypeData 的构建代码 , 与 TypeData#newInstance 的结果一致
+     */
+    String typeData( TypeMirror type ) {
+        StringBuilder builder = new StringBuilder("com.whaleal.mars.codecs.pojo.TypeData.builder(")
+                .append(classLiteral(type)).append(')');
+        if (type.getKind() == TypeKind.DECLARED) {
+            for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                builder.append(".addTypeParameter(").append(typeParameter(argument)).append(')');
+            }
+        }
+        return builder.append(".build()").toString();
+    }
+
+    String classLiteral( TypeMirror type ) {
+        return typeName(types.erasure(type)) + ".class";
+    }
+
+    private String typeParameter( TypeMirror type ) {
+        if (type.getKind() == TypeKind.WILDCARD) {
+            TypeMirror bound = ((WildcardType) type).getExtendsBound();
+            return bound == null ? "com.whaleal.mars.codecs.pojo.TypeData.builder(java.lang.Object.class).build()"
+                    : "com.whaleal.mars.codecs.pojo.TypeData.builder(" + classLiteral(bound) + ").build()";
+        }
+        return typeData(type);
+    }
+
+    private String typeName( TypeMirror type ) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) types.asElement(type)).getQualifiedName().toString();
+            default:
+                return type.getKind().name().toLowerCase();
+        }
+    }
+
+    private PropertyInfo getOrCreate( String propertyName, TypeMirror type ) {
+        PropertyInfo property = properties.get(propertyName);
+        if (property == null) {
+            if (!isSupported(type)) {
+                skip("type of property '" + propertyName + "' (" + type + ") is not supported");
+                return null;
+            }
+            property = new PropertyInfo(propertyName, type);
+            properties.put(propertyName, property);
+        } else if (!isAssignableFrom(property.type, type) && !isAssignableFrom(type, property.type)) {
+            // 由反射构建时报告类型冲突
+            skip("property '" + propertyName + "' has differing data types: " + property.type + " and " + type);
+            return null;
+        }
+        return property;
+    }
+
+    /**
+     * 与 Class#isAssignableFrom 的语义一致 , 基本类型之间不做装箱与拓宽
+     */
+    private boolean isAssignableFrom( TypeMirror to, TypeMirror from ) {
+        TypeMirror target = types.erasure(to);
+        TypeMirror source = types.erasure(from);
+        if (target.getKind().isPrimitive() || source.getKind().isPrimitive()) {
+            return types.isSameType(target, source);
+        }
+        return types.isSubtype(source, target);
+    }
+
+    /**
+     * 属性类型中不能出现类型变量 , 数组的元素类型不能带泛型参数 , 且引用的类型都要能被生成类访问
+     */
+    private boolean isSupported( TypeMirror type ) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case CHAR:
+            case FLOAT:
+            case DOUBLE:
+                return true;
+            case ARRAY:
+                TypeMirror component = ((ArrayType) type).getComponentType();
+                return types.isSameType(component, types.erasure(component)) && isSupported(component);
+            case DECLARED:
+                if (!isAccessible((TypeElement) types.asElement(type))) {
+                    return false;
+                }
+                for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+                    if (argument.getKind() == TypeKind.WILDCARD) {
+                        TypeMirror bound = ((WildcardType) argument).getExtendsBound();
+                        if (bound != null && (bound.getKind() != TypeKind.DECLARED
+                                || !((DeclaredType) bound).getTypeArguments().isEmpty() || !isSupported(bound))) {
+                            return false;
+                        }
+                    } else if (!isSupported(argument)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean isAccessible( TypeMirror type ) {
+        TypeMirror erasure = types.erasure(type);
+        while (erasure.getKind() == TypeKind.ARRAY) {
+            erasure = ((ArrayType) erasure).getComponentType();
+        }
+        return erasure.getKind() != TypeKind.DECLARED || isAccessible((TypeElement) types.asElement(erasure));
+    }
+
+    /**
+     * 生成类与实体位于同一个包 , 非 public 的类型必须与实体同包 , private 的类型无法访问
+     */
+    private boolean isAccessible( TypeElement type ) {
+        Element element = type;
+        while (element instanceof TypeElement) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!element.getModifiers().contains(Modifier.PUBLIC)
+                    && !elements.getPackageOf(element).getQualifiedName().contentEquals(packageName)) {
+                return false;
+            }
+            if (((TypeElement) element).getNestingKind() == NestingKind.LOCAL
+                    || ((TypeElement) element).getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private boolean hasLombok( TypeElement type ) {
+        if (isLombok(type)) {
+            return true;
+        }
+        for (Element member : type.getEnclosedElements()) {
+            if (isLombok(member)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isLombok( Element element ) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().toString().startsWith("lombok.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 与 PropertyReflectionUtil#verifyAddMethodToList 一致
+     */
+    private void addPropertyMethod( ExecutableElement method, List< ExecutableElement > getters, List< ExecutableElement > setters ) {
+        if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+            return;
+        }
+        String name = method.getSimpleName().toString();
+        int parameters = method.getParameters().size();
+        if (parameters == 0 && (isPropertyMethod(name, GET_PREFIX) || isPropertyMethod(name, IS_PREFIX))) {
+            getters.add(method);
+        } else if (parameters == 1 && isPropertyMethod(name, SET_PREFIX)) {
+            setters.add(method);
+        }
+    }
+
+    private static boolean isPropertyMethod( String name, String prefix ) {
+        if (name.startsWith(prefix) && name.length() > prefix.length()) {
+            char c = name.charAt(prefix.length());
+            return Character.isUpperCase(c) || !Character.isLowerCase(c);
+        }
+        return false;
+    }
+
+    private static String toPropertyName( ExecutableElement method ) {
+        String name = method.getSimpleName().toString();
+        char[] chars = name.substring(name.startsWith(IS_PREFIX) ? 2 : 3).toCharArray();
+        chars[0] = Character.toLowerCase(chars[0]);
+        return new String(chars);
+    }
+
+    private boolean skip( String reason ) {
+        this.skipReason = reason;
+        return false;
+    }
+
+    /**
+     * 单个属性 , type 为最先出现的成员的类型
+     */
+    static final class PropertyInfo {
+
+        final String name;
+
+        final TypeMirror type;
+
+        ExecutableElement setter;
+
+        ExecutableElement getter;
+
+        VariableElement field;
+
+        PropertyInfo( String name, TypeMirror type ) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.whaleal.mars.benchmark;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体编解码对比
+ * <p>
+ * mars       默认的 MarsCodec (EntityEncoder / EntityDecoder)
+ * generated  开启 MongoMappingContext#setCodecGeneration 后的 MarsCodec
+ * pojo       驱动自带的 PojoCodec
+ * <p>
+ * 编解码均在内存中完成 , 不访问数据库
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    private MongoClient client;
+
+    private Codec< BenchEntity > marsCodec;
+
+    private Codec< BenchEntity > generatedCodec;
+
+    private Codec< BenchEntity > pojoCodec;
+
+    private BenchEntity entity;
+
+    private byte[] encoded;
+
+    @Setup
+    public void init() {
+        client = MongoClients.create(Constant.connectionStr);
+
+        marsCodec = new MongoMappingContext(client.getDatabase("mars")).getCodecRegistry().get(BenchEntity.class);
+
+        MongoMappingContext generated = new MongoMappingContext(client.getDatabase("mars"));
+        generated.setCodecGeneration(true);
+        generatedCodec = generated.getCodecRegistry().get(BenchEntity.class);
+
+        pojoCodec = CodecRegistries.fromRegistries(MongoClientSettings.getDefaultCodecRegistry(),
+                CodecRegistries.fromProviders(PojoCodecProvider.builder().automatic(true).build()))
+                .get(BenchEntity.class);
+
+        entity = BenchEntity.create();
+        encoded = encode(marsCodec);
+    }
+
+    @TearDown
+    public void destroy() {
+        client.close();
+    }
+
+    @Benchmark
+    public byte[] encodeMars() {
+        return encode(marsCodec);
+    }
+
+    @Benchmark
+    public byte[] encodeGenerated() {
+        return encode(generatedCodec);
+    }
+
+    @Benchmark
+    public byte[] encodePojo() {
+        return encode(pojoCodec);
+    }
+
+    @Benchmark
+    public BenchEntity decodeMars() {
+        return decode(marsCodec);
+    }
+
+    @Benchmark
+    public BenchEntity decodeGenerated() {
+        return decode(generatedCodec);
+    }
+
+    @Benchmark
+    public BenchEntity decodePojo() {
+        return decode(pojoCodec);
+    }
+
+    private byte[] encode( Codec< BenchEntity > codec ) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer(512);
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            codec.encode(writer, entity, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+
+    private BenchEntity decode( Codec< BenchEntity > codec ) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(encoded))) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    public static void main( String[] args ) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    public static class BenchEntity {
+
+        private String id;
+        private String name;
+        private String email;
+        private int age;
+        private long visits;
+        private double score;
+        private boolean active;
+        private Integer level;
+        private Long balance;
+        private Double ratio;
+        private Date created;
+        private List< String > tags;
+
+        static BenchEntity create() {
+            BenchEntity entity = new BenchEntity();
+            entity.id = "5f1d7a3e9c1b2a0001a1b2c3";
+            entity.name = "whaleal";
+            entity.email = "mars@whaleal.com";
+            entity.age = 31;
+            entity.visits = 1234567890123L;
+            entity.score = 98.5;
+            entity.active = true;
+            entity.level = 7;
+            entity.balance = 100000L;
+            entity.ratio = 0.75;
+            entity.created = new Date(1600000000000L);
+            entity.tags = Arrays.asList("a", "b", "c");
+            return entity;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId( String id ) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName( String name ) {
+            this.name = name;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail( String email ) {
+            this.email = email;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge( int age ) {
+            this.age = age;
+        }
+
+        public long getVisits() {
+            return visits;
+        }
+
+        public void setVisits( long visits ) {
+            this.visits = visits;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public void setScore( double score ) {
+            this.score = score;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive( boolean active ) {
+            this.active = active;
+        }
+
+        public Integer getLevel() {
+            return level;
+        }
+
+        public void setLevel( Integer level ) {
+            this.level = level;
+        }
+
+        public Long getBalance() {
+            return balance;
+        }
+
+        public void setBalance( Long balance ) {
+            this.balance = balance;
+        }
+
+        public Double getRatio() {
+            return ratio;
+        }
+
+        public void setRatio( Double ratio ) {
+            this.ratio = ratio;
+        }
+
+        public Date getCreated() {
+            return created;
+        }
+
+        public void setCreated( Date created ) {
+            this.created = created;
+        }
+
+        public List< String > getTags() {
+            return tags;
+        }
+
+        public void setTags( List< String > tags ) {
+            this.tags = tags;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.whaleal.mars.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Map&lt;String, Object&gt; 为主的实体编码
+ * <p>
+ * 每个值都按实际类型查找 codec , 用于观察 codec 查找缓存的效果
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecLookupBenchmark {
+
+    @Param({"20", "200"})
+    private int entries;
+
+    private MongoClient client;
+
+    private MongoMappingContext mapper;
+
+    private Codec< Attributes > codec;
+
+    private Attributes attributes;
+
+    private BasicOutputBuffer buffer;
+
+    @Setup
+    public void init() {
+        client = MongoClients.create(Constant.connectionStr);
+        mapper = new MongoMappingContext(client.getDatabase("mars"));
+        codec = mapper.getCodecRegistry().get(Attributes.class);
+
+        attributes = new Attributes();
+        attributes.id = new ObjectId();
+        for (int i = 0; i < entries; i++) {
+            switch (i % 5) {
+                case 0:
+                    attributes.values.put("s" + i, "value-" + i);
+                    break;
+                case 1:
+                    attributes.values.put("i" + i, i);
+                    break;
+                case 2:
+                    attributes.values.put("d" + i, i / 3.0);
+                    break;
+                case 3:
+                    attributes.values.put("b" + i, i % 2 == 0);
+                    break;
+                default:
+                    attributes.values.put("t" + i, new Date(i));
+                    break;
+            }
+            attributes.tags.add(i % 2 == 0 ? "tag-" + i : (Object) (long) i);
+        }
+        buffer = new BasicOutputBuffer(64 * 1024);
+    }
+
+    @TearDown
+    public void destroy() {
+        System.out.printf("codec cache hits: %d, misses: %d%n",
+                mapper.getCodecCacheHitCount(), mapper.getCodecCacheMissCount());
+        client.close();
+    }
+
+    @Benchmark
+    public int encode() {
+        buffer.truncateToPosition(0);
+        BsonBinaryWriter writer = new BsonBinaryWriter(buffer);
+        codec.encode(writer, attributes, EncoderContext.builder().build());
+        return buffer.getPosition();
+    }
+
+    public static void main( String[] args ) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CodecLookupBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    public static class Attributes {
+        @Id
+        public ObjectId id;
+        public Map< String, Object > values = new LinkedHashMap<>();
+        public List< Object > tags = new ArrayList<>();
+    }
+}
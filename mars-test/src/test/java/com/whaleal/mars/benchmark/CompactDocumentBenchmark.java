@@ -0,0 +1,135 @@
+package com.whaleal.mars.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.CompactDocument;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聚合结果 ( $group 输出的形状 ) 解码为 Document 与 CompactDocument
+ * <p>
+ * main 中先分别解码 {@link #RESULT_SIZE} 个文档并全部持有 , 输出占用的堆大小 , 再运行 JMH 比较解码耗时及分配
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompactDocumentBenchmark {
+
+    static final int RESULT_SIZE = 1_000_000;
+
+    private static final int DISTINCT = 1000;
+
+    private static final int BATCH = 1000;
+
+    private MongoClient client;
+
+    private Codec< CompactDocument > compactCodec;
+
+    private Codec< Document > documentCodec;
+
+    private RawBsonDocument[] results;
+
+    @Setup
+    public void init() {
+        client = MongoClients.create(Constant.connectionStr);
+        MongoMappingContext mapper = new MongoMappingContext(client.getDatabase("mars"));
+        compactCodec = mapper.getCodecRegistry().get(CompactDocument.class);
+        documentCodec = new DocumentCodec(mapper.getCodecRegistry());
+        results = results();
+    }
+
+    @TearDown
+    public void destroy() {
+        client.close();
+    }
+
+    @Benchmark
+    public List< Document > document() {
+        return decode(documentCodec, results, BATCH);
+    }
+
+    @Benchmark
+    public List< CompactDocument > compact() {
+        return decode(compactCodec, results, BATCH);
+    }
+
+    static RawBsonDocument[] results() {
+        DocumentCodec codec = new DocumentCodec();
+        RawBsonDocument[] results = new RawBsonDocument[DISTINCT];
+        for (int i = 0; i < DISTINCT; i++) {
+            Document result = new Document("_id", new Document("region", "region-" + (i % 20)).append("year", 2000 + i % 22))
+                    .append("count", i)
+                    .append("total", i * 10.5)
+                    .append("avg", i / 7.0)
+                    .append("last", new Date(1600000000000L + i))
+                    .append("tags", Arrays.asList("t" + (i % 3), "t" + (i % 5)));
+            results[i] = new RawBsonDocument(result, codec);
+        }
+        return results;
+    }
+
+    static < T > List< T > decode( Codec< T > codec, RawBsonDocument[] results, int count ) {
+        DecoderContext context = DecoderContext.builder().build();
+        List< T > decoded = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            RawBsonDocument result = results[i % results.length];
+            try (BsonBinaryReader reader = new BsonBinaryReader(result.getByteBuffer().asNIO())) {
+                decoded.add(codec.decode(reader, context));
+            }
+        }
+        return decoded;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static < T > void measure( String name, Codec< T > codec, RawBsonDocument[] results ) {
+        long before = usedHeap();
+        List< T > decoded = decode(codec, results, RESULT_SIZE);
+        long after = usedHeap();
+        System.out.printf("%s: %d documents retain %.1f MB (%d bytes per document)%n",
+                name, decoded.size(), (after - before) / (1024.0 * 1024.0), (after - before) / decoded.size());
+    }
+
+    public static void main( String[] args ) throws RunnerException {
+        try (MongoClient client = MongoClients.create(Constant.connectionStr)) {
+            MongoMappingContext mapper = new MongoMappingContext(client.getDatabase("mars"));
+            RawBsonDocument[] results = results();
+            measure("Document", new DocumentCodec(mapper.getCodecRegistry()), results);
+            measure("CompactDocument", mapper.getCodecRegistry().get(CompactDocument.class), results);
+        }
+
+        Options options = new OptionsBuilder()
+                .include(CompactDocumentBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
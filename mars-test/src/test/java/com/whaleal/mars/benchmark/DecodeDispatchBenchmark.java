@@ -0,0 +1,165 @@
+package com.whaleal.mars.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 宽实体解码
+ * <p>
+ * inOrder   字段按写入顺序读回 , 走顺序匹配
+ * reversed  字段倒序 , 每个字段都通过 HashMap 查找
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeDispatchBenchmark {
+
+    @Param({"50", "200"})
+    private int fields;
+
+    private MongoClient client;
+
+    private Codec< Object > codec;
+
+    private byte[] inOrder;
+
+    private byte[] reversed;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void init() throws Exception {
+        client = MongoClients.create(Constant.connectionStr);
+        MongoMappingContext mapper = new MongoMappingContext(client.getDatabase("mars"));
+
+        Class< ? > type = fields == 50 ? Wide50.class : Wide200.class;
+        codec = (Codec< Object >) mapper.getCodecRegistry().get(type);
+
+        Object entity = type.newInstance();
+        int i = 0;
+        for (Field field : type.getFields()) {
+            if (field.getType() == int.class) {
+                field.setInt(entity, i);
+            } else if (field.getType() == long.class) {
+                field.setLong(entity, i * 1000L);
+            } else if (field.getType() == double.class) {
+                field.setDouble(entity, i / 3.0);
+            } else if (field.getType() == boolean.class) {
+                field.setBoolean(entity, i % 2 == 0);
+            } else {
+                field.set(entity, "value-" + i);
+            }
+            i++;
+        }
+
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            codec.encode(writer, entity, EncoderContext.builder().build());
+        }
+        inOrder = buffer.toByteArray();
+
+        RawBsonDocument raw = new RawBsonDocument(inOrder);
+        List< String > keys = new ArrayList<>(raw.keySet());
+        Collections.reverse(keys);
+        BsonDocument document = new BsonDocument();
+        for (String key : keys) {
+            document.put(key, raw.get(key));
+        }
+        buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            new BsonDocumentCodec().encode(writer, document, EncoderContext.builder().build());
+        }
+        reversed = buffer.toByteArray();
+    }
+
+    @TearDown
+    public void destroy() {
+        client.close();
+    }
+
+    @Benchmark
+    public Object decodeInOrder() {
+        return decode(inOrder);
+    }
+
+    @Benchmark
+    public Object decodeReversed() {
+        return decode(reversed);
+    }
+
+    private Object decode( byte[] bytes ) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    public static void main( String[] args ) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DecodeDispatchBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    public static class Wide50 {
+        @Id
+        public String id;
+        public int i0, i1, i2, i3, i4, i5, i6, i7, i8, i9;
+        public long l0, l1, l2, l3, l4, l5, l6, l7, l8, l9;
+        public double d0, d1, d2, d3, d4, d5, d6, d7, d8, d9;
+        public boolean b0, b1, b2, b3, b4, b5, b6, b7, b8, b9;
+        public String s0, s1, s2, s3, s4, s5, s6, s7, s8, s9;
+    }
+
+    public static class Wide200 {
+        @Id
+        public String id;
+        public int i0, i1, i2, i3, i4, i5, i6, i7, i8, i9;
+        public int i10, i11, i12, i13, i14, i15, i16, i17, i18, i19;
+        public int i20, i21, i22, i23, i24, i25, i26, i27, i28, i29;
+        public int i30, i31, i32, i33, i34, i35, i36, i37, i38, i39;
+        public long l0, l1, l2, l3, l4, l5, l6, l7, l8, l9;
+        public long l10, l11, l12, l13, l14, l15, l16, l17, l18, l19;
+        public long l20, l21, l22, l23, l24, l25, l26, l27, l28, l29;
+        public long l30, l31, l32, l33, l34, l35, l36, l37, l38, l39;
+        public double d0, d1, d2, d3, d4, d5, d6, d7, d8, d9;
+        public double d10, d11, d12, d13, d14, d15, d16, d17, d18, d19;
+        public double d20, d21, d22, d23, d24, d25, d26, d27, d28, d29;
+        public double d30, d31, d32, d33, d34, d35, d36, d37, d38, d39;
+        public boolean b0, b1, b2, b3, b4, b5, b6, b7, b8, b9;
+        public boolean b10, b11, b12, b13, b14, b15, b16, b17, b18, b19;
+        public boolean b20, b21, b22, b23, b24, b25, b26, b27, b28, b29;
+        public boolean b30, b31, b32, b33, b34, b35, b36, b37, b38, b39;
+        public String s0, s1, s2, s3, s4, s5, s6, s7, s8, s9;
+        public String s10, s11, s12, s13, s14, s15, s16, s17, s18, s19;
+        public String s20, s21, s22, s23, s24, s25, s26, s27, s28, s29;
+        public String s30, s31, s32, s33, s34, s35, s36, s37, s38, s39;
+    }
+}
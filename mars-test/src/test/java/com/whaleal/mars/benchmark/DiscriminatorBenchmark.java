@@ -0,0 +1,133 @@
+package com.whaleal.mars.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Discriminator;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三层继承的多态解码
+ * <p>
+ * leading   discriminator 紧跟在 _id 之后 , 查看前两个字段即可确定类型
+ * trailing  discriminator 位于文档末尾 , 需要扫描整个文档
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiscriminatorBenchmark {
+
+    private MongoClient client;
+
+    private Codec< Animal > codec;
+
+    private byte[] leading;
+
+    private byte[] trailing;
+
+    @Setup
+    public void init() {
+        client = MongoClients.create(Constant.connectionStr);
+        MongoMappingContext mapper = new MongoMappingContext(client.getDatabase("mars"));
+        mapper.getCodecRegistry().get(Puppy.class);
+        codec = mapper.getCodecRegistry().get(Animal.class);
+
+        Puppy puppy = new Puppy();
+        puppy.id = "puppy-1";
+        puppy.name = "whale";
+        puppy.owner = "mars";
+        puppy.breed = "husky";
+        puppy.weight = 12.5;
+        puppy.age = 2;
+        puppy.vaccinated = true;
+
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            codec.encode(writer, puppy, EncoderContext.builder().build());
+        }
+        leading = buffer.toByteArray();
+
+        BsonDocument document;
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(leading))) {
+            document = new BsonDocumentCodec().decode(reader, DecoderContext.builder().build());
+        }
+        BsonString kind = (BsonString) document.remove("kind");
+        document.put("kind", kind);
+        buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            new BsonDocumentCodec().encode(writer, document, EncoderContext.builder().build());
+        }
+        trailing = buffer.toByteArray();
+    }
+
+    @TearDown
+    public void destroy() {
+        client.close();
+    }
+
+    @Benchmark
+    public Animal decodeLeading() {
+        return decode(leading);
+    }
+
+    @Benchmark
+    public Animal decodeTrailing() {
+        return decode(trailing);
+    }
+
+    private Animal decode( byte[] bytes ) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    public static void main( String[] args ) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DiscriminatorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    @Discriminator(useDiscriminator = true, key = "kind", value = "animal")
+    public static class Animal {
+        @Id
+        public String id;
+        public String name;
+        public String owner;
+    }
+
+    @Discriminator(useDiscriminator = true, key = "kind", value = "dog")
+    public static class Dog extends Animal {
+        public String breed;
+        public double weight;
+    }
+
+    @Discriminator(useDiscriminator = true, key = "kind", value = "puppy")
+    public static class Puppy extends Dog {
+        public int age;
+        public boolean vaccinated;
+    }
+}
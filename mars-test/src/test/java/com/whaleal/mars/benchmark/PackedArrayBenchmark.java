@@ -0,0 +1,137 @@
+package com.whaleal.mars.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import com.whaleal.mars.codecs.pojo.annotations.Representation;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonType;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * double[1024] 存为 BSON 数组 与 @Representation(BsonType.BINARY) 紧凑存储的对比
+ * <p>
+ * 启动时打印两种形式编码后的字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PackedArrayBenchmark {
+
+    private static final int LENGTH = 1024;
+
+    private MongoClient client;
+
+    private Codec< ArrayVector > arrayCodec;
+
+    private Codec< PackedVector > packedCodec;
+
+    private ArrayVector arrayVector;
+
+    private PackedVector packedVector;
+
+    private byte[] arrayEncoded;
+
+    private byte[] packedEncoded;
+
+    @Setup
+    public void init() {
+        client = MongoClients.create(Constant.connectionStr);
+        MongoMappingContext mapper = new MongoMappingContext(client.getDatabase("mars"));
+        arrayCodec = mapper.getCodecRegistry().get(ArrayVector.class);
+        packedCodec = mapper.getCodecRegistry().get(PackedVector.class);
+
+        double[] features = new double[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            features[i] = Math.sin(i);
+        }
+        arrayVector = new ArrayVector();
+        arrayVector.id = "vector";
+        arrayVector.features = features;
+        packedVector = new PackedVector();
+        packedVector.id = "vector";
+        packedVector.features = features;
+
+        arrayEncoded = encode(arrayCodec, arrayVector);
+        packedEncoded = encode(packedCodec, packedVector);
+        System.out.println("array: " + arrayEncoded.length + " bytes, packed: " + packedEncoded.length + " bytes");
+    }
+
+    @TearDown
+    public void destroy() {
+        client.close();
+    }
+
+    @Benchmark
+    public byte[] encodeArray() {
+        return encode(arrayCodec, arrayVector);
+    }
+
+    @Benchmark
+    public byte[] encodePacked() {
+        return encode(packedCodec, packedVector);
+    }
+
+    @Benchmark
+    public ArrayVector decodeArray() {
+        return decode(arrayCodec, arrayEncoded);
+    }
+
+    @Benchmark
+    public PackedVector decodePacked() {
+        return decode(packedCodec, packedEncoded);
+    }
+
+    private static < T > byte[] encode( Codec< T > codec, T value ) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer(LENGTH * 16);
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            codec.encode(writer, value, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+
+    private static < T > T decode( Codec< T > codec, byte[] encoded ) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(encoded))) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    public static void main( String[] args ) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PackedArrayBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    public static class ArrayVector {
+        @Id
+        public String id;
+        public double[] features;
+    }
+
+    public static class PackedVector {
+        @Id
+        public String id;
+        @Representation(BsonType.BINARY)
+        public double[] features;
+    }
+}
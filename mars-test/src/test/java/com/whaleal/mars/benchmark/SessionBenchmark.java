@@ -0,0 +1,87 @@
+package com.whaleal.mars.benchmark;
+
+import com.mongodb.client.MongoClient;
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.base.StudentGenerator;
+import com.whaleal.mars.bean.Student;
+import com.whaleal.mars.core.Mars;
+import com.whaleal.mars.core.query.Criteria;
+import com.whaleal.mars.core.query.Query;
+import com.whaleal.mars.session.MarsSession;
+import com.whaleal.mars.session.MarsSessionImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次查询 的 session 开销对比
+ * <p>
+ * perOperationContext 还原了此前每次操作的行为 : 新建 MongoMappingContext , 并在新建的 ClientSession 上执行
+ * implicitSession     普通 crud 不传递 session , 由驱动使用隐式会话
+ * explicitSession     显式 session , 共享 Mars 的 mapper 及 database
+ * <p>
+ * 单次操作的内存分配 见 GCProfiler 输出的 gc.alloc.rate.norm
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionBenchmark {
+
+    private Mars mars;
+
+    private MongoClient client;
+
+    private Query query;
+
+    @Setup
+    public void init() {
+        mars = new Mars(Constant.connectionStr);
+        client = mars.getMongoClient();
+        mars.dropCollection(Student.class);
+        mars.insert(StudentGenerator.getInstance(1001));
+        query = new Query(Criteria.where("_id").is("1001"));
+    }
+
+    @TearDown
+    public void destroy() {
+        mars.dropCollection(Student.class);
+        client.close();
+    }
+
+    @Benchmark
+    public Optional< Student > perOperationContext() {
+        Mars perOperation = new Mars(client, mars.getDatabase().getName());
+        try (MarsSession session = new MarsSessionImpl(client.startSession(), perOperation)) {
+            return session.findOne(query, Student.class);
+        }
+    }
+
+    @Benchmark
+    public Optional< Student > implicitSession() {
+        return mars.findOne(query, Student.class);
+    }
+
+    @Benchmark
+    public Optional< Student > explicitSession() {
+        try (MarsSession session = mars.startSession()) {
+            return session.findOne(query, Student.class);
+        }
+    }
+
+    public static void main( String[] args ) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SessionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
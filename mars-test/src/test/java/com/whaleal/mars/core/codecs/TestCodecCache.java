@@ -0,0 +1,67 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import com.whaleal.mars.core.Mars;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * codec 查找缓存
+ */
+public class TestCodecCache {
+
+    private MongoMappingContext mapper;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+    }
+
+    @Test
+    public void testRepeatedLookupHitsCache() {
+        Codec< Attributes > first = mapper.getCodecRegistry().get(Attributes.class);
+        long misses = mapper.getCodecCacheMissCount();
+        long hits = mapper.getCodecCacheHitCount();
+
+        Codec< Attributes > second = mapper.getCodecRegistry().get(Attributes.class);
+        assertSame(second, first);
+        assertEquals(mapper.getCodecCacheMissCount(), misses);
+        assertEquals(mapper.getCodecCacheHitCount(), hits + 1);
+    }
+
+    @Test
+    public void testMixedMapValues() {
+        Attributes attributes = new Attributes();
+        attributes.id = "a1";
+        attributes.values.put("name", "whale");
+        attributes.values.put("count", 3);
+        attributes.values.put("ratio", 0.5);
+        attributes.values.put("active", true);
+        attributes.values.put("size", 10L);
+        attributes.values.put("label", "fall");
+
+        Document document = mapper.toDocument(attributes);
+        Document values = (Document) document.get("values");
+        assertEquals(values.get("name"), "whale");
+        assertEquals(values.get("count"), 3);
+        assertEquals(values.get("ratio"), 0.5);
+        assertEquals(values.get("active"), true);
+        assertEquals(values.get("size"), 10L);
+        assertEquals(values.get("label"), "fall");
+    }
+
+    public static class Attributes {
+        @Id
+        public String id;
+        public Map< String, Object > values = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,91 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.CompactDocument;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.core.Mars;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Document 类型的结果解码为只读的 CompactDocument
+ */
+public class TestCompactDocument {
+
+    private MongoMappingContext mapper;
+
+    private Codec< CompactDocument > codec;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+        codec = mapper.getCodecRegistry().get(CompactDocument.class);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        ObjectId id = new ObjectId();
+        Document source = new Document("_id", id)
+                .append("name", "mars")
+                .append("count", 3)
+                .append("total", 4L)
+                .append("avg", 1.5)
+                .append("active", true)
+                .append("created", new Date(1600000000000L))
+                .append("empty", null)
+                .append("address", new Document("city", "shanghai").append("zip", "200000"))
+                .append("tags", Arrays.asList("a", new Document("b", 1), Arrays.asList(1, 2)));
+
+        CompactDocument compact = decode(source);
+        assertEquals(compact, source);
+        assertEquals(compact.getObjectId("_id"), id);
+        assertEquals(compact.getInteger("count"), Integer.valueOf(3));
+        assertEquals(compact.getDocument("address").getString("city"), "shanghai");
+        assertTrue(compact.containsKey("empty"));
+        assertNull(compact.get("missing"));
+
+        List< Object > tags = compact.getList("tags", Object.class);
+        assertTrue(tags.get(1) instanceof CompactDocument);
+        assertEquals(compact.toDocument(), source);
+
+        RawBsonDocument encoded = new RawBsonDocument(compact, codec);
+        assertEquals(encoded, new RawBsonDocument(source, new DocumentCodec()));
+    }
+
+    @Test
+    public void testReadOnly() {
+        CompactDocument compact = decode(new Document("a", 1).append("list", Arrays.asList(1, 2)));
+        assertThrows(UnsupportedOperationException.class, () -> compact.put("b", 2));
+        assertThrows(UnsupportedOperationException.class, () -> compact.remove("a"));
+        assertThrows(UnsupportedOperationException.class, () -> compact.getList("list", Integer.class).add(3));
+    }
+
+    @Test
+    public void testWideDocument() {
+        Document source = new Document();
+        for (int i = 0; i < 100; i++) {
+            source.append("f" + i, i);
+        }
+        CompactDocument compact = decode(source);
+        assertEquals(compact, source);
+        assertEquals(compact.getInteger("f99"), Integer.valueOf(99));
+    }
+
+    private CompactDocument decode( Document document ) {
+        RawBsonDocument raw = new RawBsonDocument(document, new DocumentCodec());
+        return codec.decode(new BsonBinaryReader(raw.getByteBuffer().asNIO()), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,339 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Constructor;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import com.whaleal.mars.codecs.pojo.annotations.Property;
+import com.whaleal.mars.core.Mars;
+import org.bson.Document;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * 通过 @Constructor 创建实例
+ */
+public class TestConstructorCreator {
+
+    private MongoMappingContext mapper;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+    }
+
+    @Test
+    public void testImmutable() {
+        Point point = new Point("p1", 3, 4);
+
+        Point decoded = mapper.fromDocument(Point.class, mapper.toDocument(point));
+        assertEquals(decoded.getId(), "p1");
+        assertEquals(decoded.getX(), 3);
+        assertEquals(decoded.getY(), 4);
+    }
+
+    @Test
+    public void testFieldsBeforeParameters() {
+        Document document = new Document("label", "origin")
+                .append("y", 2)
+                .append("_id", "l1")
+                .append("x", 1)
+                .append("note", "after");
+
+        Labeled labeled = mapper.fromDocument(Labeled.class, document);
+        assertEquals(labeled.getId(), "l1");
+        assertEquals(labeled.getX(), 1);
+        assertEquals(labeled.getY(), 2);
+        assertEquals(labeled.label, "origin");
+        assertEquals(labeled.note, "after");
+    }
+
+    @Test
+    public void testMissingParameter() {
+        Document document = new Document("_id", "p2").append("x", 1);
+
+        try {
+            mapper.fromDocument(Point.class, document);
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("[y]"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testManyParameters() {
+        Document document = new Document("_id", "w1");
+        for (int i = 0; i < Wide.FIELDS; i++) {
+            document.append("f" + i, i);
+        }
+
+        Wide wide = mapper.fromDocument(Wide.class, document);
+        assertEquals(wide.id, "w1");
+        assertEquals(wide.f0, 0);
+        assertEquals(wide.f63, 63);
+        assertEquals(wide.f64, 64);
+
+        //  超过 64 个参数的部分记录在 moreFilled 中
+        document.remove("f64");
+        try {
+            mapper.fromDocument(Wide.class, document);
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("[f64]"), e.getMessage());
+        }
+
+        document.append("f64", 64).remove("f3");
+        try {
+            mapper.fromDocument(Wide.class, document);
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("[f3]"), e.getMessage());
+        }
+    }
+
+    public static class Point {
+        @Id
+        private final String id;
+        private final int x;
+        private final int y;
+
+        @Constructor
+        public Point( @Id String id, @Property("x") int x, @Property("y") int y ) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+    }
+
+    public static class Labeled extends Point {
+        public String label;
+        public String note;
+
+        @Constructor
+        public Labeled( @Id String id, @Property("x") int x, @Property("y") int y ) {
+            super(id, x, y);
+        }
+    }
+
+    //  _id 加 65 个参数
+    public static class Wide {
+        static final int FIELDS = 65;
+
+        @Id
+        public final String id;
+        public final int f0;
+        public final int f1;
+        public final int f2;
+        public final int f3;
+        public final int f4;
+        public final int f5;
+        public final int f6;
+        public final int f7;
+        public final int f8;
+        public final int f9;
+        public final int f10;
+        public final int f11;
+        public final int f12;
+        public final int f13;
+        public final int f14;
+        public final int f15;
+        public final int f16;
+        public final int f17;
+        public final int f18;
+        public final int f19;
+        public final int f20;
+        public final int f21;
+        public final int f22;
+        public final int f23;
+        public final int f24;
+        public final int f25;
+        public final int f26;
+        public final int f27;
+        public final int f28;
+        public final int f29;
+        public final int f30;
+        public final int f31;
+        public final int f32;
+        public final int f33;
+        public final int f34;
+        public final int f35;
+        public final int f36;
+        public final int f37;
+        public final int f38;
+        public final int f39;
+        public final int f40;
+        public final int f41;
+        public final int f42;
+        public final int f43;
+        public final int f44;
+        public final int f45;
+        public final int f46;
+        public final int f47;
+        public final int f48;
+        public final int f49;
+        public final int f50;
+        public final int f51;
+        public final int f52;
+        public final int f53;
+        public final int f54;
+        public final int f55;
+        public final int f56;
+        public final int f57;
+        public final int f58;
+        public final int f59;
+        public final int f60;
+        public final int f61;
+        public final int f62;
+        public final int f63;
+        public final int f64;
+
+        @Constructor
+        public Wide( @Id String id,
+                     @Property("f0") int f0,
+                     @Property("f1") int f1,
+                     @Property("f2") int f2,
+                     @Property("f3") int f3,
+                     @Property("f4") int f4,
+                     @Property("f5") int f5,
+                     @Property("f6") int f6,
+                     @Property("f7") int f7,
+                     @Property("f8") int f8,
+                     @Property("f9") int f9,
+                     @Property("f10") int f10,
+                     @Property("f11") int f11,
+                     @Property("f12") int f12,
+                     @Property("f13") int f13,
+                     @Property("f14") int f14,
+                     @Property("f15") int f15,
+                     @Property("f16") int f16,
+                     @Property("f17") int f17,
+                     @Property("f18") int f18,
+                     @Property("f19") int f19,
+                     @Property("f20") int f20,
+                     @Property("f21") int f21,
+                     @Property("f22") int f22,
+                     @Property("f23") int f23,
+                     @Property("f24") int f24,
+                     @Property("f25") int f25,
+                     @Property("f26") int f26,
+                     @Property("f27") int f27,
+                     @Property("f28") int f28,
+                     @Property("f29") int f29,
+                     @Property("f30") int f30,
+                     @Property("f31") int f31,
+                     @Property("f32") int f32,
+                     @Property("f33") int f33,
+                     @Property("f34") int f34,
+                     @Property("f35") int f35,
+                     @Property("f36") int f36,
+                     @Property("f37") int f37,
+                     @Property("f38") int f38,
+                     @Property("f39") int f39,
+                     @Property("f40") int f40,
+                     @Property("f41") int f41,
+                     @Property("f42") int f42,
+                     @Property("f43") int f43,
+                     @Property("f44") int f44,
+                     @Property("f45") int f45,
+                     @Property("f46") int f46,
+                     @Property("f47") int f47,
+                     @Property("f48") int f48,
+                     @Property("f49") int f49,
+                     @Property("f50") int f50,
+                     @Property("f51") int f51,
+                     @Property("f52") int f52,
+                     @Property("f53") int f53,
+                     @Property("f54") int f54,
+                     @Property("f55") int f55,
+                     @Property("f56") int f56,
+                     @Property("f57") int f57,
+                     @Property("f58") int f58,
+                     @Property("f59") int f59,
+                     @Property("f60") int f60,
+                     @Property("f61") int f61,
+                     @Property("f62") int f62,
+                     @Property("f63") int f63,
+                     @Property("f64") int f64 ) {
+            this.id = id;
+            this.f0 = f0;
+            this.f1 = f1;
+            this.f2 = f2;
+            this.f3 = f3;
+            this.f4 = f4;
+            this.f5 = f5;
+            this.f6 = f6;
+            this.f7 = f7;
+            this.f8 = f8;
+            this.f9 = f9;
+            this.f10 = f10;
+            this.f11 = f11;
+            this.f12 = f12;
+            this.f13 = f13;
+            this.f14 = f14;
+            this.f15 = f15;
+            this.f16 = f16;
+            this.f17 = f17;
+            this.f18 = f18;
+            this.f19 = f19;
+            this.f20 = f20;
+            this.f21 = f21;
+            this.f22 = f22;
+            this.f23 = f23;
+            this.f24 = f24;
+            this.f25 = f25;
+            this.f26 = f26;
+            this.f27 = f27;
+            this.f28 = f28;
+            this.f29 = f29;
+            this.f30 = f30;
+            this.f31 = f31;
+            this.f32 = f32;
+            this.f33 = f33;
+            this.f34 = f34;
+            this.f35 = f35;
+            this.f36 = f36;
+            this.f37 = f37;
+            this.f38 = f38;
+            this.f39 = f39;
+            this.f40 = f40;
+            this.f41 = f41;
+            this.f42 = f42;
+            this.f43 = f43;
+            this.f44 = f44;
+            this.f45 = f45;
+            this.f46 = f46;
+            this.f47 = f47;
+            this.f48 = f48;
+            this.f49 = f49;
+            this.f50 = f50;
+            this.f51 = f51;
+            this.f52 = f52;
+            this.f53 = f53;
+            this.f54 = f54;
+            this.f55 = f55;
+            this.f56 = f56;
+            this.f57 = f57;
+            this.f58 = f58;
+            this.f59 = f59;
+            this.f60 = f60;
+            this.f61 = f61;
+            this.f62 = f62;
+            this.f63 = f63;
+            this.f64 = f64;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Discriminator;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import com.whaleal.mars.core.Mars;
+import org.bson.Document;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * 多态实体按 discriminator 解码
+ */
+public class TestDiscriminatorDecode {
+
+    private MongoMappingContext mapper;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+        mapper.getCodecRegistry().get(Puppy.class);
+    }
+
+    @Test
+    public void testDiscriminatorAfterId() {
+        Puppy puppy = new Puppy();
+        puppy.id = "p1";
+        puppy.name = "whale";
+        puppy.age = 2;
+
+        Document document = mapper.toDocument(puppy);
+        List< String > keys = new ArrayList<>(document.keySet());
+        assertEquals(keys.get(0), "_id");
+        assertEquals(keys.get(1), "kind");
+        assertEquals(document.get("kind"), "puppy");
+
+        Animal animal = mapper.fromDocument(Animal.class, document);
+        assertTrue(animal instanceof Puppy);
+        assertEquals(animal.name, "whale");
+        assertEquals(((Puppy) animal).age, 2);
+    }
+
+    @Test
+    public void testTrailingDiscriminator() {
+        Document document = new Document("_id", "p2")
+                .append("name", "fall")
+                .append("age", 3)
+                .append("kind", "puppy");
+
+        Animal animal = mapper.fromDocument(Animal.class, document);
+        assertTrue(animal instanceof Puppy);
+        assertEquals(((Puppy) animal).age, 3);
+    }
+
+    @Test
+    public void testObjectProperty() {
+        Document document = new Document("_id", "h1")
+                .append("pet", new Document("_id", "p3").append("kind", "puppy").append("name", "mars"))
+                .append("plain", new Document("name", "mars"));
+
+        Holder holder = mapper.fromDocument(Holder.class, document);
+        assertTrue(holder.pet instanceof Puppy);
+        assertEquals(((Puppy) holder.pet).name, "mars");
+        assertTrue(holder.plain instanceof Document);
+    }
+
+    @Discriminator(useDiscriminator = true, key = "kind", value = "animal")
+    public static class Animal {
+        @Id
+        public String id;
+        public String name;
+    }
+
+    @Discriminator(useDiscriminator = true, key = "kind", value = "dog")
+    public static class Dog extends Animal {
+    }
+
+    @Discriminator(useDiscriminator = true, key = "kind", value = "puppy")
+    public static class Puppy extends Dog {
+        public int age;
+    }
+
+    public static class Holder {
+        @Id
+        public String id;
+        public Object pet;
+        public Object plain;
+    }
+}
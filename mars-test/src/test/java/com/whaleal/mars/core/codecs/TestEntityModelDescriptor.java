@@ -0,0 +1,55 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.bean.Child;
+import com.whaleal.mars.bean.Parent;
+import com.whaleal.mars.bean.Student;
+import com.whaleal.mars.codecs.pojo.EntityModel;
+import com.whaleal.mars.codecs.pojo.EntityModelBuilder;
+import com.whaleal.mars.codecs.pojo.EntityModelDescriptors;
+import com.whaleal.mars.codecs.pojo.PropertyModel;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * 编译期生成的 EntityModelDescriptor 与反射构建结果一致
+ */
+public class TestEntityModelDescriptor {
+
+    @Test
+    public void testDescriptorGenerated() {
+        assertNotNull(EntityModelDescriptors.find(Parent.class));
+        assertNotNull(EntityModelDescriptors.find(Child.class));
+        assertEquals(EntityModelDescriptors.descriptorName(Child.class), "com.whaleal.mars.bean.Child_MarsModel");
+        // 使用了 lombok 的实体不生成 , 运行时通过反射构建
+        assertNull(EntityModelDescriptors.find(Student.class));
+    }
+
+    @Test
+    public void testSameAsReflection() {
+        assertSameModel(Parent.class);
+        assertSameModel(Child.class);
+        assertSameModel(Student.class);
+    }
+
+    private void assertSameModel( Class< ? > type ) {
+        EntityModel< ? > generated = EntityModelDescriptors.builder(type).build();
+        EntityModel< ? > reflected = new EntityModelBuilder<>(type).build();
+
+        assertEquals(generated.getCollectionName(), reflected.getCollectionName());
+        assertEquals(generated.getIdProperty().getName(), reflected.getIdProperty().getName());
+        assertEquals(generated.useDiscriminator(), reflected.useDiscriminator());
+
+        List< PropertyModel< ? > > expected = reflected.getPropertyModels();
+        List< PropertyModel< ? > > actual = generated.getPropertyModels();
+        assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(actual.get(i).getName(), expected.get(i).getName());
+            assertEquals(actual.get(i).getReadName(), expected.get(i).getReadName());
+            assertEquals(actual.get(i).getWriteName(), expected.get(i).getWriteName());
+            assertEquals(actual.get(i).getTypeData(), expected.get(i).getTypeData());
+        }
+    }
+}
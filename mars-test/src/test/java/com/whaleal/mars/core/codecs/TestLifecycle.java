@@ -0,0 +1,86 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import com.whaleal.mars.codecs.pojo.annotations.PostLoad;
+import com.whaleal.mars.codecs.pojo.annotations.PreLoad;
+import com.whaleal.mars.codecs.pojo.annotations.PropIgnore;
+import com.whaleal.mars.core.Mars;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * 加载时的 @PreLoad @PostLoad 方法
+ */
+public class TestLifecycle {
+
+    private MongoMappingContext mapper;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+    }
+
+    @Test
+    public void testPostLoad() {
+        Document document = new Document("_id", "l1").append("first", "whale").append("last", "fall");
+
+        Named named = mapper.fromDocument(Named.class, document);
+        assertEquals(named.first, "whale");
+        assertEquals(named.fullName, "whale fall");
+    }
+
+    @Test
+    public void testDocumentHooks() {
+        Document document = new Document("_id", "l2").append("value", 3).append("oldName", "old");
+
+        Audited audited = mapper.fromDocument(Audited.class, document);
+        // @PreLoad 在赋值之前调用 , 可以读取未映射的字段
+        assertFalse(audited.loadedBeforeValue);
+        assertEquals(audited.legacy, "old");
+        assertEquals(audited.value, 3);
+        assertEquals(audited.fieldCount, 3);
+    }
+
+    public static class Named {
+        @Id
+        public String id;
+        public String first;
+        public String last;
+        @PropIgnore
+        public String fullName;
+
+        @PostLoad
+        void join() {
+            fullName = first + " " + last;
+        }
+    }
+
+    public static class Audited {
+        @Id
+        public String id;
+        public int value;
+        @PropIgnore
+        public String legacy;
+        @PropIgnore
+        public boolean loadedBeforeValue;
+        @PropIgnore
+        public int fieldCount;
+
+        @PreLoad
+        void before(BsonDocument document) {
+            loadedBeforeValue = value != 0;
+            legacy = document.getString("oldName").getValue();
+        }
+
+        @PostLoad
+        void after(BsonDocument document) {
+            fieldCount = document.size();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.internal.PackedArrays;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import com.whaleal.mars.codecs.pojo.annotations.Representation;
+import com.whaleal.mars.core.Mars;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * 基本类型数组 及其包装类型数组 的编解码
+ */
+public class TestPrimitiveArrayCodec {
+
+    private MongoMappingContext mapper;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Vectors vectors = new Vectors();
+        vectors.id = "v1";
+        vectors.ints = new int[]{1, 2, 3};
+        vectors.longs = new long[]{1L << 40, -1L};
+        vectors.features = new double[1024];
+        for (int i = 0; i < vectors.features.length; i++) {
+            vectors.features[i] = i / 7.0;
+        }
+        vectors.flags = new boolean[]{true, false, true};
+        vectors.boxedInts = new Integer[]{1, null, 3};
+        vectors.boxedDoubles = new Double[]{0.5};
+
+        Document document = mapper.toDocument(vectors);
+        assertEquals(document.getList("ints", Integer.class), Arrays.asList(1, 2, 3));
+        assertEquals(document.getList("features", Double.class).size(), 1024);
+
+        Vectors decoded = mapper.fromDocument(Vectors.class, document);
+        assertEquals(decoded.ints, vectors.ints);
+        assertEquals(decoded.longs, vectors.longs);
+        assertEquals(decoded.features, vectors.features);
+        assertEquals(decoded.flags, vectors.flags);
+        assertEquals(decoded.boxedInts, vectors.boxedInts);
+        assertEquals(decoded.boxedDoubles, vectors.boxedDoubles);
+    }
+
+    @Test
+    public void testNumericConversion() {
+        Document document = new Document("_id", "v2")
+                .append("features", Arrays.asList(1, 2L, 2.5))
+                .append("longs", Arrays.asList(1, 2.0))
+                .append("ints", Arrays.asList());
+
+        Vectors decoded = mapper.fromDocument(Vectors.class, document);
+        assertEquals(decoded.features, new double[]{1, 2, 2.5});
+        assertEquals(decoded.longs, new long[]{1, 2});
+        assertEquals(decoded.ints.length, 0);
+    }
+
+    @Test
+    public void testPackedRoundTrip() {
+        Packed packed = new Packed();
+        packed.id = "p1";
+        packed.features = new double[]{0.25, -1, Double.MAX_VALUE};
+        packed.weights = new float[]{1.5f, 2};
+        packed.counts = new int[]{3, -4};
+        packed.timestamps = new long[]{1_600_000_000_000L, 1_600_000_000_007L, 1_600_000_000_100L};
+        packed.scores = new long[]{9, 1};
+        packed.ranks = Arrays.asList(5, 6, 7);
+        packed.values = Arrays.asList(0.5, 1.5);
+
+        Document document = mapper.toDocument(packed);
+        Binary features = (Binary) document.get("features");
+        assertEquals(features.getType(), PackedArrays.PACKED);
+        assertEquals(features.getData().length, 3 * Double.BYTES);
+        // 升序的 long[] 使用差值编码
+        assertEquals(((Binary) document.get("timestamps")).getType(), PackedArrays.PACKED_DELTA);
+        assertEquals(((Binary) document.get("scores")).getType(), PackedArrays.PACKED);
+        assertTrue(document.get("ranks") instanceof Binary);
+
+        Packed decoded = mapper.fromDocument(Packed.class, document);
+        assertEquals(decoded.features, packed.features);
+        assertEquals(decoded.weights, packed.weights);
+        assertEquals(decoded.counts, packed.counts);
+        assertEquals(decoded.timestamps, packed.timestamps);
+        assertEquals(decoded.scores, packed.scores);
+        assertEquals(decoded.ranks, packed.ranks);
+        assertEquals(decoded.values, packed.values);
+    }
+
+    @Test
+    public void testPackedReadsArrays() {
+        // 改为紧凑存储之前写入的数据仍然可以读取
+        Document document = new Document("_id", "p2")
+                .append("features", Arrays.asList(1.0, 2))
+                .append("ranks", Arrays.asList(1, 2));
+
+        Packed decoded = mapper.fromDocument(Packed.class, document);
+        assertEquals(decoded.features, new double[]{1, 2});
+        assertEquals(decoded.ranks, Arrays.asList(1, 2));
+    }
+
+    public static class Packed {
+        @Id
+        public String id;
+        @Representation(BsonType.BINARY)
+        public double[] features;
+        @Representation(BsonType.BINARY)
+        public float[] weights;
+        @Representation(BsonType.BINARY)
+        public int[] counts;
+        @Representation(BsonType.BINARY)
+        public long[] timestamps;
+        @Representation(BsonType.BINARY)
+        public long[] scores;
+        @Representation(BsonType.BINARY)
+        public List<Integer> ranks;
+        @Representation(BsonType.BINARY)
+        public List<Double> values;
+    }
+
+    public static class Vectors {
+        @Id
+        public String id;
+        public int[] ints;
+        public long[] longs;
+        public double[] features;
+        public boolean[] flags;
+        public Integer[] boxedInts;
+        public Double[] boxedDoubles;
+    }
+}
@@ -0,0 +1,159 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import com.whaleal.mars.codecs.pojo.annotations.Representation;
+import com.whaleal.mars.core.Mars;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * 生成的属性访问器 与 基本类型直接编码 测试
+ */
+public class TestPropertyAccessor {
+
+    private MongoMappingContext mapper;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+    }
+
+    @Test
+    public void testGetterSetterRoundTrip() {
+        Account account = new Account();
+        account.setId("a1");
+        account.setCount(7);
+        account.setTotal(1L << 40);
+        account.setRatio(0.5);
+        account.setActive(true);
+        account.setScore(9);
+
+        Document document = mapper.toDocument(account);
+        assertEquals(document.get("count"), 7);
+        assertEquals(document.get("total"), 1L << 40);
+        assertEquals(document.get("ratio"), 0.5);
+        assertEquals(document.get("active"), true);
+        // @Representation 仍然生效
+        assertEquals(document.get("score"), 9L);
+
+        Account decoded = mapper.fromDocument(Account.class, document);
+        assertEquals(decoded.getCount(), 7);
+        assertEquals(decoded.getTotal(), 1L << 40);
+        assertEquals(decoded.getRatio(), 0.5);
+        assertTrue(decoded.isActive());
+        assertEquals(decoded.getScore(), 9);
+    }
+
+    @Test
+    public void testPublicFieldRoundTrip() {
+        Counter counter = new Counter();
+        counter.id = "c1";
+        counter.hits = 42;
+        counter.name = "counter";
+
+        Document document = mapper.toDocument(counter);
+        assertEquals(document.get("hits"), 42);
+
+        Counter decoded = mapper.fromDocument(Counter.class, document);
+        assertEquals(decoded.hits, 42);
+        assertEquals(decoded.name, "counter");
+    }
+
+    @Test
+    public void testGeneratedCodecRoundTrip() {
+        MongoMappingContext generated = new MongoMappingContext(mapper.getDatabase());
+        generated.setCodecGeneration(true);
+
+        Account account = new Account();
+        account.setId("g1");
+        account.setCount(3);
+        account.setTotal(5L);
+        account.setRatio(1.5);
+        account.setScore(11);
+
+        Document document = generated.toDocument(account);
+        // 与默认模式编码结果一致
+        assertEquals(document, mapper.toDocument(account));
+        assertEquals(document.get("score"), 11L);
+
+        Account decoded = generated.fromDocument(Account.class, document);
+        assertEquals(decoded.getId(), "g1");
+        assertEquals(decoded.getCount(), 3);
+        assertEquals(decoded.getTotal(), 5L);
+        assertEquals(decoded.getRatio(), 1.5);
+        assertFalse(decoded.isActive());
+        assertEquals(decoded.getScore(), 11);
+    }
+
+    public static class Account {
+        @Id
+        private String id;
+        private int count;
+        private long total;
+        private double ratio;
+        private boolean active;
+        @Representation(BsonType.INT64)
+        private int score;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public void setRatio(double ratio) {
+            this.ratio = ratio;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public void setScore(int score) {
+            this.score = score;
+        }
+    }
+
+    public static class Counter {
+        @Id
+        public String id;
+        public int hits;
+        public String name;
+    }
+}
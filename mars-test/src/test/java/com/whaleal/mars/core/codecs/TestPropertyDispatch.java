@@ -0,0 +1,55 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.bean.Parent;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.core.Mars;
+import org.bson.Document;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * 解码时字段的查找 : 按写入顺序 , 乱序 , 缺失 及 未知字段
+ */
+public class TestPropertyDispatch {
+
+    private MongoMappingContext mapper;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+    }
+
+    @Test
+    public void testInOrder() {
+        Parent parent = new Parent();
+        parent.setId("p1");
+        parent.setName("mars");
+        parent.setAge(3);
+
+        Parent decoded = mapper.fromDocument(Parent.class, mapper.toDocument(parent));
+        assertEquals(decoded.getId(), "p1");
+        assertEquals(decoded.getName(), "mars");
+        assertEquals(decoded.getAge(), Integer.valueOf(3));
+    }
+
+    @Test
+    public void testOutOfOrder() {
+        Document document = new Document("unknown", 1)
+                .append("age", 5)
+                .append("pname", "whaleal")
+                .append("_id", "p2");
+
+        Parent decoded = mapper.fromDocument(Parent.class, document);
+        assertEquals(decoded.getId(), "p2");
+        assertEquals(decoded.getName(), "whaleal");
+        assertEquals(decoded.getAge(), Integer.valueOf(5));
+
+        decoded = mapper.fromDocument(Parent.class, new Document("age", 7));
+        assertNull(decoded.getId());
+        assertEquals(decoded.getAge(), Integer.valueOf(7));
+    }
+}
@@ -0,0 +1,76 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import com.whaleal.mars.core.Mars;
+import com.whaleal.mars.core.aggregation.stages.Match;
+import com.whaleal.mars.core.aggregation.stages.filters.Filters;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * 实体 及 聚合阶段 直接编码为 RawBsonDocument
+ */
+public class TestRawDocumentEncoding {
+
+    private MongoMappingContext mapper;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+    }
+
+    @Test
+    public void testSameAsDocument() {
+        Order order = new Order();
+        order.id = "o1";
+        order.amount = 12.5;
+        order.created = new Date(1600000000000L);
+        order.items = Arrays.asList("a", "b");
+        order.address = new Address();
+        order.address.city = "shanghai";
+
+        RawBsonDocument raw = mapper.toRawDocument(order);
+        BsonDocument expected = mapper.toDocument(order).toBsonDocument(BsonDocument.class, mapper.getCodecRegistry());
+        assertEquals(raw, expected);
+        assertTrue(raw.isDateTime("created"));
+
+        Order decoded = mapper.fromDocument(Order.class, Document.parse(raw.toJson()));
+        assertEquals(decoded.address.city, "shanghai");
+        assertEquals(decoded.items, order.items);
+    }
+
+    @Test
+    public void testDuplicateNames() {
+        RawBsonDocument single = mapper.toRawDocument(Match.on(Filters.eq("age", 1)), true);
+        assertNotNull(single);
+        assertEquals(single.getDocument("$match").getInt32("age").getValue(), 1);
+
+        // 同一字段的多个条件需要合并 , 不能直接写出
+        assertNull(mapper.toRawDocument(Match.on(Filters.gt("age", 1), Filters.lt("age", 5)), true));
+        assertNotNull(mapper.toRawDocument(Match.on(Filters.gt("age", 1), Filters.lt("age", 5)), false));
+    }
+
+    public static class Order {
+        @Id
+        public String id;
+        public double amount;
+        public Date created;
+        public List< String > items;
+        public Address address;
+    }
+
+    public static class Address {
+        public String city;
+    }
+}
@@ -0,0 +1,70 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import com.whaleal.mars.codecs.pojo.annotations.Raw;
+import com.whaleal.mars.core.Mars;
+import org.bson.BsonArray;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.ByteBuf;
+import org.bson.RawBsonArray;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+/**
+ * RawBsonDocument / RawBsonArray / @Raw byte[] 属性原样存取
+ */
+public class TestRawProperties {
+
+    private MongoMappingContext mapper;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        BsonDocument payload = new BsonDocument("a", new BsonInt32(1))
+                .append("b", new BsonDocument("c", new BsonString("x")));
+        RawBsonDocument blob = RawBsonDocument.parse("{\"k\": \"v\", \"n\": [1, 2]}");
+
+        Envelope envelope = new Envelope();
+        envelope.id = "e1";
+        envelope.payload = RawBsonDocument.parse(payload.toJson());
+        envelope.items = (RawBsonArray) RawBsonDocument.parse("{\"items\": [1, {\"d\": 2}]}").get("items");
+        ByteBuf buf = blob.getByteBuffer();
+        envelope.blob = new byte[buf.remaining()];
+        buf.get(envelope.blob);
+
+        RawBsonDocument raw = mapper.toRawDocument(envelope);
+        assertEquals(raw.getDocument("payload"), payload);
+        assertTrue(raw.get("items").isArray());
+        assertEquals(raw.getDocument("blob"), blob);
+
+        Envelope decoded = mapper.getCodecRegistry().get(Envelope.class)
+                .decode(new BsonBinaryReader(raw.getByteBuffer().asNIO()), DecoderContext.builder().build());
+        assertEquals(decoded.payload, payload);
+        assertEquals(decoded.items, new BsonArray(Arrays.asList(new BsonInt32(1), new BsonDocument("d", new BsonInt32(2)))));
+        assertEquals(decoded.blob, envelope.blob);
+    }
+
+    public static class Envelope {
+        @Id
+        public String id;
+        public RawBsonDocument payload;
+        public RawBsonArray items;
+        @Raw
+        public byte[] blob;
+    }
+}
@@ -0,0 +1,75 @@
+package com.whaleal.mars.core.codecs;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.codecs.MongoMappingContext;
+import com.whaleal.mars.codecs.pojo.annotations.Id;
+import com.whaleal.mars.core.Mars;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * 存储类型与属性类型不一致时的解码
+ */
+public class TestTypeMismatch {
+
+    private MongoMappingContext mapper;
+
+    @BeforeMethod
+    public void init() {
+        mapper = new Mars(Constant.connectionStr).getMapper();
+    }
+
+    @Test
+    public void testMixedTypes() {
+        ObjectId ref = new ObjectId();
+        Document document = new Document("_id", "m1")
+                .append("count", 5)
+                .append("age", 3.7)
+                .append("level", "12")
+                .append("ref", ref)
+                .append("score", 7L)
+                .append("active", "true");
+
+        Legacy legacy = mapper.fromDocument(Legacy.class, document);
+        assertEquals(legacy.count, Long.valueOf(5));
+        assertEquals(legacy.age, 3);
+        assertEquals(legacy.level, Integer.valueOf(12));
+        assertEquals(legacy.ref, ref.toHexString());
+        assertEquals(legacy.score, 7.0);
+        assertTrue(legacy.active);
+    }
+
+    @Test
+    public void testMatchingTypes() {
+        Document document = new Document("_id", "m2")
+                .append("count", 5L)
+                .append("age", 3)
+                .append("level", null)
+                .append("ref", "r")
+                .append("score", 0.5)
+                .append("active", false);
+
+        Legacy legacy = mapper.fromDocument(Legacy.class, document);
+        assertEquals(legacy.count, Long.valueOf(5));
+        assertEquals(legacy.age, 3);
+        assertNull(legacy.level);
+        assertEquals(legacy.ref, "r");
+        assertEquals(legacy.score, 0.5);
+        assertFalse(legacy.active);
+    }
+
+    public static class Legacy {
+        @Id
+        public String id;
+        public Long count;
+        public int age;
+        public Integer level;
+        public String ref;
+        public double score;
+        public boolean active;
+    }
+}
@@ -0,0 +1,76 @@
+package com.whaleal.mars.core.crud;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.base.StudentGenerator;
+import com.whaleal.mars.bean.Student;
+import com.whaleal.mars.core.Mars;
+import com.whaleal.mars.core.query.Criteria;
+import com.whaleal.mars.core.query.Query;
+import com.whaleal.mars.core.query.Update;
+import com.whaleal.mars.session.AsyncDatastore;
+import com.whaleal.mars.session.MarsSession;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步操作测试
+ */
+public class AsyncDatastoreTest {
+
+    private Mars mars;
+
+    @BeforeMethod
+    public void init() {
+        mars = new Mars(Constant.connectionStr);
+        mars.dropCollection(Student.class);
+    }
+
+    @Test
+    public void testFanOut() {
+        AsyncDatastore async = mars.async();
+        AsyncDatastore.allOf(
+                async.insert(StudentGenerator.getInstance(5001)),
+                async.insert(StudentGenerator.getInstance(5002)),
+                async.insert(StudentGenerator.getInstance(5003))).join();
+
+        CompletableFuture<Optional<Student>> one = async.findOne(new Query(Criteria.where("_id").is("5001")), Student.class);
+        CompletableFuture<List<Student>> all = async.findAll(new Query(), Student.class);
+        CompletableFuture<Long> count = async.count(Student.class);
+
+        AsyncDatastore.allOf(one, all, count).join();
+        Assert.assertTrue(one.join().isPresent());
+        Assert.assertEquals(all.join().size(), 3);
+        Assert.assertEquals(count.join(), Long.valueOf(3));
+    }
+
+    @Test
+    public void testShutdownAsyncExecutor() {
+        AsyncDatastore async = mars.async();
+        Assert.assertEquals(async.count(Student.class).join(), Long.valueOf(0));
+
+        mars.shutdownAsyncExecutor();
+        CompletableFuture<Long> rejected = async.count(Student.class);
+        Assert.assertTrue(rejected.isCompletedExceptionally());
+
+        Assert.assertEquals(mars.async().count(Student.class).join(), Long.valueOf(0));
+        mars.shutdownAsyncExecutor();
+    }
+
+    @Test
+    public void testSessionOrdering() {
+        mars.insert(StudentGenerator.getInstance(5001));
+        try (MarsSession session = mars.startSession()) {
+            session.startTransaction();
+            AsyncDatastore async = session.async();
+            async.update(new Query(Criteria.where("_id").is("5001")), new Update().set("stuName", "async"), Student.class);
+            Optional<Student> student = async.findOne(new Query(Criteria.where("_id").is("5001")), Student.class).join();
+            Assert.assertEquals(student.get().getStuName(), "async");
+            session.commitTransaction();
+        }
+    }
+}
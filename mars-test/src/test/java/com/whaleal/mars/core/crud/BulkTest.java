@@ -0,0 +1,152 @@
+package com.whaleal.mars.core.crud;
+
+import com.mongodb.MongoBulkWriteException;
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.base.StudentGenerator;
+import com.whaleal.mars.bean.Child;
+import com.whaleal.mars.bean.Parent;
+import com.whaleal.mars.bean.Student;
+import com.whaleal.mars.core.Mars;
+import com.whaleal.mars.core.query.Criteria;
+import com.whaleal.mars.core.query.Query;
+import com.whaleal.mars.core.query.Update;
+import com.whaleal.mars.session.result.BulkWriteResult;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写入测试
+ */
+public class BulkTest {
+
+    private Mars mars;
+
+    @BeforeMethod
+    public void init() {
+        mars = new Mars(Constant.connectionStr);
+        mars.dropCollection(Student.class);
+    }
+
+    @Test
+    public void testMixedBulk() {
+
+        mars.insert(StudentGenerator.getInstance(1001));
+        mars.insert(StudentGenerator.getInstance(1002));
+
+        Student replaced = StudentGenerator.getInstance(1001);
+        replaced.setStuName("replaced");
+
+        BulkWriteResult result = mars.bulk(Student.class)
+                .insert(StudentGenerator.getInstance(1003))
+                .replace(replaced)
+                .upsert(StudentGenerator.getInstance(1004))
+                .updateOne(new Query(Criteria.where("_id").is("1002")), new Update().set("stuAge", 30))
+                .deleteOne(new Query(Criteria.where("_id").is("1003")))
+                .execute();
+
+        Assert.assertEquals(result.getInsertedCount(), 1);
+        Assert.assertEquals(result.getMatchedCount(), 2);
+        Assert.assertEquals(result.getDeletedCount(), 1);
+        Assert.assertEquals(result.getUpsertedCount(), 1);
+        Assert.assertTrue(result.getUpserts().containsKey(2));
+
+        Assert.assertEquals(mars.count(Student.class), 3);
+        Assert.assertEquals(mars.findOne(new Query(Criteria.where("_id").is("1001")), Student.class).get().getStuName(), "replaced");
+        Assert.assertEquals(mars.findOne(new Query(Criteria.where("_id").is("1002")), Student.class).get().getStuAge(), Integer.valueOf(30));
+    }
+
+    @Test
+    public void testUnorderedInsert() {
+
+        List< Student > students = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            students.add(StudentGenerator.getInstance(10000 + i));
+        }
+
+        BulkWriteResult result = mars.bulk(Student.class).ordered(false).insert(students).execute();
+
+        Assert.assertEquals(result.getInsertedCount(), 2000);
+        Assert.assertEquals(mars.count(Student.class), 2000);
+    }
+
+    @Test
+    public void testSaveCollection() {
+
+        mars.insert(StudentGenerator.getInstance(1001));
+
+        Student existing = StudentGenerator.getInstance(1001);
+        existing.setStuName("saved");
+
+        Student created = StudentGenerator.getInstance(1002);
+        created.setStuNo(null);
+
+        List< Student > students = new ArrayList<>();
+        students.add(existing);
+        students.add(created);
+        students.add(StudentGenerator.getInstance(1003));
+
+        mars.save(students);
+
+        Assert.assertNotNull(created.getStuNo());
+        Assert.assertEquals(mars.count(Student.class), 3);
+        Assert.assertEquals(mars.findOne(new Query(Criteria.where("_id").is("1001")), Student.class).get().getStuName(), "saved");
+    }
+
+    @Test
+    public void testSaveMixedTypes() {
+
+        mars.dropCollection(Parent.class);
+        mars.dropCollection(Child.class);
+
+        Parent parent = new Parent();
+        parent.setId("p1");
+        parent.setName("parent");
+
+        Child child = new Child();
+        child.setId("c1");
+        child.setName("child");
+        child.setWeight(42.0);
+
+        List< Parent > entities = new ArrayList<>();
+        entities.add(parent);
+        entities.add(child);
+        mars.save(entities);
+
+        // 每个实体按自身的类型编码 并写入各自的集合
+        Assert.assertEquals(mars.count(Parent.class), 1);
+        Assert.assertEquals(mars.count(Child.class), 1);
+        Assert.assertEquals(mars.findOne(new Query(Criteria.where("_id").is("c1")), Child.class).get().getWeight(), Double.valueOf(42.0));
+    }
+
+    @Test
+    public void testUnorderedErrors() {
+
+        mars.insert(StudentGenerator.getInstance(1001));
+
+        Student withoutId = StudentGenerator.getInstance(1003);
+        withoutId.setStuNo(null);
+
+        try {
+            mars.bulk(Student.class).ordered(false)
+                    .insert(StudentGenerator.getInstance(1001))
+                    .insert(StudentGenerator.getInstance(1002))
+                    .upsert(withoutId)
+                    .execute();
+            Assert.fail("duplicate key expected");
+        } catch (MongoBulkWriteException e) {
+            Assert.assertEquals(e.getWriteErrors().size(), 1);
+            Assert.assertEquals(e.getWriteErrors().get(0).getIndex(), 0);
+            Assert.assertEquals(e.getWriteResult().getInsertedCount(), 2);
+        }
+
+        Assert.assertEquals(mars.count(Student.class), 3);
+
+        Student another = StudentGenerator.getInstance(1004);
+        another.setStuNo(null);
+        Assert.assertThrows(IllegalArgumentException.class, () -> mars.bulk(Student.class).replace(another));
+    }
+}
@@ -0,0 +1,110 @@
+package com.whaleal.mars.core.crud;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.base.StudentGenerator;
+import com.whaleal.mars.bean.Student;
+import com.whaleal.mars.core.Mars;
+import com.whaleal.mars.core.query.Collation;
+import com.whaleal.mars.core.query.Criteria;
+import com.whaleal.mars.core.query.Query;
+import com.whaleal.mars.core.query.Sort;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stream 与分批读取测试
+ */
+public class StreamTest {
+
+    private Mars mars;
+
+    @BeforeMethod
+    public void init() {
+        mars = new Mars(Constant.connectionStr);
+        mars.dropCollection(Student.class);
+        for (int i = 0; i < 25; i++) {
+            mars.insert(StudentGenerator.getInstance(3000 + i));
+        }
+    }
+
+    @Test
+    public void testStream() {
+        Query query = new Query().with(Sort.on().ascending("_id")).cursorBatchSize(4);
+        try (Stream<Student> stream = mars.stream(query, Student.class)) {
+            List<String> ids = stream.map(Student::getStuNo).collect(Collectors.toList());
+            Assert.assertEquals(ids.size(), 25);
+            Assert.assertEquals(ids.get(0), "3000");
+            Assert.assertEquals(ids.get(24), "3024");
+        }
+    }
+
+    @Test
+    public void testForEachBatch() {
+        List<Integer> sizes = new ArrayList<>();
+        mars.findAll(new Query().cursorBatchSize(10), Student.class).forEachBatch(10, batch -> sizes.add(batch.size()));
+        Assert.assertEquals(sizes.size(), 3);
+        Assert.assertEquals(sizes.get(2), Integer.valueOf(5));
+
+        sizes.clear();
+        mars.forEachBatch(new Query(), Student.class, 10, batch -> sizes.add(batch.size()));
+        Assert.assertEquals(sizes, Arrays.asList(10, 10, 5));
+
+        // 批次不会跨越驱动返回的批次
+        sizes.clear();
+        mars.findAll(new Query().cursorBatchSize(4), Student.class).forEachBatch(10, batch -> sizes.add(batch.size()));
+        Assert.assertEquals(sizes.stream().mapToInt(Integer::intValue).sum(), 25);
+        Assert.assertTrue(sizes.stream().allMatch(size -> size <= 4));
+    }
+
+    @Test
+    public void testParallelScan() {
+        for (int i = 25; i < 200; i++) {
+            mars.insert(StudentGenerator.getInstance(3000 + i));
+        }
+        Query query = new Query(Criteria.where("stuAge").is(18));
+        try (Stream<Student> stream = mars.parallelScan(query, Student.class, 4)) {
+            List<String> ids = stream.map(Student::getStuNo).collect(Collectors.toList());
+            Assert.assertEquals(ids.size(), 200);
+            Assert.assertEquals(ids.stream().distinct().count(), 200);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            List<String> ids = Collections.synchronizedList(new ArrayList<>());
+            mars.parallelForEach(new Query(), Student.class, 4, null, executor, (partition, student) -> {
+                threads.add(Thread.currentThread().getName());
+                ids.add(student.getStuNo());
+            });
+            Assert.assertEquals(ids.size(), 200);
+            Assert.assertEquals(ids.stream().distinct().count(), 200);
+            Assert.assertFalse(threads.contains(Thread.currentThread().getName()));
+
+            try (Stream<Student> stream = mars.parallelScan(new Query(), Student.class, 4, null, executor)) {
+                Assert.assertEquals(stream.map(Student::getStuNo).distinct().count(), 200);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<Integer, Integer> counts = new ConcurrentHashMap<>();
+        mars.parallelForEach(new Query(), Student.class, 4, (partition, student) -> counts.merge(partition, 1, Integer::sum));
+        Assert.assertEquals(counts.values().stream().mapToInt(Integer::intValue).sum(), 200);
+
+        Query collated = new Query().collation(Collation.of("en"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> mars.parallelScan(collated, Student.class, 4));
+    }
+}
@@ -0,0 +1,88 @@
+package com.whaleal.mars.core.crud;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.base.StudentGenerator;
+import com.whaleal.mars.bean.Student;
+import com.whaleal.mars.core.Mars;
+import com.whaleal.mars.session.WriteCoalescer;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单条写入合并测试
+ */
+public class WriteCoalescerTest {
+
+    private Mars mars;
+
+    @BeforeMethod
+    public void init() {
+        mars = new Mars(Constant.connectionStr);
+        mars.dropCollection(Student.class);
+    }
+
+    @Test
+    public void testConcurrentInsert() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List< CompletableFuture< Student > > futures = new ArrayList<>();
+
+        try (WriteCoalescer< Student > coalescer = mars.writeCoalescer(Student.class, null, 100, 10, TimeUnit.MILLISECONDS)) {
+
+            for (int i = 0; i < 1000; i++) {
+                Student student = StudentGenerator.getInstance(10000 + i);
+                futures.add(CompletableFuture.supplyAsync(() -> coalescer.insert(student), executor).thenCompose(f -> f));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            Assert.assertEquals(coalescer.getFlushedDocuments(), 1000);
+            Assert.assertTrue(coalescer.getFlushCount() < 1000);
+            Assert.assertTrue(coalescer.getMaxFlushSize() <= 100);
+            Assert.assertEquals(coalescer.getQueueDepth(), 0);
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(mars.count(Student.class), 1000);
+    }
+
+    @Test
+    public void testPerDocumentError() throws Exception {
+
+        mars.insert(StudentGenerator.getInstance(1001));
+
+        try (WriteCoalescer< Student > coalescer = mars.writeCoalescer(Student.class)) {
+
+            CompletableFuture< Student > duplicate = coalescer.insert(StudentGenerator.getInstance(1001));
+            CompletableFuture< Student > created = coalescer.insert(StudentGenerator.getInstance(1002));
+
+            Assert.assertEquals(created.get(10, TimeUnit.SECONDS).getStuNo(), "1002");
+            Assert.assertThrows(ExecutionException.class, () -> duplicate.get(10, TimeUnit.SECONDS));
+        }
+
+        Assert.assertEquals(mars.count(Student.class), 2);
+    }
+
+    @Test
+    public void testMissingIdFailsFuture() {
+
+        Student student = StudentGenerator.getInstance(1003);
+        student.setStuNo(null);
+
+        try (WriteCoalescer< Student > coalescer = mars.writeCoalescer(Student.class)) {
+            CompletableFuture< Void > deleted = coalescer.delete(student);
+            Assert.assertTrue(deleted.isCompletedExceptionally());
+            Assert.assertEquals(coalescer.getQueueDepth(), 0);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.whaleal.mars.core.query;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.base.StudentGenerator;
+import com.whaleal.mars.bean.Student;
+import com.whaleal.mars.core.Mars;
+import com.whaleal.mars.session.Page;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset 分页测试
+ */
+public class TestKeysetPage {
+
+    private Mars mars;
+
+    @BeforeMethod
+    public void init() {
+        mars = new Mars(Constant.connectionStr);
+        mars.dropCollection(Student.class);
+        for (int i = 0; i < 23; i++) {
+            Student student = StudentGenerator.getInstance(4000 + i);
+            student.setStuAge(i % 4);
+            mars.insert(student);
+        }
+    }
+
+    @Test
+    public void testWalkAllPages() {
+        List<String> seen = walk(Sort.on().descending("stuAge"));
+        Assert.assertEquals(seen.size(), 23);
+        Assert.assertEquals(seen.stream().distinct().count(), 23);
+    }
+
+    @Test
+    public void testNullableSortKey() {
+        mars.dropCollection(Student.class);
+        for (int i = 0; i < 23; i++) {
+            Student student = StudentGenerator.getInstance(4000 + i);
+            // 8 条 stuAge 为 null , 升序时跨越前两页 , 降序时从第四页开始
+            student.setStuAge(i % 3 == 0 ? null : i % 4);
+            mars.insert(student);
+        }
+
+        Assert.assertEquals(walk(Sort.on().ascending("stuAge")).size(), 23);
+        Assert.assertEquals(walk(Sort.on().descending("stuAge")).size(), 23);
+    }
+
+    /**
+     * 按 5 条一页遍历全部数据 , 并与同样排序的 findAll 结果逐条比较
+     */
+    private List<String> walk(Sort sort) {
+        List<String> seen = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            Page<Student> page = mars.findPage(new Query(), sort, token, 5, Student.class);
+            for (Student student : page) {
+                seen.add(student.getStuNo());
+            }
+            token = page.getNextToken();
+            pages++;
+        } while (token != null);
+
+        Assert.assertEquals(pages, 5);
+
+        List<Student> expected = mars.findAll(new Query().with(KeysetCursor.withTiebreaker(sort)), Student.class).toList();
+        Assert.assertEquals(seen.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(seen.get(i), expected.get(i).getStuNo());
+        }
+        return seen;
+    }
+
+    @Test
+    public void testTokenRoundTrip() {
+        Page<Student> first = mars.findPage(new Query(Criteria.where("stuAge").is(1)), Sort.on().ascending("stuAge"), null, 2, Student.class);
+        Assert.assertTrue(first.hasNext());
+
+        KeysetCursor cursor = KeysetCursor.parse(first.getNextToken());
+        Assert.assertEquals(cursor.getPosition().getInt32("stuAge").getValue(), 1);
+        Assert.assertEquals(cursor.getPosition().getString("_id").getValue(), first.getContent().get(1).getStuNo());
+    }
+}
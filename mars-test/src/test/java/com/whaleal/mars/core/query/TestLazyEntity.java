@@ -0,0 +1,70 @@
+package com.whaleal.mars.core.query;
+
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.base.StudentGenerator;
+import com.whaleal.mars.bean.Student;
+import com.whaleal.mars.codecs.pojo.LazyEntity;
+import com.whaleal.mars.core.Mars;
+import com.whaleal.mars.core.aggregation.AggregationPipeline;
+import com.whaleal.mars.core.aggregation.stages.filters.Filters;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * 基于 RawBsonDocument 的延迟解码
+ */
+public class TestLazyEntity {
+
+    private Mars mars;
+
+    @BeforeMethod
+    public void init() {
+        mars = new Mars(Constant.connectionStr);
+        mars.dropCollection(Student.class);
+        for (int i = 0; i < 5; i++) {
+            Student student = StudentGenerator.getInstance(5000 + i);
+            student.setStuAge(i);
+            mars.insert(student);
+        }
+    }
+
+    @Test
+    public void testFindAllLazy() {
+        List< LazyEntity< Student > > results = mars.findAllLazy(new Query(), Student.class).toList();
+        Assert.assertEquals(results.size(), 5);
+
+        for (LazyEntity< Student > lazy : results) {
+            String name = lazy.get("stuName");
+            Double height = lazy.get("stuHeight");
+            Assert.assertSame(lazy.get("stuName"), name);
+            Assert.assertEquals(lazy.< Double >get("height"), height);
+
+            Student student = lazy.materialize();
+            Assert.assertSame(lazy.materialize(), student);
+            Assert.assertEquals(student.getStuName(), name);
+            Assert.assertEquals(student.getStuHeight(), height);
+            Assert.assertEquals(lazy.< String >get("stuNo"), student.getStuNo());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownProperty() {
+        LazyEntity< Student > lazy = mars.findAllLazy(new Query(), Student.class).tryNext();
+        lazy.get("missing");
+    }
+
+    @Test
+    public void testAggregateLazy() {
+        AggregationPipeline< Student > pipeline = AggregationPipeline.create(Student.class);
+        pipeline.match(Filters.gte("stuAge", 3));
+
+        List< LazyEntity< Student > > results = mars.aggregateLazy(pipeline).toList();
+        Assert.assertEquals(results.size(), 2);
+        for (LazyEntity< Student > lazy : results) {
+            Assert.assertTrue(lazy.< Integer >get("stuAge") >= 3);
+        }
+    }
+}
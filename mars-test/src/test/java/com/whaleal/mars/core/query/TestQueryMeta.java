@@ -0,0 +1,136 @@
+package com.whaleal.mars.core.query;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.whaleal.mars.Constant;
+import com.whaleal.mars.base.StudentGenerator;
+import com.whaleal.mars.bean.Student;
+import com.whaleal.mars.core.Mars;
+import com.whaleal.mars.session.QueryCursor;
+import org.bson.BsonDocument;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 校验 Query 中的 Meta、hint、collation 是否下发到服务端命令中
+ */
+public class TestQueryMeta {
+
+    private final List<CommandStartedEvent> events = new CopyOnWriteArrayList<>();
+
+    private Mars mars;
+
+    @BeforeMethod
+    public void init() {
+        ConnectionString connectionString = new ConnectionString(Constant.connectionStr);
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(connectionString)
+                .addCommandListener(new CommandListener() {
+                    @Override
+                    public void commandStarted(CommandStartedEvent event) {
+                        // 事件中的命令文档引用的缓冲区会被复用 需要复制后再保存
+                        events.add(new CommandStartedEvent(event.getRequestId(), event.getConnectionDescription(),
+                                event.getDatabaseName(), event.getCommandName(), event.getCommand().clone()));
+                    }
+
+                    @Override
+                    public void commandSucceeded(CommandSucceededEvent event) {
+                    }
+
+                    @Override
+                    public void commandFailed(CommandFailedEvent event) {
+                    }
+                })
+                .build();
+        mars = new Mars(settings, connectionString.getDatabase());
+        mars.dropCollection(Student.class);
+        for (int i = 0; i < 10; i++) {
+            mars.insert(StudentGenerator.getInstance(2000 + i));
+        }
+        events.clear();
+    }
+
+    private Query metaQuery() {
+        Query query = new Query(Criteria.where("stuAge").gte(0))
+                .with(Sort.on().ascending("_id"))
+                .withHint("_id_")
+                .maxTime(5, TimeUnit.SECONDS)
+                .comment("mars-meta")
+                .cursorBatchSize(3)
+                .noCursorTimeout()
+                .partialResults()
+                .collation(Collation.of("en"));
+        query.fields().include("stuName");
+        return query;
+    }
+
+    private BsonDocument lastCommand(String commandName) {
+        for (int i = events.size() - 1; i >= 0; i--) {
+            if (events.get(i).getCommandName().equals(commandName)) {
+                return events.get(i).getCommand();
+            }
+        }
+        Assert.fail("no " + commandName + " command captured");
+        return null;
+    }
+
+    @Test
+    public void testFindAll() {
+        QueryCursor<Student> cursor = mars.findAll(metaQuery(), Student.class);
+        Assert.assertEquals(cursor.toList().size(), 10);
+
+        BsonDocument find = lastCommand("find");
+        Assert.assertEquals(find.getInt32("batchSize").getValue(), 3);
+        Assert.assertEquals(find.getString("hint").getValue(), "_id_");
+        Assert.assertEquals(find.getNumber("maxTimeMS").longValue(), 5000L);
+        Assert.assertEquals(find.getString("comment").getValue(), "mars-meta");
+        Assert.assertEquals(find.getDocument("collation").getString("locale").getValue(), "en");
+        Assert.assertTrue(find.getBoolean("noCursorTimeout").getValue());
+        Assert.assertTrue(find.getBoolean("allowPartialResults").getValue());
+        Assert.assertTrue(find.getDocument("projection").containsKey("stuName"));
+        Assert.assertTrue(find.getDocument("sort").containsKey("_id"));
+    }
+
+    @Test
+    public void testFindOne() {
+        Assert.assertTrue(mars.findOne(metaQuery(), Student.class).isPresent());
+
+        BsonDocument find = lastCommand("find");
+        Assert.assertEquals(find.getString("hint").getValue(), "_id_");
+        Assert.assertEquals(find.getNumber("maxTimeMS").longValue(), 5000L);
+        Assert.assertTrue(find.containsKey("collation"));
+        Assert.assertTrue(find.getDocument("projection").containsKey("stuName"));
+    }
+
+    @Test
+    public void testCount() {
+        Assert.assertEquals(mars.countById(metaQuery(), Student.class), 10);
+
+        BsonDocument aggregate = lastCommand("aggregate");
+        Assert.assertEquals(aggregate.getString("hint").getValue(), "_id_");
+        Assert.assertEquals(aggregate.getNumber("maxTimeMS").longValue(), 5000L);
+        Assert.assertTrue(aggregate.containsKey("collation"));
+    }
+
+    @Test
+    public void testFindAndModify() {
+        Student student = mars.findAndModify(metaQuery(), new Update().set("stuName", "modified"), Student.class);
+        Assert.assertNotNull(student);
+
+        BsonDocument findAndModify = lastCommand("findAndModify");
+        Assert.assertTrue(findAndModify.getDocument("fields").containsKey("stuName"));
+        Assert.assertTrue(findAndModify.getDocument("sort").containsKey("_id"));
+        Assert.assertEquals(findAndModify.getString("hint").getValue(), "_id_");
+        Assert.assertEquals(findAndModify.getNumber("maxTimeMS").longValue(), 5000L);
+        Assert.assertTrue(findAndModify.containsKey("collation"));
+    }
+}